@@ -1,8 +1,12 @@
 package org.esaude.dmt;
 
+import org.esaude.dmt.component.MirrorManager;
 import org.esaude.dmt.component.TranslationManager;
 import org.esaude.dmt.component.ValidationManager;
+import org.esaude.dmt.config.schema.Config;
+import org.esaude.dmt.dao.DAOFactory;
 import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.ConfigReader;
 
 /**
  * The main class
@@ -17,8 +21,24 @@ public class App
     {
     	ValidationManager vm = new ValidationManager();
     	if(!vm.execute()) return;
+    	Config config = ConfigReader.getInstance().getConfig();
+    	// the source tables are copied into the mirror and read from there
+    	if (Boolean.TRUE.equals(config.isMirrorSource())) {
+    		if (!Boolean.FALSE.equals(config.isMirrorRefresh())
+    				&& !new MirrorManager(vm.getTree()).execute()) return;
+    		DAOFactory.getInstance().mirrorSource();
+    	}
     	TranslationManager tm = new TranslationManager(vm.getTree());
-    	tm.execute();
+    	try {
+    		// translate again the root trees that failed in previous runs
+    		if (args.length > 0 && args[0].equalsIgnoreCase("retry")) {
+    			tm.retryDeadLetters();
+    		} else {
+    			tm.execute();
+    		}
+    	} finally {
+    		DAOFactory.getInstance().closePools();
+    	}
     }
 
 
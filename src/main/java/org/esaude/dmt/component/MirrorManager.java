@@ -0,0 +1,197 @@
+package org.esaude.dmt.component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.esaude.dmt.dao.DAOFactory;
+import org.esaude.dmt.dao.DatabaseUtil;
+import org.esaude.dmt.dao.Dialect;
+import org.esaude.dmt.dao.SourceMirror;
+import org.esaude.dmt.helper.DAOTypes;
+import org.esaude.dmt.helper.EventCodeContants;
+import org.esaude.dmt.helper.ProcessPhases;
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.TupleTree;
+import org.esaude.dmt.util.log.Event;
+import org.esaude.dmt.util.log.EventCode;
+import org.esaude.dmt.util.log.Info;
+import org.esaude.dmt.util.log.LogIt;
+import org.esaude.dmt.util.log.LogWriter;
+import org.esaude.matchingschema.MatchType;
+import org.esaude.matchingschema.ReferenceSideType;
+import org.esaude.matchingschema.ReferenceType;
+
+/**
+ * The manager that copies the source tables of the validated matching into
+ * the mirror, a local database, before the translation. The columns of the
+ * referenced and referencee sides of the R-References are indexed, as the
+ * CURRs and the matches are selected by them
+ */
+public class MirrorManager implements LogIt {
+	private final SourceMirror mirror;
+	private final LogWriter writer;
+	private final EventCode eventCode;
+	// the tables to copy and the columns to index, in the order of the tree
+	private final Map<String, Set<String>> tables = new LinkedHashMap<String, Set<String>>();
+	private DatabaseUtil sourceDAO;
+	private DatabaseUtil mirrorDAO;
+	private int tableCount, indexCount;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param tree
+	 * @param mirror
+	 * @param writer
+	 * @param eventCode
+	 */
+	public MirrorManager(final TupleTree tree, final SourceMirror mirror,
+			final LogWriter writer, final EventCode eventCode) {
+		this.mirror = mirror;
+		this.writer = writer;
+		this.eventCode = eventCode;
+		addTables(tree);
+	}
+
+	/**
+	 * Default constructor, the source and the mirror have their own
+	 * connections, closed at the end of the copy. The source connection is
+	 * closed if the mirror cannot be connected
+	 *
+	 * @param tree
+	 * @throws SystemException
+	 */
+	public MirrorManager(final TupleTree tree) throws SystemException {
+		sourceDAO = DAOFactory.getInstance().createDAO(DAOTypes.SOURCE);
+		try {
+			mirrorDAO = DAOFactory.getInstance().createDAO(DAOTypes.MIRROR);
+		} catch (SystemException e) {
+			close(sourceDAO);
+			throw e;
+		}
+		mirror = new SourceMirror(sourceDAO, mirrorDAO,
+				Dialect.forDatasource(DAOFactory.getInstance().getDatasource(
+						DAOTypes.MIRROR)), SourceMirror.DEFAULT_BATCH_SIZE);
+		writer = LogWriter.getWriter();
+		eventCode = new EventCode();
+		addTables(tree);
+	}
+
+	/**
+	 * Copies the tables and creates the indexes
+	 *
+	 * @return
+	 * @throws SystemException
+	 */
+	public boolean execute() throws SystemException {
+		// log start of process
+		writeSimpleInfoLog(ProcessPhases.MIRROR,
+				eventCode.getString(EventCodeContants.INF001));
+		try {
+			for (Map.Entry<String, Set<String>> table : tables.entrySet()) {
+				mirror.copy(table.getKey());
+				tableCount++;
+				for (String column : table.getValue()) {
+					mirror.index(table.getKey(), column);
+					indexCount++;
+				}
+			}
+		} finally {
+			close(sourceDAO);
+			close(mirrorDAO);
+		}
+		// log end of process
+		logEndOfProcess();
+
+		return true;
+	}
+
+	/**
+	 * @return the tables to copy and the columns to index of each one
+	 */
+	public Map<String, Set<String>> getTables() {
+		return tables;
+	}
+
+	/**
+	 * Collect the tables of the right sides and of the R-References of the
+	 * matches of a tree and of its subtrees
+	 *
+	 * @param tree
+	 */
+	private void addTables(final TupleTree tree) {
+		for (MatchType match : tree.getHead().getMatches()) {
+			if (match.getRight() != null) {
+				addTable(match.getRight().getTable());
+			}
+			for (ReferenceType reference : match.getReferences().values()) {
+				addColumn(reference.getReferencee());
+				addColumn(reference.getReferenced());
+			}
+		}
+		for (TupleTree subTree : tree.getSubTrees()) {
+			addTables(subTree);
+		}
+	}
+
+	private Set<String> addTable(final String table) {
+		if (table == null || table.trim().isEmpty()) {
+			return null;
+		}
+		if (!tables.containsKey(table)) {
+			tables.put(table, new LinkedHashSet<String>());
+		}
+		return tables.get(table);
+	}
+
+	private void addColumn(final ReferenceSideType side) {
+		if (side == null) {
+			return;
+		}
+		Set<String> columns = addTable(side.getTable());
+
+		if (columns != null && side.getColumn() != null
+				&& !side.getColumn().trim().isEmpty()) {
+			columns.add(side.getColumn());
+		}
+	}
+
+	private void close(final DatabaseUtil dao) {
+		try {
+			if (dao != null) {
+				dao.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes a simple text report containing the phase and message
+	 *
+	 * @param phase
+	 * @param text
+	 */
+	public void writeSimpleInfoLog(final String phase, final String text) {
+		Event event = new Info();
+		event.setFase(phase);
+		event.setDescricao(text);
+		writer.writeLog(event);
+	}
+
+	/**
+	 * Write the log report at the end of the mirror process
+	 */
+	public void logEndOfProcess() {
+		writeSimpleInfoLog(ProcessPhases.MIRROR,
+				eventCode.getString(EventCodeContants.INF002));
+		writeSimpleInfoLog(null,
+				tableCount + " " + eventCode.getString(EventCodeContants.INF010));
+		writeSimpleInfoLog(null,
+				indexCount + " " + eventCode.getString(EventCodeContants.INF011));
+		writeSimpleInfoLog(null,
+				eventCode.getString(EventCodeContants.SEPARATOR));
+	}
+}
@@ -0,0 +1,113 @@
+package org.esaude.dmt.component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class connects two stages of a translation pipeline. The queue is
+ * bounded, so a producer waits while its consumer is behind. The producer
+ * closes the queue once it has nothing left, any of the stages aborts it when
+ * it fails or stops early, which releases the stage waiting on the other side
+ *
+ * @param <T>
+ */
+public class PipelineQueue<T> {
+	private static final long POLL_MILLIS = 100;
+
+	private final BlockingQueue<T> items;
+	private volatile boolean closed;// no more items will be put
+	private volatile boolean aborted;
+	private volatile SystemException failure;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param capacity
+	 *            the number of items waiting to be taken
+	 */
+	public PipelineQueue(int capacity) {
+		items = new ArrayBlockingQueue<T>(capacity);
+	}
+
+	/**
+	 * Put an item, waiting while the queue is full
+	 *
+	 * @param item
+	 * @return false if the queue was aborted and the item was not put
+	 */
+	public boolean put(T item) {
+		try {
+			while (!aborted) {
+				if (items.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			abort(new SystemException("The pipeline was interrupted"));
+		}
+		return false;
+	}
+
+	/**
+	 * Take the next item, waiting while the queue is empty
+	 *
+	 * @return the item, or null if the queue was closed and all its items were
+	 *         taken, or if it was aborted
+	 */
+	public T take() {
+		try {
+			while (!aborted) {
+				// the items put before closing are still taken
+				boolean wasClosed = closed;
+				T item = items.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+				if (item != null) {
+					return item;
+				}
+				if (wasClosed) {
+					return null;
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			abort(new SystemException("The pipeline was interrupted"));
+		}
+		return null;
+	}
+
+	/**
+	 * Say that no more items will be put
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Stop both sides of the queue, the items not taken are discarded
+	 *
+	 * @param failure
+	 *            the cause, or null if the queue was stopped early on purpose
+	 */
+	public void abort(SystemException failure) {
+		if (failure != null && this.failure == null) {
+			this.failure = failure;
+		}
+		aborted = true;
+		items.clear();
+	}
+
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	/**
+	 * @return the failure of the stage that aborted the queue, if any
+	 */
+	public SystemException getFailure() {
+		return failure;
+	}
+}
@@ -3,30 +3,67 @@ package org.esaude.dmt.component;
 import static ch.lambdaj.Lambda.on;
 import static ch.lambdaj.Lambda.sort;
 
+import java.io.File;
+import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.jdbc.SQL;
 import org.esaude.dmt.config.schema.Config;
+import org.esaude.dmt.dao.BatchWriter;
 import org.esaude.dmt.dao.DAOFactory;
 import org.esaude.dmt.dao.DatabaseUtil;
+import org.esaude.dmt.dao.Dialect;
+import org.esaude.dmt.dao.GroupCommit;
+import org.esaude.dmt.dao.KeyAllocator;
+import org.esaude.dmt.dao.QueryCursor;
 import org.esaude.dmt.helper.DAOTypes;
 import org.esaude.dmt.helper.EventCodeContants;
 import org.esaude.dmt.helper.MatchConstants;
 import org.esaude.dmt.helper.ProcessPhases;
 import org.esaude.dmt.helper.ProcessStatuses;
 import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.process.schema.Process;
 import org.esaude.dmt.util.ConfigReader;
 import org.esaude.dmt.util.DatatypeEnforcer;
+import org.esaude.dmt.util.DeadLetter;
+import org.esaude.dmt.util.DeadLetterJournal;
+import org.esaude.dmt.util.GroupedResults;
+import org.esaude.dmt.util.KeyPoolUtil;
+import org.esaude.dmt.util.MatchCache;
 import org.esaude.dmt.util.MatchUtil;
 import org.esaude.dmt.util.ProcessReader;
+import org.esaude.dmt.util.SqlCodec;
 import org.esaude.dmt.util.TupleTree;
+import org.esaude.dmt.util.plan.ColumnPlan;
+import org.esaude.dmt.util.plan.PlanValue;
+import org.esaude.dmt.util.plan.QueryPlan;
+import org.esaude.dmt.util.plan.TranslationPlan;
+import org.esaude.dmt.util.plan.TuplePlan;
 import org.esaude.dmt.util.log.Event;
 import org.esaude.dmt.util.log.EventCode;
 import org.esaude.dmt.util.log.Info;
@@ -47,6 +84,8 @@ import org.esaude.matchingschema.ValueMatchType;
  *
  */
 public class TranslationManager implements LogIt {
+	// the largest limit pushed down to the match lookups, see pushedLimit
+	private static final int MAX_PUSHED_LIMIT = 1024;
 	private TupleTree tree;
 	private DatabaseUtil sourceDAO;
 	private DatabaseUtil targetDAO;
@@ -54,11 +93,47 @@ public class TranslationManager implements LogIt {
 	private LogWriter writer;
 	private EventCode eventCode;
 	private MatchUtil matchUtil;
-	private boolean skip;// this variable indicates whether or not a tuple must
-							// return an insert query or an empty string.
-	private final Config config = ConfigReader.getInstance().getConfig();
+	private TranslationPlan plan;// compiled once, before the translation
+	private final Config config;
 	private int processCount, treeCount, totalTreeNo, currTupleId;
+	private boolean keysetResume;// root CURRs ordered and resumed by key
+	private Object lastKey;// the key of the last root CURR processed
+	// the position of the last root tree committed, recorded if the
+	// translation fails
+	private int committedCount;
+	private Object committedKey;
+	private QueryPlan resumeQuery;// root CURRs after the last key, if known
+	private Dialect sourceDialect;// SQL of the source database
+	private boolean limitPushdown;// rows limited and skipped by the source
 	private boolean firstRun = true;
+	private int matchBatchSize;// number of CURRs resolved per set-based query
+	private GroupedResults matchBatch;// match results grouped by CURR
+	private int currBatchSize;// number of parent CURRs per child CURRs query
+	private GroupedResults currBatch;// child CURRs grouped by parent CURR
+	private BatchWriter batchWriter;// inserts of leaf tuples sent in batches
+	private GroupCommit groupCommit;// root trees committed together
+	private boolean continueOnError;// failed root trees are skipped
+	private DeadLetterJournal deadLetters;// the failed root trees
+	private String lastQuery;// the last query generated, for dead letters
+	private KeyAllocator keyAllocator;// TOPs assigned before the insert
+	private KeyPoolUtil keyPool;
+	private int workerCount;// number of root trees translated concurrently
+	private int fetchSize;// number of CURRs kept in memory, zero = all
+	// results of the queries that do not depend on CURRs, null = not cached
+	private ConcurrentMap<QueryPlan, List<List<Object>>> invariantResults;
+	private MatchCache matchCache;// results of the matches per bound values
+	private boolean virtualThreads;// a virtual thread per root tree
+	private int branchCount;// sibling subtrees translated concurrently
+	private ExecutorService branchThreads;
+	private BlockingQueue<TranslationManager> idleBranches;
+	private List<TranslationManager> branches;// null = no branches
+	private int splitThreshold;// child CURRs split across branches above it
+	private int pipelineQueueSize;// trees between stages, zero = no pipeline
+	private TreeWrites writes;// inserts of the tree, null = executed at once
+	// results of the matches of the root CURR, read ahead by the pipeline
+	private Map<Integer, List<List<Object>>> prefetched;
+	private SystemException failure;// the manager could not be started
+	private final ProcessReader processReader;// the position of the process
 
 	/**
 	 * Parameterized constructor
@@ -67,16 +142,218 @@ public class TranslationManager implements LogIt {
 	 */
 	public TranslationManager(TupleTree tree) {
 		this.tree = tree;
+		this.config = ConfigReader.getInstance().getConfig();
+		this.processReader = ProcessReader.getInstance();
 		try {
+			// the pools must lend all the connections before any is borrowed
+			checkPoolSizes();
 			sourceDAO = DAOFactory.getInstance().getDAO(DAOTypes.SOURCE);
 			targetDAO = DAOFactory.getInstance().getDAO(DAOTypes.TARGET);
-			writer = LogWriter.getWriter();
-			de = new DatatypeEnforcer();
-			eventCode = new EventCode();
-			matchUtil = new MatchUtil();
+			// keys are allocated in the client side if the block size is
+			// positive
+			if (config.getKeyBlockSize() != null
+					&& config.getKeyBlockSize().intValue() > 0) {
+				keyAllocator = new KeyAllocator(createDAO(DAOTypes.TARGET),
+						config.getKeyBlockSize().intValue());
+			}
+			configure();
 		} catch (SystemException e) {
 			e.printStackTrace();
+			failure = e;
+		}
+	}
+
+	/**
+	 * Constructor of a manager with the given configuration and connected to
+	 * the given DAOs instead of the ones of the factory, e.g. to translate
+	 * without a database in the tests
+	 * 
+	 * @param tree
+	 * @param config
+	 * @param sourceDAO
+	 * @param targetDAO
+	 * @param keyAllocator
+	 *            null if the keys are generated by the database
+	 * @param processReader
+	 *            the position of the process, the dead letter file is kept
+	 *            in its directory
+	 */
+	TranslationManager(TupleTree tree, Config config, DatabaseUtil sourceDAO,
+			DatabaseUtil targetDAO, KeyAllocator keyAllocator,
+			ProcessReader processReader) {
+		this.tree = tree;
+		this.config = config;
+		this.processReader = processReader;
+		this.sourceDAO = sourceDAO;
+		this.targetDAO = targetDAO;
+		this.keyAllocator = keyAllocator;
+		configure();
+	}
+
+	/**
+	 * Read the configuration of the translation
+	 */
+	private void configure() {
+		init();
+		// the root CURRs are streamed if the fetch size is positive
+		if (config.getFetchSize() != null) {
+			fetchSize = config.getFetchSize().intValue();
+		}
+		// the trees are translated in parallel if there are many workers
+		if (config.getWorkerCount() != null) {
+			workerCount = config.getWorkerCount().intValue();
+		}
+		// the root trees of a parallel translation run on virtual threads
+		virtualThreads = Boolean.TRUE.equals(config.isVirtualThreads());
+		// the failed root trees are kept in the dead letter file
+		deadLetters = new DeadLetterJournal(new File(processReader.getPath()
+				+ "/"
+				+ (config.getDeadLetterFile() != null ? config
+						.getDeadLetterFile() : "dead_letters.txt")));
+		continueOnError = Boolean.TRUE.equals(config.isContinueOnError());
+		keysetResume = Boolean.TRUE.equals(config.isKeysetResume());
+		// the sibling subtrees are translated concurrently if there are
+		// many branches
+		if (config.getBranchCount() != null) {
+			branchCount = config.getBranchCount().intValue();
+		}
+		// large sets of child CURRs are split across the branches
+		if (config.getSplitThreshold() != null) {
+			splitThreshold = config.getSplitThreshold().intValue();
+		}
+		// the trees are translated in a pipeline if the queue size is
+		// positive
+		if (config.getPipelineQueueSize() != null) {
+			pipelineQueueSize = config.getPipelineQueueSize().intValue();
+		}
+		// the branches and the pipeline must know the TOPs before the
+		// inserts, they are not silently dropped without them
+		if (keyAllocator == null
+				&& (branchCount > 1 || splitThreshold > 0 || pipelineQueueSize > 0)) {
+			failure = new SystemException(
+					"branch_count, split_threshold and pipeline_queue_size require key_block_size to be positive");
+		}
+		// the queries that do not depend on CURRs are executed once
+		if (Boolean.TRUE.equals(config.isCacheInvariantQueries())) {
+			invariantResults = new ConcurrentHashMap<QueryPlan, List<List<Object>>>();
+		}
+		// the results of the matches are cached if the size is positive
+		if (config.getMatchCacheSize() != null
+				&& config.getMatchCacheSize().intValue() > 0) {
+			matchCache = new MatchCache(config.getMatchCacheSize()
+					.intValue());
+			if (config.getMatchCacheDisabled() != null) {
+				for (String matchId : config.getMatchCacheDisabled()
+						.split(",")) {
+					if (!matchId.trim().isEmpty()) {
+						matchCache.setEnabled(
+								Integer.valueOf(matchId.trim()), false);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method checks that the pools of the source and of the target can
+	 * lend the connections of the translation: the shared DAOs, the key
+	 * allocator, the workers, the branches and the reader of the pipeline
+	 * 
+	 * @throws SystemException
+	 */
+	private void checkPoolSizes() throws SystemException {
+		final boolean allocated = config.getKeyBlockSize() != null
+				&& config.getKeyBlockSize().intValue() > 0;
+		final int workers = (config.getWorkerCount() != null) ? config
+				.getWorkerCount().intValue() : 0;
+		int sources = 1, targets = allocated ? 2 : 1;
+
+		if (workers > 1) {
+			// each worker has its own source and target
+			sources += workers;
+			targets += workers;
+		} else if (allocated) {
+			if (config.getBranchCount() != null
+					&& config.getBranchCount().intValue() > 1) {
+				sources += config.getBranchCount().intValue();
+			}
+			if (config.getPipelineQueueSize() != null
+					&& config.getPipelineQueueSize().intValue() > 0) {
+				sources++;
+			}
+		}
+		DAOFactory.getInstance().checkPoolSize(DAOTypes.SOURCE, sources);
+		DAOFactory.getInstance().checkPoolSize(DAOTypes.TARGET, targets);
+	}
+
+	/**
+	 * Worker constructor, a worker of a parallel translation has its own copy
+	 * of the tree and its own DAOs. The plan, the key allocator and the caches
+	 * are shared by all workers
+	 * 
+	 * @param master
+	 *            the manager that started the workers
+	 * @param tree
+	 * @param sourceDAO
+	 * @param targetDAO
+	 */
+	private TranslationManager(TranslationManager master, TupleTree tree,
+			DatabaseUtil sourceDAO, DatabaseUtil targetDAO) {
+		this.tree = tree;
+		this.config = master.config;
+		this.processReader = master.processReader;
+		this.plan = master.plan;
+		this.invariantResults = master.invariantResults;
+		this.matchCache = master.matchCache;
+		this.sourceDAO = sourceDAO;
+		this.targetDAO = targetDAO;
+		this.keyAllocator = master.keyAllocator;
+		this.firstRun = false;// the position is kept by the queue
+		init();
+	}
+
+	/**
+	 * Initialize the helpers of the translation
+	 */
+	private void init() {
+		writer = LogWriter.getWriter();
+		// the values are written as their databases expect them
+		final Dialect targetDialect = Dialect.forDatasource(DAOFactory
+				.getInstance().getDatasource(DAOTypes.TARGET));
+		de = new DatatypeEnforcer(targetDialect.getCodec());
+		eventCode = new EventCode();
+		// the source may be mirrored in a local database
+		sourceDialect = Dialect.forDatasource(DAOFactory.getInstance()
+				.getDatasource(DAOTypes.SOURCE));
+		matchUtil = new MatchUtil(sourceDialect.getCodec());
+		limitPushdown = Boolean.TRUE.equals(config.isLimitPushdown());
+		// the rows are grouped by CURR as the source compares the CURRs
+		matchBatch = new GroupedResults(sourceDialect.isCaseInsensitive());
+		// set-based resolution is only used if the batch size is positive
+		if (config.getMatchBatchSize() != null) {
+			matchBatchSize = config.getMatchBatchSize().intValue();
+		}
+		currBatch = new GroupedResults(sourceDialect.isCaseInsensitive());
+		if (config.getCurrBatchSize() != null) {
+			currBatchSize = config.getCurrBatchSize().intValue();
 		}
+		// leaf tuples are inserted in batches if the batch size is
+		// positive
+		if (config.getInsertBatchSize() != null
+				&& config.getInsertBatchSize().intValue() > 0) {
+			batchWriter = new BatchWriter(targetDAO, config
+					.getInsertBatchSize().intValue(), targetDialect,
+					(config.getMultiRowInsertSize() != null) ? config
+							.getMultiRowInsertSize().intValue() : 0);
+		}
+		keyPool = new KeyPoolUtil();
+		// the root trees are committed in groups of the batch size or of the
+		// interval
+		groupCommit = new GroupCommit(targetDAO,
+				(config.getCommitBatchSize() != null) ? config
+						.getCommitBatchSize().intValue() : 1,
+				(config.getCommitInterval() != null) ? config
+						.getCommitInterval().longValue() : 0);
 	}
 
 	/**
@@ -85,417 +362,1881 @@ public class TranslationManager implements LogIt {
 	 * @return
 	 * @throws SystemException
 	 */
-	public boolean execute() throws SystemException {
-
-		// log start of process
-		writeSimpleInfoLog(null,
-				eventCode.getString(EventCodeContants.SEPARATOR));
-		writeSimpleInfoLog(ProcessPhases.EXECUTION,
-				eventCode.getString(EventCodeContants.INF001));
-		writeSimpleInfoLog(null,
-				eventCode.getString(EventCodeContants.SEPARATOR));
+	public boolean execute() throws SystemException {
+		if (failure != null) {
+			throw failure;
+		}
+
+		// log start of process
+		writeSimpleInfoLog(null,
+				eventCode.getString(EventCodeContants.SEPARATOR));
+		writeSimpleInfoLog(ProcessPhases.EXECUTION,
+				eventCode.getString(EventCodeContants.INF001));
+		writeSimpleInfoLog(null,
+				eventCode.getString(EventCodeContants.SEPARATOR));
+
+		// reset processing point if config says so
+		if (config.isResetProcess()) {
+			processReader.recordProcess(0,
+					Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		}
+		// set the process position to start
+		final Process process = processReader.getProcess();
+		processCount = process.getLastStopPoint().intValue();
+		committedCount = processCount;
+
+		try {
+			// compile the translation once
+			plan = compile();
+			// the root CURRs already committed are not selected again, the
+			// key is compared as it was selected, e.g. as text if the CURR
+			// column is a VARCHAR
+			if (keysetResume && processCount > 0
+					&& process.getLastStopKey() != null
+					&& process.getLastStopKeyType() != null) {
+				lastKey = SqlCodec.fromText(process.getLastStopKeyType(),
+						process.getLastStopKey());
+				committedKey = lastKey;
+				final List<Object> parameters = new ArrayList<Object>();
+				resumeQuery = new QueryPlan(selectCurrs(tree, null, lastKey,
+						parameters), parameters);
+			} else if (limitPushdown && processCount > 0) {
+				// or skipped by the source database, if it can
+				final QueryPlan currsQuery = plan.get(tree.getHead().getId())
+						.getCurrsQuery();
+				final String page = sourceDialect.page(currsQuery.getSql(),
+						processCount, 0);
+				if (page != null) {
+					resumeQuery = new QueryPlan(page,
+							currsQuery.getParameters());
+				}
+			}
+			// the TOPs of the branches must be known before their inserts
+			if (branchCount > 1 && workerCount <= 1 && keyAllocator != null) {
+				startBranches();
+			}
+			if (workerCount > 1) {
+				executeInParallel();
+			} else if (pipelineQueueSize > 0 && keyAllocator != null) {
+				// the TOPs must be known before the inserts are executed
+				executeAsPipeline();
+			} else {
+				read(tree, null);
+			}
+		} catch (SystemException ex) {
+			ex.printStackTrace();
+			// the buffered inserts belong to the failed transaction
+			if (batchWriter != null) {
+				batchWriter.clear();
+			}
+			// the trees not committed yet are discarded
+			targetDAO.rollback();
+			// record current process as failed, the next run starts after
+			// the last tree committed
+			processReader.recordProcess(committedCount,
+					committedKey, Calendar.getInstance().getTime(),
+					ProcessStatuses.FAILED);
+			throw new SystemException(
+					"An error occured durring translation/execution phase while processing tuple # "
+							+ currTupleId);
+		} finally {
+			stopBranches();
+		}
+		// log end of process
+		logEndOfProcess();
+
+		return true;
+	}
+
+	/**
+	 * This method traverses the tree of tuples recursively and performs the
+	 * translation
+	 * 
+	 * @param t
+	 * @param parentUUID
+	 * @param parentCurr
+	 * @param parentTop
+	 * @throws SystemException
+	 */
+	private void read(final TupleTree t, final String parentUUID)
+			throws SystemException {
+		// how many tuples?
+		// select from source using the reference of the target side PKs
+		// r_reference
+		currTupleId = t.getHead().getId();// the current tuple ID
+		// use the CURRs selected for the batch of parent CURRs
+		List<List<Object>> currs = (t.getParent() != null) ? currBatch.get(
+				currTupleId, t.getParent().getCurr()) : null;
+		QueryCursor cursor = null;// streams the CURRs
+
+		// the root CURRs start after the last key committed
+		final boolean resumed = firstRun && t.getParent() == null
+				&& resumeQuery != null;
+
+		if (currs == null) {
+			final QueryPlan currsQuery = resumed ? resumeQuery : plan.get(
+					currTupleId).getCurrsQuery();
+			lastQuery = currsQuery.getSql();
+
+			// only a window of the CURRs is kept in memory, the cursors of
+			// the children are nested in the cursor of their parent
+			if (fetchSize > 0) {
+				cursor = sourceDAO.openCursor(currsQuery.getSql(),
+						currsQuery.bind(t, matchUtil), fetchSize);
+			} else if (t.getParent() == null) {
+				currs = sourceDAO.executeQuery(currsQuery.getSql(),
+						currsQuery.bind(t, matchUtil));
+			} else {
+				currs = executeQuery(t, currsQuery);
+			}
+		}
+
+		// in case this is the first run, start from last run final point
+		int currIndex = 0;
+		if (firstRun) {
+			currIndex = processCount;
+			if (cursor != null) {
+				if (!resumed) {
+					cursor.skip(processCount);
+				}
+			} else {
+				totalTreeNo = (resumed ? processCount : 0) + currs.size();
+			}
+			firstRun = false;
+		}
+		// split a large set of child CURRs across the branches
+		if (branches != null && cursor == null && t.getParent() != null
+				&& splitThreshold > 0 && currs.size() > splitThreshold) {
+			readSplit(t, parentUUID, currs);
+			return;
+		}
+		// the index of the first CURR of the window
+		int offset = resumed ? currIndex : 0;
+		if (cursor != null) {
+			offset = currIndex;
+			currs = cursor.next(fetchSize);
+		}
+		int matchBatchEnd = currIndex;// end of the current batch of CURRs
+		int currBatchEnd = currIndex;// end of the current batch of parent
+										// CURRs
+		boolean paused = false;
+
+		try {
+			while (true) {
+				for (; currIndex - offset < currs.size(); currIndex++) {
+					final int windowIndex = currIndex - offset;
+					// resolve the matches of the next batch of CURRs at once
+					if (matchBatchSize > 0 && currIndex >= matchBatchEnd) {
+						matchBatchEnd = Math.min(currIndex + matchBatchSize,
+								offset + currs.size());
+						resolveMatches(t, currs.subList(windowIndex,
+								matchBatchEnd - offset));
+					}
+					// select the CURRs of the children of the next batch at
+					// once
+					if (currBatchSize > 0 && !t.getSubTrees().isEmpty()
+							&& currIndex >= currBatchEnd) {
+						currBatchEnd = Math.min(currIndex + currBatchSize,
+								offset + currs.size());
+						resolveChildCurrs(t, currs.subList(windowIndex,
+								currBatchEnd - offset));
+					}
+					// init transaction from root
+					Savepoint savePoint = null;
+					if (t.getParent() == null) {
+						// rollback should go till this point
+						savePoint = targetDAO.setSavePoint();
+					}
+					final boolean translated;
+					try {
+						translated = translate(t, currs.get(windowIndex),
+								currIndex);
+						// the buffered inserts are part of the transaction
+						if (translated && t.getParent() == null
+								&& (config.isAllowCommit() || continueOnError)
+								&& batchWriter != null) {
+							batchWriter.flush();
+						}
+					} catch (Exception e) {
+						// skip the failed tree and go on
+						if (t.getParent() == null && continueOnError) {
+							skipFailedTree(savePoint, currs.get(windowIndex),
+									currIndex, e);
+							lastKey = rootKey(currs.get(windowIndex));
+							processCount++;
+							// the position moves past the failed tree, it is not
+							// dead lettered again
+							groupCommit.commit();
+							committed();
+							continue;
+						}
+						// only the failed tree is discarded from the group
+						if (t.getParent() == null
+								&& groupCommit.getPending() > 0) {
+							if (batchWriter != null) {
+								batchWriter.clear();
+							}
+							targetDAO.rollback(savePoint);
+							commitGroup();
+						}
+						throw e;
+					}
+					// stop this tree here if curr was not found or skipped
+					if (!translated) {
+						targetDAO.releaseSavePoint(savePoint);
+						// a skipped root tree is counted as processed
+						if (t.getParent() == null) {
+							lastKey = rootKey(currs.get(windowIndex));
+							processCount++;
+							if (!config.isAllowCommit() || groupCommit.add()) {
+								committed();
+							}
+						}
+						continue;
+					}
+					// commit a transaction from root
+					if (t.getParent() == null) {
+						// the tree no longer needs its save point
+						targetDAO.releaseSavePoint(savePoint);
+						lastKey = rootKey(currs.get(windowIndex));
+						// increment process counter for each tree
+						processCount++;
+						treeCount++;
+						// the trees up to this one are committed
+						if (!config.isAllowCommit() || groupCommit.add()) {
+							committed();
+						}
+						// stop if reached the limit of executions
+						if (treeCount == config.getTreeLimit().longValue()) {
+							commitGroup();
+							// record current process as paused
+							processReader.recordProcess(
+									processCount, lastKey,
+									Calendar.getInstance().getTime(),
+									ProcessStatuses.PAUSED);
+							paused = true;
+							break;
+						}
+					}
+				}
+				// move the window forward
+				if (cursor == null || paused) {
+					break;
+				}
+				offset += currs.size();
+				currs = cursor.next(fetchSize);
+				if (currs.isEmpty()) {
+					break;
+				}
+			}
+			// the number of root CURRs is only known once all were fetched
+			if (cursor != null && t.getParent() == null) {
+				totalTreeNo = paused ? -1 : offset + currs.size();
+			}
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+		}
+		// close DAOs
+		if (t.getParent() == null) {
+			// insert what is left in the buffer
+			if (batchWriter != null) {
+				batchWriter.flush();
+			}
+			commitGroup();
+			try {
+				targetDAO.close();
+				sourceDAO.close();
+				if (keyAllocator != null) {
+					keyAllocator.close();
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			// record end of process
+			if (processCount == totalTreeNo) {
+				// record current process as completed
+				processReader.recordProcess(0/*
+															 * next time start
+															 * one tree ahead
+															 */,
+						Calendar.getInstance().getTime(),
+						ProcessStatuses.COMPLETED);
+			}
+		}
+	}
+
+	/**
+	 * This method translates a CURR of a tuple: it inserts the tuple and reads
+	 * its children
+	 * 
+	 * @param t
+	 * @param row
+	 *            the row of the CURR
+	 * @param currIndex
+	 * @return false if the CURR was not found or its insert was skipped
+	 * @throws SystemException
+	 */
+	private boolean translate(final TupleTree t, final List<Object> row,
+			final int currIndex) throws SystemException {
+		Object top = null;
+		final Object curr = row.get(0);
+		t.setCurr(curr);
+		// the TOPs of the previous root tree are no longer needed
+		if (t.getParent() == null) {
+			keyPool.clear();
+		}
+		// stop this tree here if curr was not found
+		if (curr == null) {
+			return false;
+		}
+		// keep the UUID of current insert
+		final String uuid = UUID.randomUUID().toString();
+		// allocate the TOP before the insert, if possible
+		final Integer allocatedTop = allocateTop(t.getHead());
+		// build insert statement based on translation logic
+		final List<Object> insertTupleParameters = new ArrayList<Object>();
+		final String insertTupleQuery = insertTuple(t, uuid, currIndex,
+				allocatedTop, insertTupleParameters);
+		lastQuery = insertTupleQuery + " " + insertTupleParameters;
+
+		// stop here if query was skipped
+		if (insertTupleQuery.isEmpty()) {
+			return false;
+		}
+		// the key of a leaf tuple is not referenced by any other tuple
+		// and an allocated key is already known, so the insert does not
+		// need to be executed right away
+		if (writes != null) {
+			// the inserts are executed by the writer of the pipeline
+			if (allocatedTop == null && !t.getSubTrees().isEmpty()) {
+				throw new SystemException("The TOP of tuple # "
+						+ t.getHead().getId()
+						+ " is generated by the target database, it cannot be translated in a pipeline");
+			}
+			writes.add(insertTupleQuery, insertTupleParameters);
+			top = allocatedTop;
+		} else if (batchWriter != null
+				&& (allocatedTop != null || t.getSubTrees().isEmpty())) {
+			batchWriter.add(insertTupleQuery, insertTupleParameters, null);
+			top = allocatedTop;
+		} else {
+			// the buffered rows go first, they may be the parents this row
+			// references
+			if (batchWriter != null) {
+				batchWriter.flush();
+			}
+			final List<List<Object>> tops = targetDAO.executeUpdate(
+					insertTupleQuery, insertTupleParameters);
+			top = (allocatedTop != null) ? allocatedTop : tops.get(0)
+					.get(0);
+		}
+		t.setTop(top);// set top value to tuple
+		// keep the allocated TOP of the CURR
+		if (allocatedTop != null) {
+			keyPool.putPool(t.getHead().getId(), curr, allocatedTop);
+		}
+		// do all the same process for each child
+		if (branches != null && t.getSubTrees().size() > 1) {
+			readBranches(t, uuid);
+		} else {
+			for (TupleTree eachTree : t.getSubTrees()) {
+				read(eachTree, uuid);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method translates the root CURRs concurrently, each worker has its
+	 * own copy of the tree and its own DAOs and takes the root CURRs from a
+	 * shared queue. The trees are committed in the order of their CURRs
+	 * 
+	 * @throws SystemException
+	 */
+	private void executeInParallel() throws SystemException {
+		final QueryPlan currsQuery = (resumeQuery != null) ? resumeQuery
+				: plan.get(tree.getHead().getId()).getCurrsQuery();
+		// the CURRs before the process position are not selected again
+		final int skip = (resumeQuery != null) ? 0 : processCount;
+		final List<Object> parameters = currsQuery.bind(tree, matchUtil);
+		final String selectCurrsQuery = currsQuery.getSql();
+		// the root CURRs are streamed to the workers, if possible
+		QueryCursor cursor = null;
+		Iterator<List<Object>> currs;
+		if (fetchSize > 0) {
+			cursor = sourceDAO.openCursor(selectCurrsQuery, parameters,
+					fetchSize);
+			cursor.skip(skip);
+			currs = cursor;
+		} else {
+			List<List<Object>> rows = sourceDAO.executeQuery(
+					selectCurrsQuery, parameters);
+			currs = rows.subList(Math.min(skip, rows.size()),
+					rows.size()).iterator();
+		}
+
+		final TreeQueue queue = new TreeQueue(processCount, currs, config
+				.getTreeLimit().longValue());
+		if (virtualThreads) {
+			translateOnVirtualThreads(queue);
+		} else {
+			translateOnWorkers(queue);
+		}
+		// the first tree not committed
+		processCount = queue.getWatermark();
+		if (queue.getLastKey() != null) {
+			lastKey = queue.getLastKey();
+		}
+		// each tree of a parallel translation is committed on its own
+		committedCount = processCount;
+		committedKey = lastKey;
+		final boolean completed = queue.getFailure() == null
+				&& queue.isExhausted();
+		// close DAOs
+		try {
+			if (cursor != null) {
+				cursor.close();
+			}
+			targetDAO.close();
+			sourceDAO.close();
+			if (keyAllocator != null) {
+				keyAllocator.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		if (queue.getFailure() != null) {
+			throw queue.getFailure();
+		}
+		if (completed) {
+			// record current process as completed
+			processReader.recordProcess(0/*
+														 * next time start one
+														 * tree ahead
+														 */,
+					Calendar.getInstance().getTime(),
+					ProcessStatuses.COMPLETED);
+		} else {
+			// record current process as paused
+			processReader.recordProcess(processCount, lastKey,
+					Calendar.getInstance().getTime(), ProcessStatuses.PAUSED);
+		}
+	}
+
+	/**
+	 * This method creates a DAO with its own connection, for the key
+	 * allocator, the workers, the branches and the reader of the pipeline
+	 * 
+	 * @param type
+	 * @return
+	 * @throws SystemException
+	 */
+	DatabaseUtil createDAO(DAOTypes type) throws SystemException {
+		return DAOFactory.getInstance().createDAO(type);
+	}
+
+	/**
+	 * This method creates a worker with its own source and target DAOs. The
+	 * source DAO is closed if the target cannot be connected
+	 * 
+	 * @return
+	 * @throws SystemException
+	 */
+	private TranslationManager createWorker() throws SystemException {
+		final DatabaseUtil workerSourceDAO = createDAO(DAOTypes.SOURCE);
+		try {
+			return new TranslationManager(this, tree.copy(), workerSourceDAO,
+					createDAO(DAOTypes.TARGET));
+		} catch (SystemException e) {
+			try {
+				workerSourceDAO.close();
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * This method starts the workers of a parallel translation, each one on
+	 * its own thread, and waits for them to finish
+	 * 
+	 * @param queue
+	 * @throws SystemException
+	 */
+	private void translateOnWorkers(final TreeQueue queue)
+			throws SystemException {
+		ExecutorService pool = Executors.newFixedThreadPool(workerCount);
+		try {
+			for (int i = 0; i < workerCount; i++) {
+				final TranslationManager worker;
+				try {
+					worker = createWorker();
+				} catch (SystemException e) {
+					queue.fail(processCount, new SystemException(
+							"Unable to connect the worker # " + i));
+					break;
+				}
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						worker.work(queue);
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * This method translates each root tree of a parallel translation on its
+	 * own virtual thread. The number of trees in flight is capped by the
+	 * number of workers, each one has its own connections and translates a
+	 * tree at a time
+	 * 
+	 * @param queue
+	 * @throws SystemException
+	 */
+	private void translateOnVirtualThreads(final TreeQueue queue)
+			throws SystemException {
+		final BlockingQueue<TranslationManager> idle = new LinkedBlockingQueue<TranslationManager>();
+		for (int i = 0; i < workerCount; i++) {
+			try {
+				idle.add(createWorker());
+			} catch (SystemException e) {
+				queue.fail(processCount, new SystemException(
+						"Unable to connect the worker # " + i));
+				break;
+			}
+		}
+		// a permit per connected worker
+		final Semaphore permits = new Semaphore(idle.size());
+		final List<TranslationManager> workers = new ArrayList<TranslationManager>(
+				idle);
+		ExecutorService threads = newThreadPerTaskExecutor();
+		try {
+			while (queue.hasMore()) {
+				permits.acquire();
+				// the tree is taken once the permit is granted, so that the
+				// oldest tree in flight is never waiting for a permit
+				threads.execute(new Runnable() {
+					@Override
+					public void run() {
+						TranslationManager worker = idle.poll();
+						try {
+							int currIndex = queue.take();
+							if (currIndex >= 0) {
+								worker.translateTree(queue, currIndex);
+							}
+						} finally {
+							idle.add(worker);
+							permits.release();
+						}
+					}
+				});
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			queue.fail(processCount, new SystemException(
+					"Interrupted while starting the trees"));
+		} finally {
+			threads.shutdown();
+			try {
+				threads.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+			// close DAOs
+			for (TranslationManager worker : workers) {
+				try {
+					worker.targetDAO.close();
+					worker.sourceDAO.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method creates an executor that starts a virtual thread per task.
+	 * The project targets Java 7, so virtual threads are looked up at runtime
+	 * and a new platform thread is started per task if they are not supported
+	 * 
+	 * @return
+	 */
+	private static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod(
+					"newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception e) {
+			// virtual threads require Java 21 or later
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * This method is run by each worker of a parallel translation, it
+	 * translates the root CURRs taken from the queue in a transaction per tree
+	 * 
+	 * @param queue
+	 *            the queue of root CURRs
+	 */
+	private void work(final TreeQueue queue) {
+		int currIndex;
+
+		while ((currIndex = queue.take()) >= 0) {
+			translateTree(queue, currIndex);
+		}
+		// close DAOs
+		try {
+			targetDAO.close();
+			sourceDAO.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This method translates and commits a root tree taken from the queue of
+	 * a parallel translation
+	 * 
+	 * @param queue
+	 * @param currIndex
+	 */
+	private void translateTree(final TreeQueue queue, final int currIndex) {
+		try {
+			// rollback should go till this point
+			final Savepoint savePoint = targetDAO.setSavePoint();
+			final List<Object> row = queue.getRow(currIndex);
+			translate(tree, row, currIndex);
+			// the buffered inserts are part of the transaction
+			if (batchWriter != null) {
+				batchWriter.flush();
+			}
+			// the tree no longer needs its save point
+			targetDAO.releaseSavePoint(savePoint);
+			// the trees before this one must be committed first
+			queue.awaitTurn(currIndex);
+			if (config.isAllowCommit()) {
+				targetDAO.commit();
+			}
+			queue.done(currIndex, rootKey(row));
+			// checkpoints may come out of order, the furthest one is kept
+			if (config.isAllowCommit()) {
+				processReader.checkpoint(currIndex + 1,
+						rootKey(row));
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (batchWriter != null) {
+				batchWriter.clear();
+			}
+			targetDAO.rollback();
+			queue.fail(currIndex, new SystemException("Failed tree # "
+					+ currIndex + " while processing tuple # " + currTupleId));
+		}
+	}
+
+	/**
+	 * This method rolls back a failed root tree to its save point and writes
+	 * it to the dead letter file, the translation goes on with the next tree
+	 * 
+	 * @param savePoint
+	 * @param row
+	 *            the row of the root CURR
+	 * @param currIndex
+	 * @param e
+	 *            the failure
+	 * @throws SystemException
+	 */
+	private void skipFailedTree(final Savepoint savePoint,
+			final List<Object> row, final int currIndex, final Exception e)
+			throws SystemException {
+		e.printStackTrace();
+		if (batchWriter != null) {
+			batchWriter.clear();
+		}
+		targetDAO.rollback(savePoint);
+		targetDAO.releaseSavePoint(savePoint);
+		deadLetter(row, currIndex, e);
+	}
+
+	/**
+	 * This method commits the pending group of root trees, if any
+	 */
+	private void commitGroup() {
+		if (groupCommit.commit()) {
+			committed();
+		}
+	}
+
+	/**
+	 * This method moves the committed position to the last root tree
+	 * processed, once its group is committed. The position is checkpointed
+	 * if the results are committed
+	 */
+	private void committed() {
+		committedCount = processCount;
+		committedKey = lastKey;
+		if (config.isAllowCommit()) {
+			processReader.checkpoint(committedCount,
+					committedKey);
+		}
+	}
+
+	/**
+	 * This method returns the key of a root CURR to be recorded with the
+	 * process position, if the process is resumed by key
+	 * 
+	 * @param row
+	 *            the row of the root CURR
+	 * @return the key or null if it is not tracked
+	 */
+	private Object rootKey(final List<Object> row) {
+		return keysetResume ? row.get(0) : null;
+	}
+
+	/**
+	 * This method writes a failed root tree to the dead letter file
+	 * 
+	 * @param row
+	 *            the row of the root CURR
+	 * @param currIndex
+	 * @param e
+	 *            the failure
+	 * @throws SystemException
+	 */
+	private void deadLetter(final List<Object> row, final int currIndex,
+			final Exception e) throws SystemException {
+		deadLetters.append(new DeadLetter(currIndex, row.get(0), currTupleId,
+				lastQuery, String.valueOf(e.getMessage())));
+	}
+
+	/**
+	 * This method translates again the root trees of the dead letter file,
+	 * each one in its own transaction. The trees that fail again are kept in
+	 * the file, the others are removed from it. The process position is not
+	 * changed
+	 * 
+	 * @return true if all the trees were translated
+	 * @throws SystemException
+	 */
+	public boolean retryDeadLetters() throws SystemException {
+		if (failure != null) {
+			throw failure;
+		}
+		final List<DeadLetter> failed = new ArrayList<DeadLetter>();
+
+		writeSimpleInfoLog(null,
+				eventCode.getString(EventCodeContants.SEPARATOR));
+		writeSimpleInfoLog(ProcessPhases.EXECUTION,
+				eventCode.getString(EventCodeContants.INF001));
+		writeSimpleInfoLog(null,
+				eventCode.getString(EventCodeContants.SEPARATOR));
+
+		plan = compile();
+		for (DeadLetter deadLetter : deadLetters.read()) {
+			// rollback should go till this point
+			final Savepoint savePoint = targetDAO.setSavePoint();
+			try {
+				translate(tree, Arrays.asList(deadLetter.getCurr()),
+						deadLetter.getIndex());
+				// the buffered inserts are part of the transaction
+				if (batchWriter != null) {
+					batchWriter.flush();
+				}
+				targetDAO.releaseSavePoint(savePoint);
+				if (config.isAllowCommit()) {
+					targetDAO.commit();
+				}
+				treeCount++;
+			} catch (Exception e) {
+				e.printStackTrace();
+				if (batchWriter != null) {
+					batchWriter.clear();
+				}
+				targetDAO.rollback(savePoint);
+				targetDAO.releaseSavePoint(savePoint);
+				failed.add(new DeadLetter(deadLetter.getIndex(), deadLetter
+						.getCurr(), currTupleId, lastQuery, String.valueOf(e
+						.getMessage())));
+			}
+		}
+		deadLetters.rewrite(failed);
+		// close DAOs
+		try {
+			targetDAO.close();
+			sourceDAO.close();
+			if (keyAllocator != null) {
+				keyAllocator.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		// log end of process
+		logEndOfProcess();
+
+		return failed.isEmpty();
+	}
+
+	/**
+	 * This method creates the branches that translate sibling subtrees
+	 * concurrently, each one with its own source connection. The branches
+	 * only read from the source, their inserts are executed by this manager in
+	 * the transaction of the root tree. The branches share the pool of this
+	 * manager, so that they can hand their own subtrees and large sets of
+	 * child CURRs to the branches that are idle
+	 * 
+	 * @throws SystemException
+	 */
+	private void startBranches() throws SystemException {
+		branches = new ArrayList<TranslationManager>();
+		idleBranches = new LinkedBlockingQueue<TranslationManager>();
+		branchThreads = Executors.newFixedThreadPool(branchCount);
+		for (int i = 0; i < branchCount; i++) {
+			final TranslationManager branch = new TranslationManager(this,
+					tree.copy(), createDAO(DAOTypes.SOURCE), null);
+			branch.branches = branches;
+			branch.idleBranches = idleBranches;
+			branch.branchThreads = branchThreads;
+			branch.splitThreshold = splitThreshold;
+			branches.add(branch);
+			idleBranches.add(branch);
+		}
+	}
+
+	/**
+	 * This method stops the threads of the branches and closes their
+	 * connections
+	 */
+	private void stopBranches() {
+		if (branches == null) {
+			return;
+		}
+		if (branchThreads != null) {
+			branchThreads.shutdown();
+		}
+		for (TranslationManager branch : branches) {
+			try {
+				branch.sourceDAO.close();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		branches = null;
+	}
+
+	/**
+	 * This method translates the subtrees of a tuple concurrently, one branch
+	 * per subtree. Sibling subtrees only depend on the TOP of their parent,
+	 * which is already known
+	 * 
+	 * @param t
+	 * @param uuid
+	 * @throws SystemException
+	 */
+	private void readBranches(final TupleTree t, final String uuid)
+			throws SystemException {
+		final List<Future<TreeWrites>> results = new ArrayList<Future<TreeWrites>>();
+
+		for (TupleTree eachTree : t.getSubTrees()) {
+			results.add(submitBranch(eachTree, uuid, null, 0));
+		}
+		awaitBranches(t, results);
+	}
+
+	/**
+	 * This method splits the CURRs of a child tuple in a part per branch and
+	 * translates the parts concurrently. The parts share the TOPs of the
+	 * parent tuples, which are already known
+	 * 
+	 * @param t
+	 * @param parentUUID
+	 * @param currs
+	 * @throws SystemException
+	 */
+	private void readSplit(final TupleTree t, final String parentUUID,
+			final List<List<Object>> currs) throws SystemException {
+		final List<Future<TreeWrites>> results = new ArrayList<Future<TreeWrites>>();
+		final int partSize = (currs.size() + branches.size() - 1)
+				/ branches.size();
+
+		for (int from = 0; from < currs.size(); from += partSize) {
+			results.add(submitBranch(t, parentUUID, currs.subList(from,
+					Math.min(from + partSize, currs.size())), from));
+		}
+		awaitBranches(t, results);
+	}
+
+	/**
+	 * This method hands a subtree, or a part of the CURRs of a tuple, to a
+	 * branch that is idle. If all the branches are busy, this manager does the
+	 * work itself, so that a branch never waits for a branch
+	 * 
+	 * @param t
+	 * @param parentUUID
+	 * @param rows
+	 *            the part of the CURRs, or null if the branch reads them
+	 * @param firstIndex
+	 *            the index of the first CURR of the part
+	 * @return the inserts of the branch, once it is done
+	 */
+	private Future<TreeWrites> submitBranch(final TupleTree t,
+			final String parentUUID, final List<List<Object>> rows,
+			final int firstIndex) {
+		final int index = (writes != null) ? writes.getIndex()
+				: processCount;
+		final TranslationManager branch = idleBranches.poll();
+
+		if (branch == null) {
+			FutureTask<TreeWrites> own = new FutureTask<TreeWrites>(
+					new Callable<TreeWrites>() {
+						@Override
+						public TreeWrites call() throws Exception {
+							return collect(t, parentUUID, rows, firstIndex,
+									index);
+						}
+					});
+			own.run();
+			return own;
+		}
+		return branchThreads.submit(new Callable<TreeWrites>() {
+			@Override
+			public TreeWrites call() throws Exception {
+				try {
+					return branch.readBranch(t, parentUUID, rows, firstIndex,
+							index);
+				} finally {
+					idleBranches.add(branch);
+				}
+			}
+		});
+	}
+
+	/**
+	 * This method waits for the branches of a tuple, even if one has failed.
+	 * The inserts of each branch are executed in order, as soon as the branch
+	 * is done
+	 * 
+	 * @param t
+	 * @param results
+	 * @throws SystemException
+	 */
+	private void awaitBranches(final TupleTree t,
+			final List<Future<TreeWrites>> results) throws SystemException {
+		SystemException failure = null;
+
+		for (Future<TreeWrites> result : results) {
+			try {
+				TreeWrites branchWrites = result.get();
+				if (failure == null) {
+					write(branchWrites);
+				}
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+				if (failure == null) {
+					failure = new SystemException("Failed branch of tuple # "
+							+ t.getHead().getId() + ": "
+							+ e.getCause().getMessage());
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				if (failure == null) {
+					failure = new SystemException(
+							"Interrupted while waiting the branches of tuple # "
+									+ t.getHead().getId());
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * The work of a branch: translates a subtree, or a part of the CURRs of a
+	 * tuple, in its own copy of the tree and keeps its inserts
+	 * 
+	 * @param t
+	 *            the tuple in the tree of the manager that started the branch
+	 * @param parentUUID
+	 * @param rows
+	 *            the part of the CURRs, or null if they must be read
+	 * @param firstIndex
+	 *            the index of the first CURR of the part
+	 * @param index
+	 *            the index of the root CURR of the tree
+	 * @return the inserts, in order
+	 * @throws SystemException
+	 */
+	private TreeWrites readBranch(final TupleTree t, final String parentUUID,
+			final List<List<Object>> rows, final int firstIndex,
+			final int index) throws SystemException {
+		// the branch sees the CURRs and TOPs of the parent tuples
+		final TupleTree own = tree.getTree(t.getHead().getId());
+		TupleTree ownParent = own.getParent();
+		for (TupleTree parent = t.getParent(); parent != null; parent = parent
+				.getParent()) {
+			ownParent.setCurr(parent.getCurr());
+			ownParent.setTop(parent.getTop());
+			ownParent = ownParent.getParent();
+		}
+		return collect(own, parentUUID, rows, firstIndex, index);
+	}
+
+	/**
+	 * This method translates a subtree, or a part of the CURRs of a tuple,
+	 * and keeps its inserts apart from the ones of this manager
+	 * 
+	 * @param t
+	 *            the tuple in the tree of this manager
+	 * @param parentUUID
+	 * @param rows
+	 *            the part of the CURRs, or null if they must be read
+	 * @param firstIndex
+	 *            the index of the first CURR of the part
+	 * @param index
+	 *            the index of the root CURR of the tree
+	 * @return the inserts, in order
+	 * @throws SystemException
+	 */
+	private TreeWrites collect(final TupleTree t, final String parentUUID,
+			final List<List<Object>> rows, final int firstIndex,
+			final int index) throws SystemException {
+		final TreeWrites outer = writes;
+		writes = new TreeWrites(index);
+		try {
+			if (rows == null) {
+				read(t, parentUUID);
+			} else {
+				translateRows(t, rows, firstIndex);
+			}
+			return writes;
+		} finally {
+			writes = outer;
+		}
+	}
+
+	/**
+	 * This method translates a part of the CURRs of a tuple, the matches and
+	 * the CURRs of the children are resolved in batches as in
+	 * {@link #read(TupleTree, String)}
+	 * 
+	 * @param t
+	 * @param rows
+	 * @param firstIndex
+	 *            the index of the first CURR of the part
+	 * @throws SystemException
+	 */
+	private void translateRows(final TupleTree t,
+			final List<List<Object>> rows, final int firstIndex)
+			throws SystemException {
+		currTupleId = t.getHead().getId();
+		int matchBatchEnd = 0;// end of the current batch of CURRs
+		int currBatchEnd = 0;// end of the current batch of parent CURRs
+
+		for (int i = 0; i < rows.size(); i++) {
+			if (matchBatchSize > 0 && i >= matchBatchEnd) {
+				matchBatchEnd = Math.min(i + matchBatchSize, rows.size());
+				resolveMatches(t, rows.subList(i, matchBatchEnd));
+			}
+			if (currBatchSize > 0 && !t.getSubTrees().isEmpty()
+					&& i >= currBatchEnd) {
+				currBatchEnd = Math.min(i + currBatchSize, rows.size());
+				resolveChildCurrs(t, rows.subList(i, currBatchEnd));
+			}
+			translate(t, rows.get(i), firstIndex + i);
+		}
+	}
+
+	/**
+	 * This method executes the inserts of a subtree translated by a branch,
+	 * or keeps them if the inserts of this manager are executed elsewhere
+	 * 
+	 * @param branchWrites
+	 * @throws SystemException
+	 */
+	private void write(final TreeWrites branchWrites) throws SystemException {
+		for (int i = 0; i < branchWrites.size(); i++) {
+			String query = branchWrites.getQueries().get(i);
+			List<Object> parameters = branchWrites.getParameters().get(i);
+
+			if (writes != null) {
+				writes.add(query, parameters);
+			} else if (batchWriter != null) {
+				batchWriter.add(query, parameters, null);
+			} else {
+				targetDAO.executeUpdate(query, parameters);
+			}
+		}
+	}
+
+	/**
+	 * This method translates the root trees in a pipeline of three stages
+	 * connected by bounded queues: a reader that selects the root CURRs and
+	 * the matches of the root tuple, the translator in the current thread and
+	 * a writer that executes the inserts and commits each tree. The round
+	 * trips to the source and to the target databases overlap with the
+	 * translation
+	 * 
+	 * @throws SystemException
+	 */
+	private void executeAsPipeline() throws SystemException {
+		final PipelineQueue<TreeRead> reads = new PipelineQueue<TreeRead>(
+				pipelineQueueSize);
+		final PipelineQueue<TreeWrites> commits = new PipelineQueue<TreeWrites>(
+				pipelineQueueSize);
+		final DatabaseUtil readerDAO = createDAO(DAOTypes.SOURCE);
+		final TupleTree readTree = tree.copy();
+		final int start = processCount;
+		int readCount = start;// number of root CURRs read
+		boolean paused = false;
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				readAhead(readTree, readerDAO, start, reads);
+			}
+		});
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				writeBehind(commits);
+			}
+		});
+		try {
+			TreeRead read;
+			while ((read = reads.take()) != null) {
+				readCount++;
+				prefetched = read.getMatches();
+				writes = new TreeWrites(read.getIndex(), read.getRow(),
+						rootKey(read.getRow()));
+				final boolean translated;
+				try {
+					translated = translate(tree, read.getRow(),
+							read.getIndex());
+				} catch (Exception e) {
+					if (!continueOnError) {
+						throw e;
+					}
+					// skip the failed tree, the writer still counts it
+					e.printStackTrace();
+					deadLetter(read.getRow(), read.getIndex(), e);
+					if (!commits.put(new TreeWrites(read.getIndex(), read
+							.getRow(), rootKey(read.getRow())))) {
+						break;
+					}
+					continue;
+				}
+				// stop this tree here if curr was not found or skipped, the
+				// writer still counts it
+				if (!translated) {
+					if (!commits.put(new TreeWrites(read.getIndex(), read
+							.getRow(), rootKey(read.getRow())))) {
+						break;
+					}
+					continue;
+				}
+				// stop if the writer has failed
+				if (!commits.put(writes)) {
+					break;
+				}
+				treeCount++;
+				// stop if reached the limit of executions
+				if (treeCount == config.getTreeLimit().longValue()) {
+					paused = true;
+					break;
+				}
+			}
+		} finally {
+			prefetched = null;
+			writes = null;
+			reads.abort(null);// stop reading ahead
+			commits.close();// the trees already translated are written
+			pool.shutdown();
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		if (commits.getFailure() != null) {
+			throw commits.getFailure();
+		}
+		if (reads.getFailure() != null) {
+			throw reads.getFailure();
+		}
+		// close DAOs
+		try {
+			targetDAO.close();
+			sourceDAO.close();
+			if (keyAllocator != null) {
+				keyAllocator.close();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		if (paused) {
+			// record current process as paused
+			processReader.recordProcess(processCount, lastKey,
+					Calendar.getInstance().getTime(), ProcessStatuses.PAUSED);
+		} else if (processCount == readCount) {
+			// record current process as completed
+			processReader.recordProcess(0/*
+														 * next time start one
+														 * tree ahead
+														 */,
+					Calendar.getInstance().getTime(),
+					ProcessStatuses.COMPLETED);
+		}
+	}
+
+	/**
+	 * The reader stage of the pipeline: selects the root CURRs, starting at
+	 * the process position, and the results of the matches of the root tuple
+	 * 
+	 * @param readTree
+	 *            the copy of the tree used to bind the queries
+	 * @param readerDAO
+	 *            the connection of the reader, it is closed at the end
+	 * @param start
+	 *            the index of the first root CURR
+	 * @param reads
+	 */
+	private void readAhead(final TupleTree readTree,
+			final DatabaseUtil readerDAO, final int start,
+			final PipelineQueue<TreeRead> reads) {
+		final MatchUtil readerMatchUtil = new MatchUtil(
+				sourceDialect.getCodec());
+		QueryCursor cursor = null;
+		int index = start;
+
+		try {
+			final TuplePlan rootPlan = plan.get(readTree.getHead().getId());
+			final QueryPlan currsQuery = (resumeQuery != null) ? resumeQuery
+					: rootPlan.getCurrsQuery();
+			// the CURRs before the start are not selected again
+			final int skip = (resumeQuery != null) ? 0 : start;
+			Iterator<List<Object>> currs;
+			if (fetchSize > 0) {
+				cursor = readerDAO.openCursor(currsQuery.getSql(),
+						currsQuery.bind(readTree, readerMatchUtil), fetchSize);
+				cursor.skip(skip);
+				currs = cursor;
+			} else {
+				List<List<Object>> rows = readerDAO.executeQuery(
+						currsQuery.getSql(),
+						currsQuery.bind(readTree, readerMatchUtil));
+				currs = rows.subList(Math.min(skip, rows.size()),
+						rows.size()).iterator();
+			}
+			while (currs.hasNext()) {
+				final List<Object> row = currs.next();
+				final Map<Integer, List<List<Object>>> matches = new HashMap<Integer, List<List<Object>>>();
+
+				if (row.get(0) != null) {
+					readTree.setCurr(row.get(0));
+					for (ColumnPlan column : rootPlan.getColumns()) {
+						if (column.getKind() == ColumnPlan.Kind.MATCH) {
+							matches.put(column.getMatch().getId(), readerDAO
+									.executeQuery(column.getSelect().getSql(),
+											column.getSelect().bind(readTree,
+													readerMatchUtil)));
+						}
+					}
+				}
+				// stop if the translation has stopped
+				if (!reads.put(new TreeRead(index, row, matches))) {
+					return;
+				}
+				index++;
+			}
+			reads.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			reads.abort(new SystemException("Unable to read root CURR # "
+					+ index));
+		} finally {
+			try {
+				if (cursor != null) {
+					cursor.close();
+				}
+				readerDAO.close();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * The writer stage of the pipeline: executes the inserts of each tree and
+	 * commits it, in the order the trees were translated
+	 * 
+	 * @param commits
+	 */
+	private void writeBehind(final PipelineQueue<TreeWrites> commits) {
+		TreeWrites treeWrites;
+
+		while ((treeWrites = commits.take()) != null) {
+			// rollback should go till this point
+			final Savepoint savePoint = targetDAO.setSavePoint();
+			String query = null;// the last insert executed
+			try {
+				for (int i = 0; i < treeWrites.size(); i++) {
+					query = treeWrites.getQueries().get(i) + " "
+							+ treeWrites.getParameters().get(i);
+					if (batchWriter != null) {
+						batchWriter.add(treeWrites.getQueries().get(i),
+								treeWrites.getParameters().get(i), null);
+					} else {
+						targetDAO.executeUpdate(treeWrites.getQueries().get(i),
+								treeWrites.getParameters().get(i));
+					}
+				}
+				// the buffered inserts are part of the transaction
+				if ((config.isAllowCommit() || continueOnError)
+						&& batchWriter != null) {
+					batchWriter.flush();
+				}
+				// the tree no longer needs its save point
+				targetDAO.releaseSavePoint(savePoint);
+				lastKey = treeWrites.getKey();
+				// increment process counter for each tree
+				processCount++;
+				// the trees up to this one are committed
+				if (!config.isAllowCommit() || groupCommit.add()) {
+					committed();
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				if (batchWriter != null) {
+					batchWriter.clear();
+				}
+				// only the failed tree is discarded from the group
+				targetDAO.rollback(savePoint);
+				// skip the failed tree and go on
+				if (continueOnError) {
+					targetDAO.releaseSavePoint(savePoint);
+					try {
+						deadLetters.append(new DeadLetter(treeWrites
+								.getIndex(), treeWrites.getRow().get(0), tree
+								.getHead().getId(), query, String.valueOf(e
+								.getMessage())));
+						lastKey = treeWrites.getKey();
+						processCount++;
+						// the position moves past the failed tree, it is not
+						// dead lettered again
+						groupCommit.commit();
+						committed();
+						continue;
+					} catch (SystemException ex) {
+						ex.printStackTrace();
+					}
+				}
+				commitGroup();
+				commits.abort(new SystemException("Failed tree # "
+						+ treeWrites.getIndex()
+						+ " while writing to the target database"));
+				return;
+			}
+		}
+		// insert what is left in the buffer
+		try {
+			if (batchWriter != null) {
+				batchWriter.flush();
+			}
+			commitGroup();
+		} catch (SystemException e) {
+			e.printStackTrace();
+			commits.abort(e);
+		}
+	}
+
+	/**
+	 * This method compiles the plan of the translation. The queries are
+	 * generated once, over a copy of the tree whose CURRs and TOPs are
+	 * placeholders, so that each row only binds its values
+	 * 
+	 * @return
+	 * @throws SystemException
+	 */
+	private TranslationPlan compile() throws SystemException {
+		final TupleTree compiled = tree.copy();
+		final Map<Integer, TuplePlan> tuplePlans = new HashMap<Integer, TuplePlan>();
+
+		mark(compiled);
+		compile(compiled, tuplePlans);
+
+		return new TranslationPlan(tuplePlans);
+	}
+
+	/**
+	 * This method replaces the CURR and TOP of each tuple of the tree by their
+	 * placeholders
+	 * 
+	 * @param t
+	 */
+	private void mark(final TupleTree t) {
+		t.setCurr(PlanValue.curr(t.getHead().getId()));
+		t.setTop(PlanValue.top(t.getHead().getId()));
+		for (TupleTree eachTree : t.getSubTrees()) {
+			mark(eachTree);
+		}
+	}
+
+	/**
+	 * This method compiles the plan of a tuple and of its children
+	 * 
+	 * @param t
+	 * @param tuplePlans
+	 * @throws SystemException
+	 */
+	private void compile(final TupleTree t,
+			final Map<Integer, TuplePlan> tuplePlans) throws SystemException {
+		tuplePlans.put(t.getHead().getId(), compileTuple(t));
+		for (TupleTree eachTree : t.getSubTrees()) {
+			compile(eachTree, tuplePlans);
+		}
+	}
+
+	/**
+	 * This method compiles the plan of a tuple based on translation logic: the
+	 * query of its CURRs, the insert query and the source of each value of the
+	 * insert
+	 * 
+	 * @param t
+	 * @return
+	 * @throws SystemException
+	 */
+	private TuplePlan compileTuple(final TupleTree t) throws SystemException {
+		final TupleType tuple = t.getHead();
+		final List<Object> currsParameters = new ArrayList<Object>();
+		final QueryPlan currsQuery = new QueryPlan(
+				selectCurrs(t, currsParameters), currsParameters);
+		final List<ColumnPlan> columns = new ArrayList<ColumnPlan>();
+
+		// the PK is allocated in the client side if it is auto increment
+		MatchType pkMatch = findPkMatch(tuple);
+		String allocatedPkColumn = (pkMatch != null && pkMatch
+				.getDefaultValue().equals(MatchConstants.AI)) ? pkMatch
+				.getLeft().getColumn() : null;
+
+		// access matches of tuple
+		for (MatchType match : tuple.getMatches()) {
+			// if match default value is auto increment, skip it
+			if (match.getDefaultValue().equals(MatchConstants.AI)) {
+				// unless the PK is allocated in the client side
+				if (keyAllocator != null
+						&& match.isPk().equals(MatchConstants.YES)) {
+					columns.add(ColumnPlan.allocatedPk(match.getLeft()
+							.getColumn()));
+				}
+				continue;
+			}
+			String defaultValue = match.getDefaultValue().toString();
+			// 14. NOW  Should use the current system datetime
+			// TODO: This must use mysql function "NOW()" instead. This is
+			// a replacement that works for SESP migration. A better
+			// solution is to change the mapping to use 0000-00-00 00:00:00
+			// as the default value for certain mappings
+			Object defaultParameter = defaultValue.equals(MatchConstants.NOW) ? matchUtil
+					.toParameter("0000-00-00 00:00:00") : matchUtil
+					.toParameter(match.getDefaultValue());
+
+			// 1. If a match doesnt have the right side, it should insert
+			// the default value
+			if (match.getRight() == null) {
+				// 8. TOP  Should use the PK value of the parent tuple
+				if (defaultValue.startsWith(MatchConstants.TOP)) {
+					// compute the type of top
+					int topType = (defaultValue.length() == 3) ? 1 : Integer
+							.valueOf(defaultValue.substring(3));
+
+					TupleTree parentTree = t;
+					for (int i = 0; i < topType && parentTree != null; i++) {
+						parentTree = parentTree.getParent();// back to the
+															// desired parent
+					}
+					columns.add(ColumnPlan.value(match.getLeft().getColumn(),
+							PlanValue.top(parentTree != null ? parentTree
+									.getHead().getId() : null)));
+				} else {
+					columns.add(ColumnPlan.value(match.getLeft().getColumn(),
+							defaultParameter));
+				}
+			} else {
+				final List<Object> selectParameters = new ArrayList<Object>();
+				final QueryPlan select = new QueryPlan(selectMatch(match, t,
+						selectParameters), selectParameters);
+
+				columns.add(ColumnPlan.match(match, select, defaultParameter));
+			}
+		}
+		// foreign key columns
+		for (ReferenceType reference : tuple.getReferences().values()) {
+			// check if reference is direct
+			if (reference.getReferencee().getTable()
+					.equalsIgnoreCase(tuple.getTable())) {
+				String referencedValue = reference.getReferencedValue()
+						.toString();
+				// 8. TOP  Should use the PK value of the parent tuple
+				if (referencedValue.startsWith(MatchConstants.TOP)) {
+					// find the parent
+					TupleTree parentTree = t.getParent();
+					while (parentTree != null
+							&& !reference.getReferenced().getTable()
+									.equalsIgnoreCase(
+											parentTree.getHead().getTable())) {
+						parentTree = parentTree.getParent();
+					}
+					columns.add(ColumnPlan.value(reference.getReferencee()
+							.getColumn(), PlanValue.top(parentTree != null ? parentTree
+							.getHead().getId() : null)));
+				} else {
+					// use default value
+					columns.add(ColumnPlan.value(reference.getReferencee()
+							.getColumn(), matchUtil
+							.toParameter(referencedValue)));
+				}
+			}
+		}
+		// metadata
+		columns.add(ColumnPlan.value("creator", matchUtil.toParameter(1)));
+		columns.add(ColumnPlan.literal("date_created", "NOW()"));
+		if (!tuple.getTable().equalsIgnoreCase("PROVIDER"))
+			columns.add(ColumnPlan.value("voided", matchUtil.toParameter(0)));
+		// avoid PATIENT table
+		if (!tuple.getTable().equalsIgnoreCase("PATIENT"))
+			columns.add(ColumnPlan.uuid("uuid"));
+
+		// the insert has a parameter per bound column
+		String insertQuery = new SQL() {
+			{
+				INSERT_INTO(tuple.getTable());
+				for (ColumnPlan column : columns) {
+					if (column.getKind() == ColumnPlan.Kind.LITERAL) {
+						VALUES(column.getColumn(), column.getValue()
+								.toString());
+					} else if (column.isBound()) {
+						VALUES(column.getColumn(), "?");
+					}
+				}
+			}
+		}.toString();
+
+		return new TuplePlan(tuple, currsQuery, insertQuery, columns,
+				allocatedPkColumn);
+	}
+
+	/**
+	 * This method binds the values of the insert query of a tuple based on
+	 * its compiled plan
+	 * 
+	 * @param tree
+	 * @param uuid
+	 * @param currIndex
+	 * @param allocatedTop
+	 *            the PK value allocated for the insert, or null if it is
+	 *            generated by the database
+	 * @param parameters
+	 *            the values to be bound to the query, in order
+	 * @return the insert query, or an empty string if the tuple is skipped
+	 * @throws SystemException
+	 */
+	private String insertTuple(final TupleTree tree, final String uuid,
+			final int currIndex, final Integer allocatedTop,
+			final List<Object> parameters) throws SystemException {
+		final TuplePlan tuplePlan = plan.get(tree.getHead().getId());
+
+		for (ColumnPlan column : tuplePlan.getColumns()) {
+			switch (column.getKind()) {
+			case ALLOCATED_PK:
+				parameters.add(allocatedTop);
+				break;
+			case VALUE:
+				// the TOP of a parent tuple is resolved in the current tree
+				if (column.getValue() instanceof PlanValue) {
+					parameters.add(matchUtil.toParameter(((PlanValue) column
+							.getValue()).resolve(tree)));
+				} else {
+					parameters.add(column.getValue());
+				}
+				break;
+			case UUID:
+				parameters.add(matchUtil.toParameter(uuid));
+				break;
+			case MATCH:
+				// check whether or not the query was skipped
+				if (!bindMatch(column, tree, currIndex, parameters)) {
+					return "";
+				}
+				break;
+			default:
+				break;// literals are not parameters
+			}
+		}
+		return tuplePlan.getInsertQuery();
+	}
+
+	/**
+	 * This method selects the value of a match with right side and binds it
+	 * based on the rules of its default value
+	 * 
+	 * @param column
+	 * @param tree
+	 * @param currIndex
+	 * @param parameters
+	 * @return false if the entire tuple must be skipped
+	 * @throws SystemException
+	 */
+	private boolean bindMatch(final ColumnPlan column, final TupleTree tree,
+			final int currIndex, final List<Object> parameters)
+			throws SystemException {
+		final MatchType match = column.getMatch();
+		String selectQuery = null;// keep the composed select query
 
-		// reset processing point if config says so
-		if (config.isResetProcess()) {
-			ProcessReader.getInstance().recordProcess(0,
-					Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		// use the results resolved for the batch of CURRs
+		List<List<Object>> results = matchBatch.get(match.getId(),
+				tree.getCurr());
+		// or the results read ahead for the root CURR
+		if (results == null && prefetched != null && tree.getParent() == null) {
+			results = prefetched.get(match.getId());
 		}
-		// set the process position to start
-		processCount = ProcessReader.getInstance().getProcess()
-				.getLastStopPoint().intValue();
 
+		if (results == null) {
+			selectQuery = column.getSelect().getSql();
+			lastQuery = selectQuery;
+			// execute select statement
+			results = executeMatch(tree, column, currIndex);
+		}
+		// in case the database return more than one result, use the one at
+		// curr index
+		int rowIndex = (results.size() > 1) ? currIndex : 0;
+		Object value = null;
 		try {
-			read(tree, null);
-		} catch (SystemException ex) {
+			value = results.get(rowIndex).get(0);// gets the database result
+		} catch (java.lang.IndexOutOfBoundsException ex) {
 			ex.printStackTrace();
-			targetDAO.rollback();
-			// record current process as failed
-			ProcessReader.getInstance().recordProcess(processCount,
-					Calendar.getInstance().getTime(), ProcessStatuses.FAILED);
 			throw new SystemException(
-					"An error occured durring translation/execution phase while processing tuple # "
-							+ currTupleId);
+					"The # of results of the query: \""
+							+ (selectQuery != null ? selectQuery : selectMatch(
+									match, tree, null))
+							+ "\" is not equal to the # of results of its CURRS. Found "
+							+ results.size() + " results but expected "
+							+ (currIndex + 1)
+							+ " results or more. In match: " + match.getId());
+		}
+		// in case the default value is AI_SKIP_TRUE or AI_SKIP_FALSE
+		if (!column.isBound()) {
+			boolean boolValue = Boolean.valueOf(value.toString());
+			// 12.AI/SKIP/TRUE  Should skip the entire tuple if the value
+			// selected in the right side of the match is TRUE. Must use auto
+			// increment otherwise
+			// 13. AI/SKIP/FALSE  Should skip the entire tuple if the value
+			// selected in the right side of the match is FALSE. Must use auto
+			// increment otherwise.
+			return !((column.isSkipWhenTrue() && boolValue) || (column
+					.isSkipWhenFalse() && !boolValue));
+		}
+		// 5. If default value of a match is SKIP, the entire tuple must be
+		// skipped if the match select doesnt find any value.
+		if (value == null && column.isSkipWhenNull()) {
+			return false;
+		}
+		// 14. NOW  Should use the current system datetime
+		// 4. If right side of the match is not required, it must insert
+		// default value in case the right side select doesnt find any value
+		if (value == null && column.hasNullValue()) {
+			parameters.add(column.getValue());
+			return true;
+		}
+		// 7. If there is a value match in a match, it must insert the value
+		// that the value match points to
+		if (column.getValueMatchGroup() != null) {
+			Map<String, String> valueMatchGroup = ValueMatchType.valueMatches
+					.get(column.getValueMatchGroup());
+			// log an error if value match group doesn't exist
+			if (valueMatchGroup == null) {
+				throw new SystemException(
+						"An error ocurred during translation phase while processing value match group in match with id: "
+								+ match.getId()
+								+ ".\n Couldn't find group for id: " + value);
+			}
+			String valueMatch = valueMatchGroup.get(value.toString()
+					.toLowerCase());
+			// log an error if value match doesn't exist
+			if (valueMatch == null) {
+				// get the value of UNMATCHED match in case the value is not in
+				// the group
+				valueMatch = valueMatchGroup.get(MatchConstants.UNMATCHED
+						.toLowerCase());
+				if (valueMatch == null) {
+					throw new SystemException(
+							"An error ocurred during translation phase while processing value match in match with id: "
+									+ match.getId()
+									+ ".\n Couldn't find match for value: "
+									+ value);
+				}
+				// SKIP entire tuple if value match is SKIP
+				if (valueMatch.equalsIgnoreCase(MatchConstants.SKIP)) {
+					return false;
+				}
+			}
+			parameters.add(matchUtil.toParameter(valueMatch));
+		} else {
+			parameters.add(matchUtil.toParameter(de.enforceValue(match
+					.getLeft().getDatatype(), value)));
 		}
-		// log end of process
-		logEndOfProcess();
-
 		return true;
 	}
 
 	/**
-	 * This method traverses the tree of tuples recursively and performs the
-	 * translation
+	 * This method executes a compiled query in the source database. The
+	 * results of an invariant query are selected once and reused for every
+	 * CURR, if caching is enabled
 	 * 
-	 * @param t
-	 * @param parentUUID
-	 * @param parentCurr
-	 * @param parentTop
+	 * @param tree
+	 * @param query
+	 * @return
 	 * @throws SystemException
 	 */
-	private void read(final TupleTree t, final String parentUUID)
-			throws SystemException {
-		// how many tuples?
-		// select from source using the reference of the target side PKs
-		// r_reference
-		currTupleId = t.getHead().getId();// the current tuple ID
-		String selectCurrsQuery = this.selectCurrs(t);
-
-		List<List<Object>> currs = sourceDAO.executeQuery(selectCurrsQuery);
+	private List<List<Object>> executeQuery(final TupleTree tree,
+			final QueryPlan query) throws SystemException {
+		if (invariantResults == null || !query.isInvariant()) {
+			return sourceDAO.executeQuery(query.getSql(),
+					query.bind(tree, matchUtil));
+		}
+		List<List<Object>> results = invariantResults.get(query);
 
-		// in case this is the first run, start from last run final point
-		int currIndex = 0;
-		if (firstRun) {
-			currIndex = processCount;
-			totalTreeNo = currs.size();
-			firstRun = false;
+		if (results == null) {
+			results = Collections.unmodifiableList(sourceDAO.executeQuery(
+					query.getSql(), query.getParameters()));
+			invariantResults.putIfAbsent(query, results);
 		}
+		return results;
+	}
 
-		for (; currIndex < currs.size(); currIndex++) {
-			// init transaction from root
-			if (t.getParent() == null) {
-				targetDAO.setSavePoint();// rollback should go till this point
-			}
-			Object top = null;
-			final Object curr = currs.get(currIndex).get(0);
-			t.setCurr(curr);
-			// stop this tree here if curr was not found
-			if (curr == null) {
-				continue;
-			}
-			// keep the UUID of current insert
-			final String uuid = UUID.randomUUID().toString();
-			// build insert statement based on translation logic
-			final String insertTupleQuery = insertTuple(t, uuid, currIndex);
+	/**
+	 * This method executes the select query of a match in the source database.
+	 * The results are reused for the same bound values, if the match is cached.
+	 * Otherwise only the rows up to the CURR index are selected, if the limit
+	 * is pushed down to the source database. The limit is rounded up to a
+	 * power of two, so each match has a few distinct statements to reuse
+	 * 
+	 * @param tree
+	 * @param column
+	 * @param currIndex
+	 * @return
+	 * @throws SystemException
+	 */
+	private List<List<Object>> executeMatch(final TupleTree tree,
+			final ColumnPlan column, final int currIndex)
+			throws SystemException {
+		final QueryPlan select = column.getSelect();
+		final Integer matchId = column.getMatch().getId();
 
-			// TODO remove print
-			synchronized (System.out) {
-				System.out.println(processCount + " ---------- "
-						+ t.getHead().getId() + " : " + t.getHead().getTable()
-						+ " - " + t.getHead().getTerminology() + " > CURR : "
-						+ t.getCurr() + " -------------");
-				System.out.println(insertTupleQuery);
+		// invariant queries are cached once per run
+		if (invariantResults != null && select.isInvariant()) {
+			return executeQuery(tree, select);
+		}
+		if (matchCache == null || !matchCache.isEnabled(matchId)) {
+			// the row at the CURR index is the last one used
+			final int limit = pushedLimit(currIndex + 1);
+			if (limit > 0) {
+				return sourceDAO.executeQuery(
+						sourceDialect.limit(select.getSql(), limit),
+						select.bind(tree, matchUtil));
 			}
+			return executeQuery(tree, select);
+		}
+		final List<Object> parameters = select.bind(tree, matchUtil);
+		List<List<Object>> results = matchCache.get(matchId, parameters);
 
-			// stop here if query was skipped
-			if (insertTupleQuery.isEmpty()) {
-				continue;
-			}
-			final List<List<Object>> tops = targetDAO
-					.executeUpdate(insertTupleQuery);
-			top = tops.get(0).get(0);
-			t.setTop(top);// set top value to tuple
-			// do all the same process for each child
-			for (TupleTree eachTree : t.getSubTrees()) {
-				read(eachTree, uuid);
-			}
-			// commit a transaction from root
-			if (t.getParent() == null) {
-				if (config.isAllowCommit()) {
-					targetDAO.commit();
-				}
-				// increment process counter for each tree
-				processCount++;
-				treeCount++;
-				// stop if reached the limit of executions
-				if (treeCount == config.getTreeLimit().longValue()) {
-					// record current process as paused
-					ProcessReader.getInstance().recordProcess(processCount,
-							Calendar.getInstance().getTime(),
-							ProcessStatuses.PAUSED);
-					break;
-				}
-			}
+		if (results == null) {
+			results = matchCache.put(matchId, parameters,
+					sourceDAO.executeQuery(select.getSql(), parameters));
 		}
-		// close DAOs
-		if (t.getParent() == null) {
-			try {
-				targetDAO.close();
-				sourceDAO.close();
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-			// record end of process
-			if (processCount == totalTreeNo) {
-				// record current process as completed
-				ProcessReader.getInstance().recordProcess(0/*
-															 * next time start
-															 * one tree ahead
-															 */,
-						Calendar.getInstance().getTime(),
-						ProcessStatuses.COMPLETED);
-			}
+		return results;
+	}
+
+	/**
+	 * This method rounds the number of rows a match lookup needs up to the
+	 * next power of two, the limit written in its select
+	 * 
+	 * @param rows
+	 * @return zero (0) if the limit is not pushed down or the rows are more
+	 *         than {@link #MAX_PUSHED_LIMIT }, all rows are selected
+	 */
+	private int pushedLimit(final int rows) {
+		if (!limitPushdown || rows > MAX_PUSHED_LIMIT) {
+			return 0;
 		}
+		final int limit = Integer.highestOneBit(rows);
+		return (limit < rows) ? limit << 1 : limit;
 	}
 
 	/**
-	 * This method generates insert query based on translation logic
+	 * This method generates and returns SQL query that should be executed in
+	 * the source database to retrieve CURRS of tuple
 	 * 
-	 * @param tuple
-	 * @param uuid
-	 * @param curr
-	 * @param top
-	 * @param currIndex
+	 * @param tree
+	 * @param parameters
+	 *            the values to be bound to the query, in order
 	 * @return
 	 * @throws SystemException
 	 */
-	private synchronized String insertTuple(final TupleTree tree,
-			final String uuid, final int currIndex) throws SystemException {
-		skip = false;// reset skip to false
-		String query = new SQL() {
-			{
-				TupleType tuple = tree.getHead();
+	private String selectCurrs(final TupleTree tree,
+			final List<Object> parameters) throws SystemException {
+		return selectCurrs(tree, null, parameters);
+	}
 
-				INSERT_INTO(tuple.getTable());
-				// access matches of tuple
-				for (MatchType match : tuple.getMatches()) {
-					// if match default value is auto increment, skip it
-					if (match.getDefaultValue().equals(MatchConstants.AI)) {
-						continue;
-					}
-					String selectQuery = null;// keep the composed select query
-
-					// 1. If a match doesnt have the right side, it should
-					// insert the default value
-					if (match.getRight() == null) {
-						// 8. TOP  Should use the PK value of the parent tuple
-						String defaultValue = match.getDefaultValue()
-								.toString();
-						if (defaultValue.startsWith(MatchConstants.TOP)) {
-							// compute the type of top
-							int topType = (defaultValue.length() == 3) ? 1
-									: Integer
-											.valueOf(defaultValue.substring(3));
-
-							TupleTree parentTree = tree;// parent tree is equal
-														// to current tree for
-														// now
-							for (int i = 0; i < topType; i++) {
-								parentTree = parentTree.getParent();// back to
-																	// the
-																	// desired
-																	// parent
-							}
-							VALUES(match.getLeft().getColumn(),
-									targetDAO.cast(parentTree.getTop()));
-						}
-						// 14. NOW  Should use the current system datetime
-						else if (match.getDefaultValue().equals(
-								MatchConstants.NOW)) {
-							// TODO: This must use mysql function "NOW()"
-							// instead. This is a replacement that works
-							// for SESP migration. A better solution is to
-							// change the mapping to use 0000-00-00 00:00:00
-							// as the default value for certain mappings
-							VALUES(match.getLeft().getColumn(),
-									"'0000-00-00 00:00:00'");
-						} else {
-							// use default value
-							VALUES(match.getLeft().getColumn(),
-									sourceDAO.cast(match.getDefaultValue()));
-						}
-					} else {
-						selectQuery = selectMatch(match, tree);// generate
-
-						final List<List<Object>> results = sourceDAO
-								.executeQuery(selectQuery);// execute select
-															// statement
-						// in case the database return more than one result, use
-						// the one at curr index
-						int rowIndex = (results.size() > 1) ? currIndex : 0;
-						Object value = null;
-						try {
-							value = results.get(rowIndex).get(0);// gets
-																	// the
-																	// database
-																	// result
-						} catch (java.lang.IndexOutOfBoundsException ex) {
-							ex.printStackTrace();
-							throw new SystemException(
-									"The # of results of the query: \""
-											+ selectQuery
-											+ "\" is not equal to the # of results of its CURRS. Found "
-											+ results.size()
-											+ " results but expected "
-											+ (currIndex + 1)
-											+ " results or more. In match: "
-											+ match.getId());
-						}
-						// in case the default value is AI_SKIP_TRUE or
-						// AI_SKIP_FALSE
-						if (match.getDefaultValue().equals(
-								MatchConstants.AI_SKIP_TRUE)
-								|| match.getDefaultValue().equals(
-										MatchConstants.AI_SKIP_FALSE)) {
-							boolean boolValue = Boolean.valueOf(value
-									.toString());
-							// 12.AI/SKIP/TRUE  Should skip the entire tuple if
-							// the value selected in the right side of the match
-							// is TRUE. Must use auto increment otherwise
-							if (match.getDefaultValue().equals(
-									MatchConstants.AI_SKIP_TRUE)
-									&& boolValue) {
-								skip = true;// indicate that all the tuple must
-											// be skipped
-								break;
-							}
-							// 13. AI/SKIP/FALSE  Should skip the entire tuple
-							// if the value selected in the right side of the
-							// match is FALSE. Must use auto increment
-							// otherwise.
-							else if (match.getDefaultValue().equals(
-									MatchConstants.AI_SKIP_FALSE)
-									&& !boolValue) {
-								skip = true;// indicate that the entire tuple
-											// must
-											// be skipped
-								break;
-							} else {
-								continue;
-							}
-						}
-						// 5. If default value of a match is SKIP, the entire
-						// tuple must be skipped if the match select doesnt
-						// find any value.
-						// generate select statement
-						else if (match.getDefaultValue().equals(
-								MatchConstants.SKIP)
-								&& value == null) {
-							skip = true;// indicate that all the tuple must be
-										// skipped
-							break;
-						}
-						// 14. NOW  Should use the current system datetime
-						else if (match.getDefaultValue().equals(
-								MatchConstants.NOW)
-								&& value == null) {
-							VALUES(match.getLeft().getColumn(),
-									"'0000-00-00 00:00:00'");
-						}
-						// 4. If right side of the match is not required, it
-						// must insert default value in case the right side
-						// select doesnt find any value
-						else if (match.getRight().isIsRequired()
-								.equals(MatchConstants.NO)
-								&& value == null) {
-							// use default value
-							VALUES(match.getLeft().getColumn(),
-									sourceDAO.cast(match.getDefaultValue()));
-						}
-						// 7. If there is a value match in a match, it must
-						// insert the value that the value match points to
-						else if (!match.getValueMatchId().equals(
-								MatchConstants.NA)) {
-							Map<String, String> valueMatchGroup = ValueMatchType.valueMatches
-									.get(Integer.valueOf(match
-											.getValueMatchId().toString()));
-							// log an error if value match group doesn't exist
-							if (valueMatchGroup == null) {
-								throw new SystemException(
-										"An error ocurred during translation phase while processing value match group in match with id: "
-												+ match.getId()
-												+ ".\n Couldn't find group for id: "
-												+ value);
-							}
-							String valueMatch = valueMatchGroup.get(value
-									.toString().toLowerCase());
-							// log an error if value match doesn't exist
-							if (valueMatch == null) {
-								// get the value of UNMATCHED match in case the
-								// value is not in the group
-								valueMatch = valueMatchGroup
-										.get(MatchConstants.UNMATCHED
-												.toLowerCase());
-								if (valueMatch == null) {
-									throw new SystemException(
-											"An error ocurred during translation phase while processing value match in match with id: "
-													+ match.getId()
-													+ ".\n Couldn't find match for value: "
-													+ value);
-								}
-								// SKIP entire tuple if value match is SKIP
-								if (valueMatch
-										.equalsIgnoreCase(MatchConstants.SKIP)) {
-									skip = true;// indicate that all the tuple
-												// must be skipped
-									break;
-								}
-							}
-							VALUES(match.getLeft().getColumn(),
-									sourceDAO.cast(valueMatch));
-						} else {
-							VALUES(match.getLeft().getColumn(), de.enforce(
-									match.getLeft().getDatatype(), value));
-						}
-					}
-				}
-				// foreign key columns
-				if (!skip) {
-					for (ReferenceType reference : tuple.getReferences()
-							.values()) {
-						// check if reference is direct
-						if (reference.getReferencee().getTable()
-								.equalsIgnoreCase(tuple.getTable())) {
-							String referencedValue = reference
-									.getReferencedValue().toString();
-							// 8. TOP  Should use the PK value of the parent
-							// tuple
-							if (referencedValue.startsWith(MatchConstants.TOP)) {
-								// compute the type of top
-
-								TupleTree parentTree = tree;// parent tree is
-															// equal to current
-															// tree for now
-								// find the parent
-								while (true) {
-									parentTree = parentTree.getParent();// back
-																		// to
-																		// the
-																		// desired
-																		// parent
-									if (reference
-											.getReferenced()
-											.getTable()
-											.equalsIgnoreCase(
-													parentTree.getHead()
-															.getTable())) {
-										break;
-									}
-								}
-								VALUES(reference.getReferencee().getColumn(),
-										targetDAO.cast(parentTree.getTop()));
-							} else {
-								// use default value
-								VALUES(reference.getReferencee().getColumn(),
-										targetDAO.cast(referencedValue));
-							}
-						}
-					}
-					// metadata
-					VALUES("creator", sourceDAO.cast(1));
-					VALUES("date_created", "NOW()");
-					if (!tuple.getTable().equalsIgnoreCase("PROVIDER"))
-						VALUES("voided", sourceDAO.cast(0));
-					// avoid PATIENT table
-					if (!tuple.getTable().equalsIgnoreCase("PATIENT"))
-						VALUES("uuid", sourceDAO.cast(uuid));
-				}
-			}
-		}.toString();
-		// check whether or not the query was skipped
-		if (skip)
-			return "";
-		return query;
+	/**
+	 * This method generates and returns SQL query that should be executed in
+	 * the source database to retrieve CURRS of tuple. When a batch of parent
+	 * CURRs is given, the CURR reference is replaced by an IN condition and the
+	 * parent CURR column is selected last, to be used as the key of the results
+	 * 
+	 * @param tree
+	 * @param parentCurrs
+	 * @param parameters
+	 *            the values to be bound to the query, in order
+	 * @return
+	 * @throws SystemException
+	 */
+	private String selectCurrs(final TupleTree tree,
+			final Collection<Object> parentCurrs,
+			final List<Object> parameters) throws SystemException {
+		return selectCurrs(tree, parentCurrs, null, parameters);
 	}
 
 	/**
 	 * This method generates and returns SQL query that should be executed in
-	 * the source database to retrieve CURRS of tuple
+	 * the source database to retrieve CURRS of tuple. The CURRs of the root
+	 * tuple are ordered by their key if the process is resumed by key, and
+	 * only the ones after the given key are selected
 	 * 
 	 * @param tree
+	 * @param parentCurrs
+	 * @param afterKey
+	 *            the key of the last root CURR committed, null = all
+	 * @param parameters
+	 *            the values to be bound to the query, in order
 	 * @return
 	 * @throws SystemException
 	 */
-	private String selectCurrs(final TupleTree tree) throws SystemException {
+	private String selectCurrs(final TupleTree tree,
+			final Collection<Object> parentCurrs, final Object afterKey,
+			final List<Object> parameters) throws SystemException {
 		return new SQL() {
 			{
 				TupleType tuple = tree.getHead();
@@ -515,6 +2256,9 @@ public class TranslationManager implements LogIt {
 				
 				//store the tables already in FROM clause, avoid duplications
 				Set<String> fromTables = new HashSet<String>();
+				
+				String keyColumn = null;// the parent CURR column of a batch
+				String currColumn = null;// the CURR column, selected first
 
 				for (ReferenceType reference : references) {
 
@@ -524,29 +2268,46 @@ public class TranslationManager implements LogIt {
 							.getColumn();
 					Object referencedValue = reference.getReferencedValue()
 							.toString();
-					// set the right referenced value
-					if (referencedValue.equals(MatchConstants.CURR)) {
-						referencedValue = tree.getParent().getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR2)) {
-						referencedValue = tree.getParent().getParent()
-								.getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR3)) {
-						referencedValue = tree.getParent().getParent()
-								.getParent().getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR4)) {
-						referencedValue = tree.getParent().getParent()
-								.getParent().getParent().getCurr();
-					}
-
-					// split referenced value if contains logic operator
-					String[] referencedValues = matchUtil.splitReferencedValuesForOrCondition(referencedValue);
+					String[] referencedValues = null;
 					
+					if (referencedValue.equals(MatchConstants.CURR)
+							&& parentCurrs != null) {
+						// the whole batch of parent CURRs is selected at once
+						referencedValue = assignReferencedValuesWithIn(
+								parentCurrs, parameters);
+						// direct references compare the referenced column
+						keyColumn = reference.getPredecessor().equals(
+								Integer.valueOf(0)) ? referencedTable + "."
+								+ referencedColumn : reference.getReferencee()
+								.getTable()
+								+ "."
+								+ reference.getReferencee().getColumn();
+					} else {
+						// set the right referenced value
+						if (referencedValue.equals(MatchConstants.CURR)) {
+							referencedValue = tree.getParent().getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR2)) {
+							referencedValue = tree.getParent().getParent()
+									.getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR3)) {
+							referencedValue = tree.getParent().getParent()
+									.getParent().getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR4)) {
+							referencedValue = tree.getParent().getParent()
+									.getParent().getParent().getCurr();
+						}
+
+						// split referenced value if contains logic operator
+						referencedValues = matchUtil.splitReferencedValuesForOrCondition(referencedValue);
+						
 
-					// spit and assign the values of relational operation if not
-					// done yet in the line of code above
-					if (referencedValues == null) {
-						referencedValue = matchUtil.assignReferencedValueOperationForRelationalCondition(referencedValue);
+						// spit and assign the values of relational operation if not
+						// done yet in the line of code above
+						if (referencedValues == null) {
+							referencedValue = matchUtil.assignReferencedValueOperationForRelationalCondition(
+									referencedValue, parameters);
 
+						}
 					}
 
 					// check whether the reference is direct or indirect
@@ -557,9 +2318,11 @@ public class TranslationManager implements LogIt {
 							if (isFirstDirectReference) { // select from, only
 															// for first
 															// reference
-								SELECT(reference.getReferencee().getTable()
+								currColumn = reference.getReferencee()
+										.getTable()
 										+ "."
-										+ reference.getReferencee().getColumn());
+										+ reference.getReferencee().getColumn();
+								SELECT(currColumn);
 								FROM(reference.getReferencee().getTable());
 								
 								//say that the table is in FROM clause
@@ -573,7 +2336,9 @@ public class TranslationManager implements LogIt {
 							if (isFirstDirectReference) { // select from, only
 															// for first
 															// reference
-								SELECT(referencedTable + "." + referencedColumn);
+								currColumn = referencedTable + "."
+										+ referencedColumn;
+								SELECT(currColumn);
 								FROM(referencedTable);
 								
 								//say that the table is in FROM
@@ -602,7 +2367,8 @@ public class TranslationManager implements LogIt {
 							String orCondition = matchUtil.assignReferencedValuesWithMultipleOr(
 									references.indexOf(reference),
 									referencedValues, referencedTable,
-									referencedColumn, " OR ", this);
+									referencedColumn, " OR ", this,
+									parameters);
 
 							WHERE(orCondition);
 						} else {
@@ -634,7 +2400,8 @@ public class TranslationManager implements LogIt {
 								String orCondition = matchUtil.assignReferencedValuesWithMultipleOr(
 										references.indexOf(reference),
 										referencedValues, referenceeTable,
-										referenceeColumn, " OR ", this);
+										referenceeColumn, " OR ", this,
+										parameters);
 
 								WHERE(orCondition);
 							} else {
@@ -644,6 +2411,19 @@ public class TranslationManager implements LogIt {
 						}
 					}
 				}
+				// the parent CURR is the last column of a batch
+				if (keyColumn != null) {
+					SELECT(keyColumn);
+				}
+				// the root CURRs are selected in the order of their key
+				if (keysetResume && tree.getParent() == null
+						&& parentCurrs == null && currColumn != null) {
+					if (afterKey != null) {
+						WHERE(currColumn + " > ?");
+						parameters.add(afterKey);
+					}
+					ORDER_BY(currColumn);
+				}
 			}
 		}.toString();
 	}
@@ -655,14 +2435,50 @@ public class TranslationManager implements LogIt {
 	 * 
 	 * @param match
 	 * @param curr
+	 * @param parameters
+	 *            the values to be bound to the query, in order
 	 * @return
 	 */
-	private String selectMatch(final MatchType match, final TupleTree tree)
-			throws SystemException {
+	private String selectMatch(final MatchType match, final TupleTree tree,
+			final List<Object> parameters) throws SystemException {
+		return selectMatches(Arrays.asList(match), tree, null, parameters);
+	}
+
+	/**
+	 * This method generates and returns a single SQL query to retrieve the
+	 * values of matches sharing the same right table and references. When a
+	 * batch of CURRs is given, the CURR reference is replaced by an IN
+	 * condition and the CURR column is selected first, to be used as the key of
+	 * the results
+	 * 
+	 * @param matches
+	 * @param tree
+	 * @param batchCurrs
+	 * @param parameters
+	 *            the values to be bound to the query, in order
+	 * @return
+	 * @throws SystemException
+	 */
+	private String selectMatches(final List<MatchType> matches,
+			final TupleTree tree, final Collection<Object> batchCurrs,
+			final List<Object> parameters) throws SystemException {
+		final MatchType match = matches.get(0);// all matches share the same
+												// FROM and WHERE clauses
 		return new SQL() {
 			{
-				SELECT(match.getRight().getTable() + "."
-						+ match.getRight().getColumn());
+				for (ReferenceType reference : match.getReferences().values()) {
+					// the batch is selected at once and keyed by CURR
+					if (batchCurrs != null
+							&& reference.getReferencedValue().toString()
+									.equals(MatchConstants.CURR)) {
+						SELECT(reference.getReferenced().getTable() + "."
+								+ reference.getReferenced().getColumn());
+					}
+				}
+				for (MatchType each : matches) {
+					SELECT(each.getRight().getTable() + "."
+							+ each.getRight().getColumn());
+				}
 				FROM(match.getRight().getTable());
 				// in case there are references build WHERE clause
 				for (ReferenceType reference : match.getReferences().values()) {
@@ -676,19 +2492,27 @@ public class TranslationManager implements LogIt {
 					String referenceeTable = null;
 					String referenceeColumn = null;
 					// set the right referenced value
-					if (referencedValue.equals(MatchConstants.CURR)) {
-						referencedValue = tree.getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR2)) {
-						referencedValue = tree.getParent().getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR3)) {
-						referencedValue = tree.getParent().getParent()
-								.getCurr();
-					} else if (referencedValue.equals(MatchConstants.CURR4)) {
-						referencedValue = tree.getParent().getParent()
-								.getParent().getCurr();
+					if (referencedValue.equals(MatchConstants.CURR)
+							&& batchCurrs != null) {
+						// the whole batch of CURRs is selected at once
+						referencedValue = assignReferencedValuesWithIn(
+								batchCurrs, parameters);
+					} else {
+						if (referencedValue.equals(MatchConstants.CURR)) {
+							referencedValue = tree.getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR2)) {
+							referencedValue = tree.getParent().getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR3)) {
+							referencedValue = tree.getParent().getParent()
+									.getCurr();
+						} else if (referencedValue.equals(MatchConstants.CURR4)) {
+							referencedValue = tree.getParent().getParent()
+									.getParent().getCurr();
+						}
+						// spit and assign the values of relational operation
+						referencedValue = matchUtil.assignReferencedValueOperationForRelationalCondition(
+								referencedValue, parameters);
 					}
-					// spit and assign the values of relational operation
-					referencedValue = matchUtil.assignReferencedValueOperationForRelationalCondition(referencedValue);
 					
 					// in case the referencee exist
 					if (reference.getReferencee() != null) {
@@ -713,6 +2537,202 @@ public class TranslationManager implements LogIt {
 		}.toString();
 	}
 
+	/**
+	 * This method resolves the values of the matches of a tuple for a batch of
+	 * CURRs. The matches sharing the same right table and references are
+	 * retrieved by a single query and grouped by CURR, so that the insert
+	 * queries are built from memory
+	 * 
+	 * @param t
+	 * @param batch
+	 * @throws SystemException
+	 */
+	private void resolveMatches(final TupleTree t,
+			final List<List<Object>> batch) throws SystemException {
+		// the CURRs of the batch, without duplicates
+		final Set<Object> batchCurrs = new LinkedHashSet<Object>();
+		for (List<Object> row : batch) {
+			if (row.get(0) != null) {
+				batchCurrs.add(row.get(0));
+			}
+		}
+		// group the matches that can be selected by the same query
+		Map<String, List<MatchType>> shapes = new LinkedHashMap<String, List<MatchType>>();
+		for (MatchType match : t.getHead().getMatches()) {
+			matchBatch.clear(match.getId());
+			String shape = batchShape(match);
+			// this match must be selected once per CURR
+			if (shape == null) {
+				continue;
+			}
+			List<MatchType> shaped = shapes.get(shape);
+			if (shaped == null) {
+				shaped = new ArrayList<MatchType>();
+				shapes.put(shape, shaped);
+			}
+			shaped.add(match);
+		}
+		if (batchCurrs.isEmpty()) {
+			return;
+		}
+		for (List<MatchType> shaped : shapes.values()) {
+			for (MatchType match : shaped) {
+				matchBatch.prepare(match.getId(), batchCurrs);
+			}
+			final List<Object> parameters = new ArrayList<Object>();
+			final List<List<Object>> rows = sourceDAO.executeQuery(
+					selectMatches(shaped, t, batchCurrs, parameters),
+					parameters);
+			// the first column is the CURR, followed by a column per match
+			for (List<Object> row : rows) {
+				for (int i = 0; i < shaped.size(); i++) {
+					matchBatch.add(shaped.get(i).getId(), row.get(0),
+							Arrays.asList(row.get(i + 1)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method selects the CURRs of the children of a tuple for a batch of
+	 * parent CURRs. Each child tuple is selected by a single query and its
+	 * CURRs are grouped by parent CURR, so that each subtree is fed from memory
+	 * 
+	 * @param t
+	 * @param batch
+	 * @throws SystemException
+	 */
+	private void resolveChildCurrs(final TupleTree t,
+			final List<List<Object>> batch) throws SystemException {
+		// the parent CURRs of the batch, without duplicates
+		final Set<Object> parentCurrs = new LinkedHashSet<Object>();
+		for (List<Object> row : batch) {
+			if (row.get(0) != null) {
+				parentCurrs.add(row.get(0));
+			}
+		}
+		for (TupleTree child : t.getSubTrees()) {
+			final Integer childTupleId = child.getHead().getId();
+			currBatch.clear(childTupleId);
+			// this child must be selected once per parent CURR
+			if (parentCurrs.isEmpty() || !isBatchable(child)) {
+				continue;
+			}
+			currBatch.prepare(childTupleId, parentCurrs);
+			final List<Object> parameters = new ArrayList<Object>();
+			final List<List<Object>> rows = sourceDAO.executeQuery(
+					selectCurrs(child, parentCurrs, parameters), parameters);
+			// the last column is the parent CURR
+			for (List<Object> row : rows) {
+				currBatch.add(childTupleId, row.get(row.size() - 1), row);
+			}
+		}
+	}
+
+	/**
+	 * This method checks whether the CURRs of a tuple can be selected for a
+	 * batch of parent CURRs, i.e. whether its PK match has a single CURR
+	 * reference that is processed before any ALL reference
+	 * 
+	 * @param tree
+	 * @return
+	 */
+	private boolean isBatchable(final TupleTree tree) {
+		MatchType pkMatch = findPkMatch(tree.getHead());
+		List<ReferenceType> references = new ArrayList<ReferenceType>(
+				pkMatch.getReferences().values());
+		references = sort(references, on(ReferenceType.class).getId());
+		int currReferences = 0;
+
+		for (ReferenceType reference : references) {
+			String referencedValue = reference.getReferencedValue().toString();
+			if (referencedValue.equals(MatchConstants.CURR)) {
+				currReferences++;
+			}
+			// no more references are processed for direct ALL references
+			if (referencedValue.equals(MatchConstants.ALL)
+					&& reference.getPredecessor().equals(Integer.valueOf(0))) {
+				break;
+			}
+		}
+		return currReferences == 1;
+	}
+
+	/**
+	 * This method returns a key identifying the FROM and WHERE clauses of the
+	 * select query of a match. Only matches with a right side and a single CURR
+	 * reference can be resolved for a batch of CURRs, null is returned for the
+	 * others
+	 * 
+	 * @param match
+	 * @return
+	 */
+	private String batchShape(final MatchType match) {
+		if (match.getRight() == null
+				|| match.getDefaultValue().equals(MatchConstants.AI)) {
+			return null;
+		}
+		StringBuilder shape = new StringBuilder(match.getRight().getTable());
+		int currReferences = 0;
+
+		for (ReferenceType reference : match.getReferences().values()) {
+			String referencedValue = reference.getReferencedValue().toString();
+			if (referencedValue.equals(MatchConstants.CURR)) {
+				currReferences++;
+			}
+			shape.append('|').append(reference.getReferenced().getTable())
+					.append('.').append(reference.getReferenced().getColumn());
+			if (reference.getReferencee() != null) {
+				shape.append('=').append(reference.getReferencee().getTable())
+						.append('.')
+						.append(reference.getReferencee().getColumn());
+			}
+			shape.append(':').append(referencedValue);
+		}
+		return (currReferences == 1) ? shape.toString() : null;
+	}
+
+	/**
+	 * This method builds the IN condition of a batch of CURRs e.g: IN (?, ?, ?)
+	 * 
+	 * @param batchCurrs
+	 * @param parameters
+	 *            the values to be bound to the query, in order
+	 * @return
+	 * @throws SystemException
+	 */
+	private String assignReferencedValuesWithIn(
+			final Collection<Object> batchCurrs, final List<Object> parameters)
+			throws SystemException {
+		StringBuilder inCondition = new StringBuilder(" IN (");
+
+		for (Object batchCurr : batchCurrs) {
+			if (inCondition.length() > 5) {
+				inCondition.append(", ");
+			}
+			inCondition.append(matchUtil.bind(batchCurr, parameters));
+		}
+		return inCondition.append(")").toString();
+	}
+
+	/**
+	 * This method allocates the TOP of the next insert of a tuple whose PK is
+	 * auto increment. It returns null if the keys are generated by the
+	 * database
+	 * 
+	 * @param tuple
+	 * @return
+	 * @throws SystemException
+	 */
+	private Integer allocateTop(TupleType tuple) throws SystemException {
+		String pkColumn = plan.get(tuple.getId()).getAllocatedPkColumn();
+
+		if (keyAllocator == null || pkColumn == null) {
+			return null;
+		}
+		return keyAllocator.next(tuple.getTable(), pkColumn);
+	}
+
 	/**
 	 * This method finds and returns the PK match of the tuple
 	 * 
@@ -756,6 +2776,12 @@ public class TranslationManager implements LogIt {
 				eventCode.getString(EventCodeContants.SEPARATOR));
 		writeSimpleInfoLog(null,
 				treeCount + " " + eventCode.getString(EventCodeContants.INF007));
+		if (matchCache != null) {
+			writeSimpleInfoLog(null, matchCache.getHits() + " "
+					+ eventCode.getString(EventCodeContants.INF008));
+			writeSimpleInfoLog(null, matchCache.getMisses() + " "
+					+ eventCode.getString(EventCodeContants.INF009));
+		}
 
 	}
 
@@ -0,0 +1,184 @@
+package org.esaude.dmt.component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class hands out the root CURRs to the workers of a parallel
+ * translation. The trees are translated concurrently but committed in the
+ * order of their CURRs, so that the process position is always the first tree
+ * not committed, as in a sequential translation. The root CURRs are read from
+ * the rows as they are handed out
+ */
+public class TreeQueue {
+	private final Iterator<List<Object>> rows;// the root CURRs not handed out
+	private final Map<Integer, List<Object>> taken = new HashMap<Integer, List<Object>>();
+	private final long limit;// number of trees to hand out, zero = all
+	private int next;// the next root CURR to hand out
+	private int takenCount;// number of trees handed out
+	private int watermark;// the first tree not committed
+	private Object lastKey;// the key of the last tree committed
+	private SystemException failure;
+	private int failedIndex;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param start
+	 *            the index of the first root CURR
+	 * @param rows
+	 *            the rows of the root CURRs, starting at the first one
+	 * @param limit
+	 *            the number of trees to hand out, zero (0) = all
+	 */
+	public TreeQueue(int start, Iterator<List<Object>> rows, long limit) {
+		this.next = start;
+		this.watermark = start;
+		this.rows = rows;
+		this.limit = limit;
+	}
+
+	/**
+	 * Takes the index of the next root CURR to translate
+	 *
+	 * @return the index or -1 if there is nothing left or a tree has failed
+	 */
+	public synchronized int take() {
+		if (failure != null || (limit > 0 && takenCount >= limit)) {
+			return -1;
+		}
+		try {
+			if (!rows.hasNext()) {
+				return -1;
+			}
+			taken.put(next, rows.next());
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			fail(next, new SystemException("Unable to read root CURR # "
+					+ next));
+			return -1;
+		}
+		takenCount++;
+		return next++;
+	}
+
+	/**
+	 * Retrieve the row of a root CURR taken from the queue
+	 *
+	 * @param index
+	 * @return
+	 */
+	public synchronized List<Object> getRow(int index) {
+		return taken.remove(index);
+	}
+
+	/**
+	 * Blocks until all the trees before the given one are committed
+	 *
+	 * @param index
+	 * @throws SystemException
+	 *             if a tree before the given one has failed, the tree must be
+	 *             rolled back
+	 */
+	public synchronized void awaitTurn(int index) throws SystemException {
+		while (watermark != index && !failedBefore(index)) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				throw new SystemException("Interrupted while waiting tree # "
+						+ index);
+			}
+		}
+		if (failedBefore(index)) {
+			throw new SystemException("The tree # " + failedIndex
+					+ " has failed, tree # " + index + " is discarded");
+		}
+	}
+
+	/**
+	 * Marks the tree as committed
+	 *
+	 * @param index
+	 */
+	public synchronized void done(int index) {
+		done(index, null);
+	}
+
+	/**
+	 * Marks the tree as committed
+	 *
+	 * @param index
+	 * @param key
+	 *            the key of the root CURR of the tree, null = not tracked
+	 */
+	public synchronized void done(int index, Object key) {
+		watermark = index + 1;
+		lastKey = key;
+		notifyAll();
+	}
+
+	/**
+	 * Marks the tree as failed, no more trees are handed out and the trees
+	 * after it are discarded
+	 *
+	 * @param index
+	 * @param e
+	 */
+	public synchronized void fail(int index, SystemException e) {
+		if (failure == null || index < failedIndex) {
+			failure = e;
+			failedIndex = index;
+		}
+		notifyAll();
+	}
+
+	private boolean failedBefore(int index) {
+		return failure != null && index > failedIndex;
+	}
+
+	/**
+	 * @return the first tree not committed
+	 */
+	public synchronized int getWatermark() {
+		return watermark;
+	}
+
+	/**
+	 * @return the key of the last tree committed, null if not tracked
+	 */
+	public synchronized Object getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * @return whether or not a root CURR may still be handed out
+	 */
+	public synchronized boolean hasMore() {
+		return failure == null && !(limit > 0 && takenCount >= limit)
+				&& !isExhausted();
+	}
+
+	/**
+	 * @return whether or not all the root CURRs were handed out
+	 */
+	public synchronized boolean isExhausted() {
+		try {
+			return !rows.hasNext();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * @return the failure of the first failed tree, null if none has failed
+	 */
+	public synchronized SystemException getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,43 @@
+package org.esaude.dmt.component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a root CURR read ahead of its translation, along with the
+ * results of the matches of the root tuple
+ */
+public class TreeRead {
+	private final int index;
+	private final List<Object> row;
+	private final Map<Integer/* Match */, List<List<Object>>> matches;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param index
+	 *            the index of the root CURR
+	 * @param row
+	 *            the row of the root CURR
+	 * @param matches
+	 *            the results of the matches of the root tuple
+	 */
+	public TreeRead(int index, List<Object> row,
+			Map<Integer, List<List<Object>>> matches) {
+		this.index = index;
+		this.row = row;
+		this.matches = matches;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public List<Object> getRow() {
+		return row;
+	}
+
+	public Map<Integer, List<List<Object>>> getMatches() {
+		return matches;
+	}
+}
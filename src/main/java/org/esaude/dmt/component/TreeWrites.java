@@ -0,0 +1,77 @@
+package org.esaude.dmt.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class keeps the insert queries of a translated tree, in order, so that
+ * they can be executed and committed apart from the translation
+ */
+public class TreeWrites {
+	private final int index;
+	private final List<Object> row;// the row of the root CURR, if known
+	private final Object key;// the key of the root CURR, null = not tracked
+	private final List<String> queries = new ArrayList<String>();
+	private final List<List<Object>> parameters = new ArrayList<List<Object>>();
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param index
+	 *            the index of the root CURR of the tree
+	 */
+	public TreeWrites(int index) {
+		this(index, null, null);
+	}
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param index
+	 *            the index of the root CURR of the tree
+	 * @param row
+	 *            the row of the root CURR, kept if the tree fails
+	 * @param key
+	 *            the key of the root CURR, recorded once the tree is committed
+	 */
+	public TreeWrites(int index, List<Object> row, Object key) {
+		this.index = index;
+		this.row = row;
+		this.key = key;
+	}
+
+	/**
+	 * Add an insert query of the tree
+	 *
+	 * @param query
+	 * @param queryParameters
+	 */
+	public void add(String query, List<Object> queryParameters) {
+		queries.add(query);
+		parameters.add(queryParameters);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public List<Object> getRow() {
+		return row;
+	}
+
+	public Object getKey() {
+		return key;
+	}
+
+	public List<String> getQueries() {
+		return queries;
+	}
+
+	public List<List<Object>> getParameters() {
+		return parameters;
+	}
+
+	public int size() {
+		return queries.size();
+	}
+}
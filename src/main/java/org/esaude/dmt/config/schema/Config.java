@@ -33,6 +33,35 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="tree_limit" type="{http://www.w3.org/2001/XMLSchema}integer"/>
  *         &lt;element name="allow_commit" type="{http://www.w3.org/2001/XMLSchema}boolean"/>
  *         &lt;element name="reset_process" type="{http://www.w3.org/2001/XMLSchema}boolean"/>
+ *         &lt;element name="match_batch_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="curr_batch_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="statement_cache_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="insert_batch_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="key_block_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="worker_count" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="fetch_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="cache_invariant_queries" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="match_cache_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="match_cache_disabled" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="pipeline_queue_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="virtual_threads" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="branch_count" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="split_threshold" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="commit_batch_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="commit_interval" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="continue_on_error" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="dead_letter_file" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="checkpoint_journal" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="checkpoint_sync_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="keyset_resume" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="pool_borrow_timeout" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="pool_validation_interval" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="pool_leak_threshold" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="limit_pushdown" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="multi_row_insert_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="mirror_source" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="mirror_refresh" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="mirrorDs" type="{http://schema.config.dmt.esaude.org}datasourceType" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -49,7 +78,36 @@ import javax.xml.bind.annotation.XmlType;
     "logOutput",
     "treeLimit",
     "allowCommit",
-    "resetProcess"
+    "resetProcess",
+    "matchBatchSize",
+    "currBatchSize",
+    "statementCacheSize",
+    "insertBatchSize",
+    "keyBlockSize",
+    "workerCount",
+    "fetchSize",
+    "cacheInvariantQueries",
+    "matchCacheSize",
+    "matchCacheDisabled",
+    "pipelineQueueSize",
+    "virtualThreads",
+    "branchCount",
+    "splitThreshold",
+    "commitBatchSize",
+    "commitInterval",
+    "continueOnError",
+    "deadLetterFile",
+    "checkpointJournal",
+    "checkpointSyncSize",
+    "keysetResume",
+    "poolBorrowTimeout",
+    "poolValidationInterval",
+    "poolLeakThreshold",
+    "limitPushdown",
+    "multiRowInsertSize",
+    "mirrorSource",
+    "mirrorRefresh",
+    "mirrorDs"
 })
 @XmlRootElement(name = "config")
 public class Config {
@@ -68,6 +126,63 @@ public class Config {
     protected boolean allowCommit;
     @XmlElement(name = "reset_process")
     protected boolean resetProcess;
+    @XmlElement(name = "match_batch_size")
+    protected BigInteger matchBatchSize;
+    @XmlElement(name = "curr_batch_size")
+    protected BigInteger currBatchSize;
+    @XmlElement(name = "statement_cache_size")
+    protected BigInteger statementCacheSize;
+    @XmlElement(name = "insert_batch_size")
+    protected BigInteger insertBatchSize;
+    @XmlElement(name = "key_block_size")
+    protected BigInteger keyBlockSize;
+    @XmlElement(name = "worker_count")
+    protected BigInteger workerCount;
+    @XmlElement(name = "fetch_size")
+    protected BigInteger fetchSize;
+    @XmlElement(name = "cache_invariant_queries")
+    protected Boolean cacheInvariantQueries;
+    @XmlElement(name = "match_cache_size")
+    protected BigInteger matchCacheSize;
+    @XmlElement(name = "match_cache_disabled")
+    protected String matchCacheDisabled;
+    @XmlElement(name = "pipeline_queue_size")
+    protected BigInteger pipelineQueueSize;
+    @XmlElement(name = "virtual_threads")
+    protected Boolean virtualThreads;
+    @XmlElement(name = "branch_count")
+    protected BigInteger branchCount;
+    @XmlElement(name = "split_threshold")
+    protected BigInteger splitThreshold;
+    @XmlElement(name = "commit_batch_size")
+    protected BigInteger commitBatchSize;
+    @XmlElement(name = "commit_interval")
+    protected BigInteger commitInterval;
+    @XmlElement(name = "continue_on_error")
+    protected Boolean continueOnError;
+    @XmlElement(name = "dead_letter_file")
+    protected String deadLetterFile;
+    @XmlElement(name = "checkpoint_journal")
+    protected Boolean checkpointJournal;
+    @XmlElement(name = "checkpoint_sync_size")
+    protected BigInteger checkpointSyncSize;
+    @XmlElement(name = "keyset_resume")
+    protected Boolean keysetResume;
+    @XmlElement(name = "pool_borrow_timeout")
+    protected BigInteger poolBorrowTimeout;
+    @XmlElement(name = "pool_validation_interval")
+    protected BigInteger poolValidationInterval;
+    @XmlElement(name = "pool_leak_threshold")
+    protected BigInteger poolLeakThreshold;
+    @XmlElement(name = "limit_pushdown")
+    protected Boolean limitPushdown;
+    @XmlElement(name = "multi_row_insert_size")
+    protected BigInteger multiRowInsertSize;
+    @XmlElement(name = "mirror_source")
+    protected Boolean mirrorSource;
+    @XmlElement(name = "mirror_refresh")
+    protected Boolean mirrorRefresh;
+    protected DatasourceType mirrorDs;
 
     /**
      * Gets the value of the matchingInput property.
@@ -221,4 +336,700 @@ public class Config {
         this.resetProcess = value;
     }
 
+    /**
+     * Gets the value of the matchBatchSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getMatchBatchSize() {
+        return matchBatchSize;
+    }
+
+    /**
+     * Sets the value of the matchBatchSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setMatchBatchSize(BigInteger value) {
+        this.matchBatchSize = value;
+    }
+
+    /**
+     * Gets the value of the currBatchSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getCurrBatchSize() {
+        return currBatchSize;
+    }
+
+    /**
+     * Sets the value of the currBatchSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setCurrBatchSize(BigInteger value) {
+        this.currBatchSize = value;
+    }
+
+    /**
+     * Gets the value of the statementCacheSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets the value of the statementCacheSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setStatementCacheSize(BigInteger value) {
+        this.statementCacheSize = value;
+    }
+
+    /**
+     * Gets the value of the insertBatchSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getInsertBatchSize() {
+        return insertBatchSize;
+    }
+
+    /**
+     * Sets the value of the insertBatchSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setInsertBatchSize(BigInteger value) {
+        this.insertBatchSize = value;
+    }
+
+    /**
+     * Gets the value of the keyBlockSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getKeyBlockSize() {
+        return keyBlockSize;
+    }
+
+    /**
+     * Sets the value of the keyBlockSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setKeyBlockSize(BigInteger value) {
+        this.keyBlockSize = value;
+    }
+
+    /**
+     * Gets the value of the workerCount property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Sets the value of the workerCount property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setWorkerCount(BigInteger value) {
+        this.workerCount = value;
+    }
+
+    /**
+     * Gets the value of the fetchSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the value of the fetchSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setFetchSize(BigInteger value) {
+        this.fetchSize = value;
+    }
+
+    /**
+     * Gets the value of the cacheInvariantQueries property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isCacheInvariantQueries() {
+        return cacheInvariantQueries;
+    }
+
+    /**
+     * Sets the value of the cacheInvariantQueries property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setCacheInvariantQueries(Boolean value) {
+        this.cacheInvariantQueries = value;
+    }
+
+    /**
+     * Gets the value of the matchCacheSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getMatchCacheSize() {
+        return matchCacheSize;
+    }
+
+    /**
+     * Sets the value of the matchCacheSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setMatchCacheSize(BigInteger value) {
+        this.matchCacheSize = value;
+    }
+
+    /**
+     * Gets the value of the matchCacheDisabled property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getMatchCacheDisabled() {
+        return matchCacheDisabled;
+    }
+
+    /**
+     * Sets the value of the matchCacheDisabled property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setMatchCacheDisabled(String value) {
+        this.matchCacheDisabled = value;
+    }
+
+    /**
+     * Gets the value of the pipelineQueueSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    /**
+     * Sets the value of the pipelineQueueSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPipelineQueueSize(BigInteger value) {
+        this.pipelineQueueSize = value;
+    }
+
+    /**
+     * Gets the value of the virtualThreads property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Sets the value of the virtualThreads property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setVirtualThreads(Boolean value) {
+        this.virtualThreads = value;
+    }
+
+    /**
+     * Gets the value of the branchCount property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getBranchCount() {
+        return branchCount;
+    }
+
+    /**
+     * Sets the value of the branchCount property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setBranchCount(BigInteger value) {
+        this.branchCount = value;
+    }
+
+    /**
+     * Gets the value of the splitThreshold property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    /**
+     * Sets the value of the splitThreshold property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setSplitThreshold(BigInteger value) {
+        this.splitThreshold = value;
+    }
+
+    /**
+     * Gets the value of the commitBatchSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getCommitBatchSize() {
+        return commitBatchSize;
+    }
+
+    /**
+     * Sets the value of the commitBatchSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setCommitBatchSize(BigInteger value) {
+        this.commitBatchSize = value;
+    }
+
+    /**
+     * Gets the value of the commitInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * Sets the value of the commitInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setCommitInterval(BigInteger value) {
+        this.commitInterval = value;
+    }
+
+    /**
+     * Gets the value of the continueOnError property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isContinueOnError() {
+        return continueOnError;
+    }
+
+    /**
+     * Sets the value of the continueOnError property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setContinueOnError(Boolean value) {
+        this.continueOnError = value;
+    }
+
+    /**
+     * Gets the value of the deadLetterFile property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getDeadLetterFile() {
+        return deadLetterFile;
+    }
+
+    /**
+     * Sets the value of the deadLetterFile property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setDeadLetterFile(String value) {
+        this.deadLetterFile = value;
+    }
+
+    /**
+     * Gets the value of the checkpointJournal property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isCheckpointJournal() {
+        return checkpointJournal;
+    }
+
+    /**
+     * Sets the value of the checkpointJournal property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setCheckpointJournal(Boolean value) {
+        this.checkpointJournal = value;
+    }
+
+    /**
+     * Gets the value of the checkpointSyncSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getCheckpointSyncSize() {
+        return checkpointSyncSize;
+    }
+
+    /**
+     * Sets the value of the checkpointSyncSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setCheckpointSyncSize(BigInteger value) {
+        this.checkpointSyncSize = value;
+    }
+
+    /**
+     * Gets the value of the keysetResume property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isKeysetResume() {
+        return keysetResume;
+    }
+
+    /**
+     * Sets the value of the keysetResume property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setKeysetResume(Boolean value) {
+        this.keysetResume = value;
+    }
+
+    /**
+     * Gets the value of the poolBorrowTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPoolBorrowTimeout() {
+        return poolBorrowTimeout;
+    }
+
+    /**
+     * Sets the value of the poolBorrowTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPoolBorrowTimeout(BigInteger value) {
+        this.poolBorrowTimeout = value;
+    }
+
+    /**
+     * Gets the value of the poolValidationInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPoolValidationInterval() {
+        return poolValidationInterval;
+    }
+
+    /**
+     * Sets the value of the poolValidationInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPoolValidationInterval(BigInteger value) {
+        this.poolValidationInterval = value;
+    }
+
+    /**
+     * Gets the value of the poolLeakThreshold property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPoolLeakThreshold() {
+        return poolLeakThreshold;
+    }
+
+    /**
+     * Sets the value of the poolLeakThreshold property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPoolLeakThreshold(BigInteger value) {
+        this.poolLeakThreshold = value;
+    }
+
+    /**
+     * Gets the value of the limitPushdown property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isLimitPushdown() {
+        return limitPushdown;
+    }
+
+    /**
+     * Sets the value of the limitPushdown property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setLimitPushdown(Boolean value) {
+        this.limitPushdown = value;
+    }
+
+    /**
+     * Gets the value of the multiRowInsertSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getMultiRowInsertSize() {
+        return multiRowInsertSize;
+    }
+
+    /**
+     * Sets the value of the multiRowInsertSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setMultiRowInsertSize(BigInteger value) {
+        this.multiRowInsertSize = value;
+    }
+
+    /**
+     * Gets the value of the mirrorSource property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isMirrorSource() {
+        return mirrorSource;
+    }
+
+    /**
+     * Sets the value of the mirrorSource property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setMirrorSource(Boolean value) {
+        this.mirrorSource = value;
+    }
+
+    /**
+     * Gets the value of the mirrorRefresh property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isMirrorRefresh() {
+        return mirrorRefresh;
+    }
+
+    /**
+     * Sets the value of the mirrorRefresh property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setMirrorRefresh(Boolean value) {
+        this.mirrorRefresh = value;
+    }
+
+    /**
+     * Gets the value of the mirrorDs property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link DatasourceType }
+     *     
+     */
+    public DatasourceType getMirrorDs() {
+        return mirrorDs;
+    }
+
+    /**
+     * Sets the value of the mirrorDs property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link DatasourceType }
+     *     
+     */
+    public void setMirrorDs(DatasourceType value) {
+        this.mirrorDs = value;
+    }
+
 }
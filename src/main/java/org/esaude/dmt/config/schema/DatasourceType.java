@@ -8,6 +8,7 @@
 
 package org.esaude.dmt.config.schema;
 
+import java.math.BigInteger;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -29,6 +30,9 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="password" type="{http://www.w3.org/2001/XMLSchema}string"/>
  *         &lt;element name="database_name" type="{http://www.w3.org/2001/XMLSchema}string"/>
  *         &lt;element name="database_location" type="{http://www.w3.org/2001/XMLSchema}string"/>
+ *         &lt;element name="pool_min_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="pool_max_size" type="{http://www.w3.org/2001/XMLSchema}integer" minOccurs="0"/>
+ *         &lt;element name="dialect" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -43,7 +47,10 @@ import javax.xml.bind.annotation.XmlType;
     "username",
     "password",
     "databaseName",
-    "databaseLocation"
+    "databaseLocation",
+    "poolMinSize",
+    "poolMaxSize",
+    "dialect"
 })
 public class DatasourceType {
 
@@ -57,6 +64,11 @@ public class DatasourceType {
     protected String databaseName;
     @XmlElement(name = "database_location", required = true)
     protected String databaseLocation;
+    @XmlElement(name = "pool_min_size")
+    protected BigInteger poolMinSize;
+    @XmlElement(name = "pool_max_size")
+    protected BigInteger poolMaxSize;
+    protected String dialect;
 
     /**
      * Gets the value of the driveName property.
@@ -178,4 +190,76 @@ public class DatasourceType {
         this.databaseLocation = value;
     }
 
+    /**
+     * Gets the value of the poolMinSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    /**
+     * Sets the value of the poolMinSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPoolMinSize(BigInteger value) {
+        this.poolMinSize = value;
+    }
+
+    /**
+     * Gets the value of the poolMaxSize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigInteger }
+     *     
+     */
+    public BigInteger getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    /**
+     * Sets the value of the poolMaxSize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigInteger }
+     *     
+     */
+    public void setPoolMaxSize(BigInteger value) {
+        this.poolMaxSize = value;
+    }
+
+    /**
+     * Gets the value of the dialect property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Sets the value of the dialect property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setDialect(String value) {
+        this.dialect = value;
+    }
+
 }
@@ -0,0 +1,189 @@
+package org.esaude.dmt.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class buffers the insert queries of the target database and executes
+ * them in batches, one batch per query. Since the queries are parameterized,
+ * all the rows of a table share the same query and are sent together. The
+ * generated keys are handed back to each row in the order they were added.
+ * If the dialect of the target database allows it, several rows are written
+ * by each insert statement, as multi-row VALUES
+ */
+public class BatchWriter {
+	private final DatabaseUtil dao;
+	private final int batchSize;
+	private final Dialect dialect;
+	private final int rowsPerInsert;// rows written by each insert statement
+	private final Map<String/* query */, List<List<Object>>> rows = new LinkedHashMap<String, List<List<Object>>>();
+	private final Map<String/* query */, List<KeyListener>> listeners = new LinkedHashMap<String, List<KeyListener>>();
+	private int size;// number of buffered rows
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param dao
+	 *            the DAO where the rows are inserted
+	 * @param batchSize
+	 *            the number of rows buffered before they are flushed
+	 */
+	public BatchWriter(DatabaseUtil dao, int batchSize) {
+		this(dao, batchSize, null, 1);
+	}
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param dao
+	 *            the DAO where the rows are inserted
+	 * @param batchSize
+	 *            the number of rows buffered before they are flushed
+	 * @param dialect
+	 *            the dialect of the target database
+	 * @param rowsPerInsert
+	 *            the number of rows written by each insert statement, zero (0)
+	 *            or one (1) = one row per statement
+	 */
+	public BatchWriter(DatabaseUtil dao, int batchSize, Dialect dialect,
+			int rowsPerInsert) {
+		this.dao = dao;
+		this.batchSize = batchSize;
+		this.dialect = dialect;
+		this.rowsPerInsert = rowsPerInsert;
+	}
+
+	/**
+	 * Buffer a row to be inserted. The batch is flushed once it reaches its
+	 * size
+	 *
+	 * @param query
+	 * @param parameters
+	 * @param listener
+	 *            receives the generated key of the row, it may be null when
+	 *            the key is not needed
+	 * @throws SystemException
+	 */
+	public void add(String query, List<Object> parameters, KeyListener listener)
+			throws SystemException {
+		if (!rows.containsKey(query)) {
+			rows.put(query, new ArrayList<List<Object>>());
+			listeners.put(query, new ArrayList<KeyListener>());
+		}
+		rows.get(query).add(parameters);
+		listeners.get(query).add(listener);
+		size++;
+
+		if (size >= batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Execute all the buffered rows, query by query in the order they were
+	 * first added, and map the generated keys back to their rows
+	 *
+	 * @throws SystemException
+	 */
+	public void flush() throws SystemException {
+		try {
+			for (Map.Entry<String, List<List<Object>>> entry : rows.entrySet()) {
+				List<List<Object>> keys = execute(entry.getKey(),
+						entry.getValue());
+				List<KeyListener> queryListeners = listeners.get(entry
+						.getKey());
+
+				for (int i = 0; i < queryListeners.size(); i++) {
+					if (queryListeners.get(i) == null) {
+						continue;
+					}
+					// tables without generated keys do not return any key
+					Object key = (keys != null && i < keys.size()) ? keys
+							.get(i).get(0) : null;
+					queryListeners.get(i).keyGenerated(key);
+				}
+			}
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * Execute the rows of a query. The rows are grouped in multi-row inserts,
+	 * the full groups in a single batch and the remaining rows in a last
+	 * statement, so that the keys keep the order of the rows
+	 *
+	 * @param query
+	 * @param queryRows
+	 * @return the generated keys
+	 * @throws SystemException
+	 */
+	private List<List<Object>> execute(String query,
+			List<List<Object>> queryRows) throws SystemException {
+		int perInsert = Math.min(rowsPerInsert, queryRows.size());
+		String insert = (dialect != null && perInsert > 1) ? dialect
+				.insertRows(query, perInsert) : null;
+
+		if (insert == null) {
+			return dao.executeBatch(query, queryRows);
+		}
+		List<List<Object>> keys = new ArrayList<List<Object>>();
+		int full = queryRows.size() - queryRows.size() % perInsert;
+		List<List<Object>> groups = new ArrayList<List<Object>>();
+
+		for (int i = 0; i < full; i += perInsert) {
+			groups.add(flatten(queryRows.subList(i, i + perInsert)));
+		}
+		addAll(keys, dao.executeBatch(insert, groups));
+		if (full < queryRows.size()) {
+			List<List<Object>> rest = queryRows.subList(full, queryRows.size());
+			addAll(keys, dao.executeBatch(
+					(rest.size() > 1) ? dialect.insertRows(query, rest.size())
+							: query, Collections.singletonList(flatten(rest))));
+		}
+		return keys;
+	}
+
+	private List<Object> flatten(List<List<Object>> group) {
+		List<Object> parameters = new ArrayList<Object>();
+
+		for (List<Object> row : group) {
+			parameters.addAll(row);
+		}
+		return parameters;
+	}
+
+	private void addAll(List<List<Object>> keys, List<List<Object>> generated) {
+		if (generated != null) {
+			keys.addAll(generated);
+		}
+	}
+
+	/**
+	 * Discard the buffered rows, e.g. when the transaction is rolled back
+	 */
+	public void clear() {
+		rows.clear();
+		listeners.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return the number of buffered rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Receives the key generated for a buffered row once it is inserted
+	 */
+	public interface KeyListener {
+		void keyGenerated(Object key);
+	}
+}
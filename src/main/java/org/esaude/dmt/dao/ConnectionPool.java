@@ -0,0 +1,370 @@
+package org.esaude.dmt.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class keeps the connections of a datasource open so that they are
+ * reused instead of opened again, e.g. by the workers of a parallel
+ * translation. A connection is borrowed from the pool and given back when it
+ * is closed. The pool opens up to its maximum size, then the borrowers wait
+ * for a connection to be given back. The connections idle for long are
+ * validated before they are borrowed again, and the ones held for too long
+ * are reported as leaks
+ */
+public class ConnectionPool {
+	private static final int VALIDATION_TIMEOUT = 5;// seconds
+
+	private final ConnectionFactory factory;
+	private final int maxSize;
+	private final long borrowTimeout;// milliseconds, zero = no limit
+	private final long validationInterval;// milliseconds idle before validated
+	private final long leakThreshold;// milliseconds held, zero = no detection
+	// the most recently given back first
+	private final Deque<Idle> idle = new ArrayDeque<Idle>();
+	private final Map<Connection/* borrowed */, Lease> leases = new IdentityHashMap<Connection, Lease>();
+	private int size;// number of connections open or being opened
+	private int leakCount;
+	private boolean closed;
+
+	/**
+	 * Opens the physical connections of the pool
+	 */
+	public interface ConnectionFactory {
+		Connection open() throws SQLException;
+	}
+
+	/**
+	 * Parameterized constructor, the minimum number of connections is opened
+	 * at once
+	 *
+	 * @param factory
+	 * @param minSize
+	 *            the number of connections opened with the pool
+	 * @param maxSize
+	 *            the maximum number of connections open
+	 * @param borrowTimeout
+	 *            the milliseconds a borrower waits for a connection, zero (0)
+	 *            = no limit
+	 * @param validationInterval
+	 *            the milliseconds a connection is idle before being validated,
+	 *            zero (0) = always validated
+	 * @param leakThreshold
+	 *            the milliseconds a connection is held before being reported,
+	 *            zero (0) = never reported
+	 * @throws SystemException
+	 */
+	public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+			long borrowTimeout, long validationInterval, long leakThreshold)
+			throws SystemException {
+		this.factory = factory;
+		this.maxSize = Math.max(maxSize, 1);
+		this.borrowTimeout = borrowTimeout;
+		this.validationInterval = validationInterval;
+		this.leakThreshold = leakThreshold;
+
+		for (int i = 0; i < Math.min(minSize, this.maxSize); i++) {
+			idle.push(new Idle(open()));
+			size++;
+		}
+	}
+
+	/**
+	 * Borrow a connection, it is given back to the pool when it is closed
+	 *
+	 * @return
+	 * @throws SystemException
+	 *             if no connection is given back before the timeout
+	 */
+	public Connection borrow() throws SystemException {
+		while (true) {
+			final Idle reserved = reserve();
+			Connection physical;
+
+			if (reserved == null) {
+				// a new connection is opened out of the lock, it is slow
+				try {
+					physical = open();
+				} catch (SystemException e) {
+					discard(null);
+					throw e;
+				}
+			} else if (System.currentTimeMillis() - reserved.since >= validationInterval
+					&& !isValid(reserved.connection)) {
+				discard(reserved.connection);
+				continue;
+			} else {
+				physical = reserved.connection;
+			}
+			return lease(physical);
+		}
+	}
+
+	/**
+	 * Close the idle connections, the borrowed ones are closed when they are
+	 * given back
+	 */
+	public synchronized void close() {
+		closed = true;
+		for (Idle each : idle) {
+			closeQuietly(each.connection);
+		}
+		size -= idle.size();
+		idle.clear();
+		notifyAll();
+	}
+
+	/**
+	 * @return the number of connections open, idle or borrowed
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of idle connections
+	 */
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * @return the number of borrowed connections
+	 */
+	public synchronized int getBorrowedCount() {
+		return leases.size();
+	}
+
+	/**
+	 * @return the number of connections reported as leaks
+	 */
+	public synchronized int getLeakCount() {
+		return leakCount;
+	}
+
+	/**
+	 * Takes an idle connection or a place for a new one, waiting for a
+	 * connection to be given back if the pool is full
+	 *
+	 * @return the idle connection or null if a new one must be opened
+	 * @throws SystemException
+	 */
+	private synchronized Idle reserve() throws SystemException {
+		final long deadline = System.currentTimeMillis() + borrowTimeout;
+		detectLeaks();
+
+		while (true) {
+			if (closed) {
+				throw new SystemException("The connection pool is closed");
+			}
+			if (!idle.isEmpty()) {
+				return idle.pop();
+			}
+			if (size < maxSize) {
+				size++;
+				return null;
+			}
+			final long wait = deadline - System.currentTimeMillis();
+			if (borrowTimeout > 0 && wait <= 0) {
+				throw new SystemException(
+						"Timed out waiting for a connection of the pool, "
+								+ leases.size() + " borrowed");
+			}
+			try {
+				wait(borrowTimeout > 0 ? wait : 0);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				throw new SystemException(
+						"Interrupted while waiting for a connection of the pool");
+			}
+		}
+	}
+
+	/**
+	 * Wraps the physical connection, closing the wrapper gives the physical
+	 * connection back to the pool
+	 *
+	 * @param physical
+	 * @return
+	 */
+	private synchronized Connection lease(final Connection physical) {
+		final Lease lease = new Lease(physical);
+		final Connection borrowed = (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						if (method.getName().equals("close")) {
+							giveBack((Connection) proxy);
+							return null;
+						}
+						if (method.getName().equals("isClosed")) {
+							return lease.returned || physical.isClosed();
+						}
+						if (method.getName().equals("equals")) {
+							return proxy == args[0];
+						}
+						if (method.getName().equals("hashCode")) {
+							return System.identityHashCode(proxy);
+						}
+						if (lease.returned) {
+							throw new SQLException("The connection was closed");
+						}
+						try {
+							return method.invoke(physical, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+		leases.put(borrowed, lease);
+		return borrowed;
+	}
+
+	/**
+	 * Puts the connection back in the pool, the work not committed is rolled
+	 * back
+	 *
+	 * @param borrowed
+	 */
+	private void giveBack(final Connection borrowed) {
+		final Lease lease;
+		synchronized (this) {
+			lease = leases.remove(borrowed);
+		}
+		// closed twice
+		if (lease == null) {
+			return;
+		}
+		lease.returned = true;
+		boolean reusable = !closed;
+		try {
+			if (reusable && !lease.connection.getAutoCommit()) {
+				lease.connection.rollback();
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			reusable = false;
+		}
+		synchronized (this) {
+			if (reusable && !closed) {
+				idle.push(new Idle(lease.connection));
+				notifyAll();
+				return;
+			}
+		}
+		discard(lease.connection);
+	}
+
+	/**
+	 * Close a connection that can not be reused and free its place
+	 *
+	 * @param physical
+	 *            the connection or null if it was not opened
+	 */
+	private void discard(final Connection physical) {
+		if (physical != null) {
+			closeQuietly(physical);
+		}
+		synchronized (this) {
+			size--;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Report the connections held for longer than the threshold, with the
+	 * place where they were borrowed. Each one is reported once
+	 */
+	private void detectLeaks() {
+		if (leakThreshold <= 0) {
+			return;
+		}
+		final long now = System.currentTimeMillis();
+
+		for (Lease lease : leases.values()) {
+			if (!lease.reported && now - lease.since >= leakThreshold) {
+				lease.reported = true;
+				leakCount++;
+				new Exception("Connection borrowed " + (now - lease.since)
+						+ " ms ago and not given back", lease.site)
+						.printStackTrace();
+			}
+		}
+	}
+
+	private Connection open() throws SystemException {
+		try {
+			return factory.open();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to open a connection of the pool");
+		}
+	}
+
+	/**
+	 * Drivers that can not validate a connection only check that it is open
+	 *
+	 * @param physical
+	 * @return
+	 */
+	private boolean isValid(final Connection physical) {
+		try {
+			return physical.isValid(VALIDATION_TIMEOUT);
+		} catch (SQLException | AbstractMethodError
+				| UnsupportedOperationException e) {
+			try {
+				return !physical.isClosed();
+			} catch (SQLException ex) {
+				return false;
+			}
+		}
+	}
+
+	private void closeQuietly(final Connection physical) {
+		try {
+			physical.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * An idle connection and the time it was given back
+	 */
+	private static class Idle {
+		private final Connection connection;
+		private final long since = System.currentTimeMillis();
+
+		private Idle(Connection connection) {
+			this.connection = connection;
+		}
+	}
+
+	/**
+	 * A borrowed connection, the time and place it was borrowed
+	 */
+	private class Lease {
+		private final Connection connection;
+		private final long since = System.currentTimeMillis();
+		private final Exception site = (leakThreshold > 0) ? new Exception(
+				"Borrowed here") : null;
+		private volatile boolean returned;
+		private boolean reported;
+
+		private Lease(Connection connection) {
+			this.connection = connection;
+		}
+	}
+}
@@ -1,8 +1,12 @@
 package org.esaude.dmt.dao;
 
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
 
 import org.esaude.dmt.config.schema.DatasourceType;
 import org.esaude.dmt.helper.DAOTypes;
@@ -20,7 +24,9 @@ public final class DAOFactory {
 	private DatabaseUtil sourceDAO;
 	private DatabaseUtil targetDAO;
 	private static DAOFactory instance;
-	private Connection connection;
+	// the connections kept open per type of DS, if pooled
+	private final Map<DAOTypes, ConnectionPool> pools = new EnumMap<DAOTypes, ConnectionPool>(DAOTypes.class);
+	private boolean mirrored;// the source DAOs connect to the mirror
 
 	private DAOFactory() {
 		cr = ConfigReader.getInstance();
@@ -34,7 +40,7 @@ public final class DAOFactory {
 	 * This is a method that returns a single instance of this class
 	 * @return
 	 */
-	public static DAOFactory getInstance() {
+	public static synchronized DAOFactory getInstance() {
 		if(instance == null) {
 			instance = new DAOFactory();
 		}
@@ -46,7 +52,7 @@ public final class DAOFactory {
 	 * @param cr
 	 * @return
 	 */
-	public static DAOFactory getInstance(ConfigReader cr) {
+	public static synchronized DAOFactory getInstance(ConfigReader cr) {
 		if(instance == null) {
 			instance = new DAOFactory(cr);
 		}
@@ -60,11 +66,11 @@ public final class DAOFactory {
 	 * @return
 	 * @throws SystemException
 	 */
-	public DatabaseUtil getDAO(DAOTypes type) throws SystemException {
+	public synchronized DatabaseUtil getDAO(DAOTypes type) throws SystemException {
 		DatasourceType ds = null;
 
 		if (type == DAOTypes.SOURCE) {
-			ds = cr.getConfig().getSourceDs();
+			ds = getDatasource(type);
 			// create DAO if not exists
 			if (sourceDAO == null) {
 				sourceDAO = createDAOs(ds, type);
@@ -94,11 +100,91 @@ public final class DAOFactory {
 		}
 	}
 	
+	/**
+	 * This method creates a new DAO, with its own connection, that is not
+	 * shared with the rest of the process. It must be closed by its owner
+	 * @param type
+	 * @return
+	 * @throws SystemException
+	 */
+	public DatabaseUtil createDAO(DAOTypes type) throws SystemException {
+		DatasourceType ds = getDatasource(type);
+
+		// set the database driver class
+		try {
+			if (ds != null) {
+				Class.forName(ds.getDriveName());
+			}
+		} catch (ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+		return createDAOs(ds, type);
+	}
+
+	/**
+	 * This method checks that the pool of a DS, if any, can lend the
+	 * connections kept open at once by the process. Otherwise the last DAOs
+	 * would wait for a connection until the borrow timeout
+	 * @param type
+	 * @param connections
+	 *            the number of DAOs of the DS open at once
+	 * @throws SystemException
+	 */
+	public void checkPoolSize(DAOTypes type, int connections)
+			throws SystemException {
+		DatasourceType ds = getDatasource(type);
+
+		if (ds != null && ds.getPoolMaxSize() != null
+				&& ds.getPoolMaxSize().intValue() > 0
+				&& ds.getPoolMaxSize().intValue() < connections) {
+			throw new SystemException("The pool_max_size of the "
+					+ type.name().toLowerCase() + " datasource is "
+					+ ds.getPoolMaxSize() + " but the process keeps "
+					+ connections + " connections open at once");
+		}
+	}
+
+	/**
+	 * This method returns the datasource of a type of DAO. The source DAOs
+	 * connect to the mirror once the source is mirrored
+	 * @param type
+	 * @return
+	 */
+	public synchronized DatasourceType getDatasource(DAOTypes type) {
+		if (type == DAOTypes.SOURCE) {
+			return mirrored ? cr.getConfig().getMirrorDs() : cr.getConfig()
+					.getSourceDs();
+		} else if (type == DAOTypes.TARGET) {
+			return cr.getConfig().getTargetDs();
+		}
+		return cr.getConfig().getMirrorDs();
+	}
+
+	/**
+	 * This method points the source DAOs to the mirror of the source
+	 * database. The source DAO and connections already open are closed
+	 * @throws SystemException
+	 */
+	public synchronized void mirrorSource() throws SystemException {
+		if (cr.getConfig().getMirrorDs() == null) {
+			throw new SystemException(
+					"The mirror datasource info doesn't exist in config.xml");
+		}
+		if (sourceDAO != null) {
+			destroy(DAOTypes.SOURCE);
+		}
+		ConnectionPool pool = pools.remove(DAOTypes.SOURCE);
+		if (pool != null) {
+			pool.close();
+		}
+		mirrored = true;
+	}
+
 	/**
 	 * Destroy all DAO resources
 	 * @param type
 	 */
-	public void destroy(DAOTypes type) throws SystemException {
+	public synchronized void destroy(DAOTypes type) throws SystemException {
 		try {
 			if (type == DAOTypes.SOURCE) {
 				sourceDAO.close();
@@ -115,6 +201,17 @@ public final class DAOFactory {
 		}
 	}
 
+	/**
+	 * Close the connections kept open by the pools, the ones still borrowed
+	 * are closed when their DAOs are closed
+	 */
+	public synchronized void closePools() {
+		for (ConnectionPool pool : pools.values()) {
+			pool.close();
+		}
+		pools.clear();
+	}
+
 	/**
 	 * This method creates a DAO based on the type of DS
 	 * @param ds
@@ -129,31 +226,133 @@ public final class DAOFactory {
 					"The datasource info doesn't exist in config.xml");
 		}
 		try {
-			connection = DriverManager.getConnection(
-					ds.getDatabaseLocation() + ds.getDatabaseName(),
-					ds.getUsername(), ds.getPassword());
-			// only for target DS
-			if (type == DAOTypes.TARGET) {
-				// only for target datasource
-				try {
-					connection.setAutoCommit(false);// disable auto-commit
-					connection
-							.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);// allow
-																								// to
-																								// access
-																								// uncommitted
-																								// data
-				} catch (SQLException e) {
-					e.printStackTrace();
-				}
-			}
+			// the connection is borrowed from the pool of the DS, if any
+			Connection connection = (ds.getPoolMaxSize() != null && ds
+					.getPoolMaxSize().intValue() > 0) ? pool(ds, type).borrow()
+					: openConnection(ds, type);
 
-			if (connection != null) {
-				return new DatabaseUtil(connection);
-			}
+			DatabaseUtil dao = new DatabaseUtil(connection,
+					statementCacheSize());
+			dao.setCodec(Dialect.forDatasource(ds).getCodec());
+			return dao;
+		} catch (SystemException e) {
+			// e.g. no connection of the pool was returned in time
+			e.printStackTrace();
+			throw e;
 		} catch (Exception e) {
 			e.printStackTrace();
+			throw new SystemException("Unable to connect to the "
+					+ type.name().toLowerCase() + " datasource");
+		}
+	}
+
+	/**
+	 * This method opens a new connection to a DS
+	 * @param ds
+	 * @param type
+	 * @return
+	 * @throws SQLException
+	 */
+	private Connection openConnection(final DatasourceType ds,
+			final DAOTypes type) throws SQLException {
+		Connection connection = DriverManager.getConnection(
+				ds.getDatabaseLocation() + ds.getDatabaseName(),
+				connectionProperties(ds, type));
+		// only for target DS
+		if (type == DAOTypes.TARGET) {
+			// only for target datasource
+			try {
+				connection.setAutoCommit(false);// disable auto-commit
+				connection
+						.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);// allow
+																							// to
+																							// access
+																							// uncommitted
+																							// data
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return connection;
+	}
+
+	/**
+	 * This method returns the pool of connections of a DS, it is created with
+	 * the first DAO
+	 * @param ds
+	 * @param type
+	 * @return
+	 * @throws SystemException
+	 */
+	private synchronized ConnectionPool pool(final DatasourceType ds, final DAOTypes type)
+			throws SystemException {
+		ConnectionPool pool = pools.get(type);
+
+		if (pool == null) {
+			pool = new ConnectionPool(new ConnectionPool.ConnectionFactory() {
+				@Override
+				public Connection open() throws SQLException {
+					return openConnection(ds, type);
+				}
+			}, (ds.getPoolMinSize() != null) ? ds.getPoolMinSize().intValue()
+					: 0, ds.getPoolMaxSize().intValue(), milliseconds(cr
+					.getConfig().getPoolBorrowTimeout()), milliseconds(cr
+					.getConfig().getPoolValidationInterval()), milliseconds(cr
+					.getConfig().getPoolLeakThreshold()));
+			pools.put(type, pool);
+		}
+		return pool;
+	}
+
+	private long milliseconds(final BigInteger value) {
+		return (value != null) ? value.longValue() : 0;
+	}
+
+	/**
+	 * This method builds the properties of the connection of a DS. MySQL
+	 * connections keep the parsed statements cached and their cursors fetch
+	 * the rows in windows. The source prepares its statements in the server,
+	 * so the same select is parsed there only once. The target and the mirror
+	 * prepare them in the client instead, as the driver only rewrites the
+	 * batches of inserts as multi-row inserts for client side statements
+	 * @param ds
+	 * @param type
+	 * @return
+	 */
+	private Properties connectionProperties(final DatasourceType ds,
+			final DAOTypes type) {
+		Properties properties = new Properties();
+
+		if (ds.getUsername() != null) {
+			properties.setProperty("user", ds.getUsername());
+		}
+		if (ds.getPassword() != null) {
+			properties.setProperty("password", ds.getPassword());
+		}
+		if (ds.getDriveName() != null
+				&& ds.getDriveName().toLowerCase().contains("mysql")) {
+			properties.setProperty("cachePrepStmts", "true");
+			if (type == DAOTypes.SOURCE) {
+				properties.setProperty("useServerPrepStmts", "true");
+			} else {
+				properties.setProperty("rewriteBatchedStatements", "true");
+			}
+			properties.setProperty("useCursorFetch", "true");
+		}
+		return properties;
+	}
+
+	/**
+	 * This method returns the number of prepared statements kept open per
+	 * connection
+	 * @return
+	 */
+	private int statementCacheSize() {
+		BigInteger size = cr.getConfig().getStatementCacheSize();
+
+		if (size == null || size.intValue() <= 0) {
+			return DatabaseUtil.DEFAULT_STATEMENT_CACHE_SIZE;
 		}
-		return null;
+		return size.intValue();
 	}
 }
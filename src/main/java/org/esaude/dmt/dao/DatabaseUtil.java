@@ -9,16 +9,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-import org.esaude.dmt.helper.MatchConstants;
 import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.LruCache;
+import org.esaude.dmt.util.SqlCodec;
 
 /**
- * This class is used to manipulate SQL-based databases using SQL native queries
+ * This class is used to manipulate SQL-based databases using SQL native queries.
+ * Each query is executed on its own statement and result set, so a query can
+ * be executed while the cursors of other queries are still open
  * 
  * @author Valrio Joo
  * @since May 22, 2008 Modified on August 23, 2008
@@ -29,8 +35,17 @@ public class DatabaseUtil {
 	private String[] columnNames = null;
 	private ResultSetMetaData metaData;
 	private Connection connection;
-	private Statement statement;
-	private ResultSet resultSet;
+	private final Set<QueryCursor> cursors = new LinkedHashSet<QueryCursor>();// open
+																				// cursors
+	private LruCache<String, PreparedStatement> statements;// prepared
+															// statements
+															// of this
+															// connection
+	// save points of the current transaction, oldest first
+	private final List<Savepoint> savePoints = new ArrayList<Savepoint>();
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 100;
+	private SqlCodec codec = SqlCodec.ACCESS;// values of this database
+
 	/**
 	 * Parameterized constructor
 	 * 
@@ -39,14 +54,34 @@ public class DatabaseUtil {
 	 * @throws Exception
 	 */
 	public DatabaseUtil(Connection connection) throws Exception {
+		this(connection, DEFAULT_STATEMENT_CACHE_SIZE);
+	}
+
+	/**
+	 * Parameterized constructor
+	 * 
+	 * @param connection
+	 *            the database connection
+	 * @param statementCacheSize
+	 *            the number of prepared statements kept open
+	 * @throws Exception
+	 */
+	public DatabaseUtil(Connection connection, int statementCacheSize)
+			throws Exception {
 		this.connection = connection;
-		try {
-			if (this.connection != null) {
-				statement = this.connection.createStatement();
+		// close the least recently used statements
+		statements = new LruCache<String, PreparedStatement>(statementCacheSize) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onEviction(String query, PreparedStatement ps) {
+				try {
+					ps.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
 			}
-		} catch (SQLException ex) {
-			ex.printStackTrace();
-		}
+		};
 	}
 	
 	/**
@@ -57,6 +92,8 @@ public class DatabaseUtil {
 			connection.commit();
 		} catch (SQLException e) {
 			e.printStackTrace();
+		} finally {
+			savePoints.clear();// the save points end with the transaction
 		}
 	}
 	
@@ -68,20 +105,77 @@ public class DatabaseUtil {
 			connection.rollback();
 		} catch (SQLException e) {
 			e.printStackTrace();
+		} finally {
+			savePoints.clear();// the save points end with the transaction
+		}
+	}
+	
+	/**
+	 * Allows to rollback the transaction from outside, till the given save
+	 * point
+	 * 
+	 * @param savePoint
+	 *            the save point, the whole transaction is rolled back if null
+	 */
+	public void rollback(Savepoint savePoint) {
+		if (savePoint == null) {
+			rollback();
+			return;
+		}
+		try {
+			connection.rollback(savePoint);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		// the save points set after it are discarded by the database
+		int index = savePoints.indexOf(savePoint);
+		if (index >= 0) {
+			savePoints.subList(index + 1, savePoints.size()).clear();
 		}
 	}
 	
 	/**
 	 * Allows to save the point to rollback from outside
+	 * 
+	 * @return the save point, or null if it could not be set
+	 */
+	public Savepoint setSavePoint() {
+		try {
+			Savepoint savePoint = connection.setSavepoint();
+			savePoints.add(savePoint);
+			return savePoint;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Allows to release a save point from outside once it is no longer
+	 * needed, the changes made after it are kept in the transaction
+	 * 
+	 * @param savePoint
 	 */
-	public void setSavePoint() {
+	public void releaseSavePoint(Savepoint savePoint) {
+		// save points that ended with the transaction are not released
+		if (savePoint == null || !savePoints.remove(savePoint)) {
+			return;
+		}
 		try {
-			connection.setSavepoint();
+			connection.releaseSavepoint(savePoint);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * @return the number of save points of the current transaction not
+	 *         released
+	 */
+	public int getOpenSavePointCount() {
+		return savePoints.size();
+	}
+
 	/**
 	 * This method is to execute a query in the database to retrieve data in
 	 * rows & columns
@@ -90,8 +184,8 @@ public class DatabaseUtil {
 	 * @return
 	 */
 	public List<List<Object>> executeQuery(String query) throws SystemException {
-		// test if connection and statement were properly created
-		if (connection == null || statement == null) {
+		// test if connection was properly created
+		if (connection == null) {
 			try {
 				throw new Exception(
 						"There is no database to execute the query.");
@@ -99,14 +193,84 @@ public class DatabaseUtil {
 				ex.printStackTrace();
 			}
 		}
+		Statement statement = null;
 		try {
-			resultSet = statement.executeQuery(query);// execute a given select
-														// query
-			return constructRows();
+			statement = connection.createStatement();
+			// execute a given select query
+			return constructRows(statement.executeQuery(query));
 		} catch (SQLException ex) {
 			System.out.println(query);
 			ex.printStackTrace();
 			throw new SystemException("Unable do execute SQL query");
+		} finally {
+			close(statement);
+		}
+	}
+
+	/**
+	 * This method is to execute a parameterized query in the database to
+	 * retrieve data in rows & columns. The statement is prepared once and
+	 * reused while it is in the cache of this connection
+	 * 
+	 * @param query
+	 * @param parameters
+	 * @return
+	 * @throws SystemException
+	 */
+	public List<List<Object>> executeQuery(String query,
+			List<Object> parameters) throws SystemException {
+		try {
+			PreparedStatement ps = prepare(query, false);
+			setParameters(ps, parameters);
+			ResultSet resultSet = ps.executeQuery();// execute a given select
+													// query
+			try {
+				return constructRows(resultSet);
+			} finally {
+				resultSet.close();
+			}
+		} catch (SQLException ex) {
+			ex.printStackTrace();
+			throw new SystemException("Unable do execute SQL query: "
+					+ query);
+		}
+	}
+
+	/**
+	 * This method opens a forward-only and read-only cursor over the results of
+	 * a parameterized query. The rows are fetched as the cursor is iterated.
+	 * The cursor has its own statement, it is closed with the DAO if it was
+	 * not closed before
+	 * 
+	 * @param query
+	 * @param parameters
+	 * @param fetchSize
+	 *            the number of rows fetched from the database at once
+	 * @return
+	 * @throws SystemException
+	 */
+	public QueryCursor openCursor(String query, List<Object> parameters,
+			int fetchSize) throws SystemException {
+		PreparedStatement ps = null;
+		try {
+			ps = connection.prepareStatement(query,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(fetchSize);
+			setParameters(ps, parameters);
+			QueryCursor cursor = new QueryCursor(this, ps, ps.executeQuery());
+			cursors.add(cursor);
+			return cursor;
+		} catch (SQLException ex) {
+			ex.printStackTrace();
+			try {
+				if (ps != null) {
+					ps.close();
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+			throw new SystemException("Unable do execute SQL query: "
+					+ query);
 		}
 	}
 
@@ -116,16 +280,35 @@ public class DatabaseUtil {
 	 * @throws Exception
 	 */
 	public void close() throws Exception {
-		// check if tools were created
-		if (resultSet != null) {
-			resultSet.close();
+		// close the cursors still open
+		for (QueryCursor cursor : new ArrayList<QueryCursor>(cursors)) {
+			cursor.close();
 		}
-		if (statement != null) {
-			statement.close();
+		for (PreparedStatement ps : statements.values()) {
+			ps.close();
 		}
+		statements.clear();
 		connection.close();
 	}
 
+	/**
+	 * This method is called by a cursor when it is closed
+	 * 
+	 * @param cursor
+	 */
+	void release(QueryCursor cursor) {
+		cursors.remove(cursor);
+	}
+
+	/**
+	 * This method returns the number of cursors still open
+	 * 
+	 * @return
+	 */
+	public int getOpenCursorCount() {
+		return cursors.size();
+	}
+
 	/**
 	 * This method returns the name of retrieved table columns in a certain
 	 * position
@@ -153,9 +336,19 @@ public class DatabaseUtil {
 		try {
 			type = metaData.getColumnType(column + 1);
 		} catch (SQLException e) {
-			return getColumnClass(column);
+			return Object.class;
 		}
+		return columnClass(type);
+	}
 
+	/**
+	 * This method map a SQL datatype into java language datatype
+	 * 
+	 * @param type
+	 *            the SQL datatype, one of {@link Types }
+	 * @return
+	 */
+	private static Class<?> columnClass(int type) {
 		switch (type) {
 		case Types.CHAR:
 		case Types.VARCHAR:
@@ -264,6 +457,27 @@ public class DatabaseUtil {
 		}
 	}
 
+	/**
+	 * This method executes a statement that returns neither rows nor keys,
+	 * e.g. the creation of a table or an index
+	 * 
+	 * @param query
+	 * @throws SystemException
+	 */
+	public void execute(String query) throws SystemException {
+		Statement statement = null;
+		try {
+			statement = connection.createStatement();
+			statement.execute(query);
+		} catch (SQLException ex) {
+			ex.printStackTrace();
+			throw new SystemException("Unable do execute SQL query: "
+					+ query);
+		} finally {
+			close(statement);
+		}
+	}
+
 	/**
 	 * This method execute query and return the PKs of affected records
 	 * 
@@ -272,20 +486,98 @@ public class DatabaseUtil {
 	 */
 	public List<List<Object>> executeUpdate(String query) throws SystemException {
 		int result = 0;// number of affected rows
+		Statement statement = null;
 		try {
+			statement = connection.createStatement();
 			result = statement.executeUpdate(query,
 					Statement.RETURN_GENERATED_KEYS);
 			if (result != 0) {
-				resultSet = statement.getGeneratedKeys();
-				return constructRows();
+				return constructRows(statement.getGeneratedKeys());
 			}
 		} catch (SQLException ex) {
 			ex.printStackTrace();
 			throw new SystemException("Unable do execute SQL query");
+		} finally {
+			close(statement);
 		}
 		return null;
 	}
 
+	/**
+	 * This method execute a parameterized query and return the PKs of affected
+	 * records. The statement is prepared once and reused while it is in the
+	 * cache of this connection
+	 * 
+	 * @param query
+	 * @param parameters
+	 * @return
+	 * @throws SystemException
+	 */
+	public List<List<Object>> executeUpdate(String query,
+			List<Object> parameters) throws SystemException {
+		int result = 0;// number of affected rows
+		try {
+			PreparedStatement ps = prepare(query, true);
+			setParameters(ps, parameters);
+			result = ps.executeUpdate();
+			if (result != 0) {
+				ResultSet resultSet = ps.getGeneratedKeys();
+				try {
+					return constructRows(resultSet);
+				} finally {
+					resultSet.close();
+				}
+			}
+		} catch (SQLException ex) {
+			ex.printStackTrace();
+			throw new SystemException("Unable do execute SQL query: "
+					+ query);
+		}
+		return null;
+	}
+
+	/**
+	 * This method execute a parameterized query once per row of parameters in
+	 * a single batch and return the PKs of the affected records, in the same
+	 * order of the rows
+	 * 
+	 * @param query
+	 * @param parameters
+	 *            the parameters of each row
+	 * @return
+	 * @throws SystemException
+	 */
+	public List<List<Object>> executeBatch(String query,
+			List<List<Object>> parameters) throws SystemException {
+		PreparedStatement ps = null;
+		try {
+			ps = prepare(query, true);
+			for (List<Object> row : parameters) {
+				setParameters(ps, row);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			ResultSet resultSet = ps.getGeneratedKeys();
+			try {
+				return constructRows(resultSet);
+			} finally {
+				resultSet.close();
+			}
+		} catch (SQLException ex) {
+			ex.printStackTrace();
+			// the statement stays in the cache, discard what is left
+			try {
+				if (ps != null) {
+					ps.clearBatch();
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+			throw new SystemException("Unable do execute SQL query: "
+					+ query);
+		}
+	}
+
 	/**
 	 * This method execute prepared statement that can affect multiple columns
 	 * @param query
@@ -300,32 +592,7 @@ public class DatabaseUtil {
 		PreparedStatement ps = null;
 		try {
 			ps = connection.prepareStatement(query);// start the statement
-			Object parameter;// to hold parameter values
-			// traverse the parameters
-			for (int i = 0; i < parameters.size(); i++) {
-				parameter = parameters.get(i);// retrieve parameter from
-												// collection
-				// check parameter type
-				if (parameter instanceof String) {
-					ps.setString(i + 1, (String) parameter);
-				} else if (parameter instanceof Integer) {
-					ps.setInt(i + 1, (Integer) parameter);
-				} else if (parameter instanceof Date) {
-					ps.setDate(i + 1, (Date) parameter);
-				} else if (parameter instanceof Boolean) {
-					ps.setBoolean(i + 1, (Boolean) parameter);
-				} else if (parameter instanceof Long) {
-					ps.setLong(i + 1, (Long) parameter);
-				} else if (parameter instanceof Double) {
-					ps.setDouble(i + 1, (Double) parameter);
-				} else if (parameter instanceof Float) {
-					ps.setFloat(i + 1, (Float) parameter);
-				} else if (parameter instanceof byte[]) {
-					ps.setBytes(i + 1, (byte[]) parameter);
-				} else {
-					ps.setObject(i + 1, parameter);
-				}
-			}
+			setParameters(ps, parameters);
 			// execute the query
 			return ps.executeUpdate();
 		} catch (SQLException ex) {
@@ -401,31 +668,79 @@ public class DatabaseUtil {
 	 * @return
 	 */
 	public String cast(Object value) throws SystemException {
-		if(value == null) {
-			throw new SystemException("Invalid database value to cast");
-		}
-		
-		String valueStr = value.toString();
-		
-		if(value instanceof java.util.Date) {
-			String valueDateStr = valueStr.substring(0, valueStr.lastIndexOf('.'));
-			
-			return "#" + valueDateStr + "#";
-		}
-		
-		if(!valueStr.matches("^[-+]?\\d+(\\.\\d+)?$")) {
-			if(valueStr.equalsIgnoreCase(MatchConstants.NULL)) {
-				return valueStr;
+		return codec.toLiteral(value);
+	}
+
+	/**
+	 * This method sets the codec of the values of this database
+	 * 
+	 * @param codec
+	 */
+	public void setCodec(SqlCodec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * This method returns the cached prepared statement of a query, the
+	 * statement is prepared if it is not in the cache
+	 * 
+	 * @param query
+	 * @param generatedKeys
+	 *            whether or not the statement returns generated keys
+	 * @return
+	 * @throws SQLException
+	 */
+	private PreparedStatement prepare(String query, boolean generatedKeys)
+			throws SQLException {
+		PreparedStatement ps = statements.get(query);
+
+		if (ps == null) {
+			ps = generatedKeys ? connection.prepareStatement(query,
+					Statement.RETURN_GENERATED_KEYS) : connection
+					.prepareStatement(query);
+			statements.put(query, ps);
+		} else {
+			ps.clearParameters();
+		}
+		return ps;
+	}
+
+	/**
+	 * This method binds the parameters of a prepared statement based on their
+	 * types
+	 * 
+	 * @param ps
+	 * @param parameters
+	 * @throws SQLException
+	 */
+	private void setParameters(PreparedStatement ps, List<Object> parameters)
+			throws SQLException {
+		// traverse the parameters
+		for (int i = 0; i < parameters.size(); i++) {
+			codec.bind(ps, i + 1, parameters.get(i));
+		}
+	}
+
+	/**
+	 * This method closes a statement that is not cached
+	 * 
+	 * @param statement
+	 */
+	private void close(Statement statement) {
+		try {
+			if (statement != null) {
+				statement.close();
 			}
-			return "\'" + valueStr + "\'";
+		} catch (SQLException e) {
+			e.printStackTrace();
 		}
-		return valueStr;
 	}
 
 	/**
 	 * This method aggregates the result set in a java { @link List }
 	 */
-	private List<List<Object>> constructRows() throws SQLException {
+	private List<List<Object>> constructRows(ResultSet resultSet)
+			throws SQLException {
 		metaData = resultSet.getMetaData(); // get the query result
 		// assign the number of columns retrieved
 		int numberOfColumns = metaData.getColumnCount();
@@ -440,7 +755,7 @@ public class DatabaseUtil {
 		while (resultSet.next()) {
 			List<Object> columns = new ArrayList<Object>();
 			// traverse data and dispose them in columns & rows
-			for (int column = 1; column <= getColumnCount(); column++) {
+			for (int column = 1; column <= numberOfColumns; column++) {
 				columns.add(resultSet.getObject(column));
 			}
 			rows.add(columns); // store each row
@@ -0,0 +1,383 @@
+package org.esaude.dmt.dao;
+
+import java.sql.Types;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.esaude.dmt.config.schema.DatasourceType;
+import org.esaude.dmt.util.SqlCodec;
+
+/**
+ * This class writes the SQL that differs from one database to another: the
+ * number of rows a select returns (TOP or LIMIT), the rows it skips (OFFSET),
+ * the inserts of several rows in a single statement and the tables and indexes
+ * of a copy of another database. The dialect of a datasource is the one
+ * configured in it or the one of its drive name. Other databases are supported
+ * by extending this class
+ */
+public abstract class Dialect {
+	/**
+	 * MS Access over ODBC, rows are limited with TOP and cannot be skipped
+	 */
+	public static final Dialect ACCESS = new Access();
+	/**
+	 * MySQL, rows are limited with LIMIT and skipped with OFFSET
+	 */
+	public static final Dialect MYSQL = new Standard("MYSQL", "LONGTEXT",
+			"LONGBLOB", "DATETIME", "DOUBLE") {
+		@Override
+		public boolean isCaseInsensitive() {
+			return true;// the default collations ignore the case
+		}
+
+		@Override
+		public String page(String select, int offset, int rows) {
+			if (offset <= 0) {
+				return limit(select, rows);
+			}
+			// MySQL does not accept an OFFSET without a LIMIT
+			return select + "\nLIMIT " + offset + ", "
+					+ (rows > 0 ? String.valueOf(rows) : MAX_ROWS);
+		}
+	};
+	/**
+	 * H2, rows are limited with LIMIT and skipped with OFFSET
+	 */
+	public static final Dialect H2 = new Standard("H2", "CLOB", "BLOB",
+			"TIMESTAMP", "DOUBLE");
+	/**
+	 * PostgreSQL, rows are limited with LIMIT and skipped with OFFSET
+	 */
+	public static final Dialect POSTGRESQL = new Standard("POSTGRESQL",
+			"TEXT", "BYTEA", "TIMESTAMP", "DOUBLE PRECISION");
+
+	private static final Dialect[] DIALECTS = { ACCESS, MYSQL, H2, POSTGRESQL };
+	private static final String MAX_ROWS = "18446744073709551615";
+	private static final int MAX_VARCHAR = 4000;// longer texts are LOBs
+	private static final int MAX_PRECISION = 38;
+	private static final int MAX_NAME = 60;// length of the index names
+	// the VALUES of an insert with a single row of parameters
+	private static final Pattern VALUES = Pattern.compile(
+			"\\bVALUES\\s*(\\(.*\\))\\s*$", Pattern.CASE_INSENSITIVE
+					| Pattern.DOTALL);
+
+	private final String name;
+	private final String textType;// texts without length
+	private final String binaryType;
+	private final String timestampType;
+	private final String doubleType;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param name
+	 * @param textType
+	 *            the type of the long texts
+	 * @param binaryType
+	 *            the type of the binary values
+	 * @param timestampType
+	 *            the type of the dates with time
+	 * @param doubleType
+	 *            the type of the floating point numbers
+	 */
+	protected Dialect(String name, String textType, String binaryType,
+			String timestampType, String doubleType) {
+		this.name = name;
+		this.textType = textType;
+		this.binaryType = binaryType;
+		this.timestampType = timestampType;
+		this.doubleType = doubleType;
+	}
+
+	/**
+	 * Get the dialect of a datasource, the one configured or else the one of
+	 * its drive name
+	 *
+	 * @param ds
+	 * @return
+	 */
+	public static Dialect forDatasource(DatasourceType ds) {
+		if (ds.getDialect() != null && !ds.getDialect().trim().isEmpty()) {
+			Dialect dialect = forName(ds.getDialect().trim());
+
+			if (dialect != null) {
+				return dialect;
+			}
+		}
+		return forDriver(ds.getDriveName());
+	}
+
+	/**
+	 * Get a dialect by its name, case is ignored
+	 *
+	 * @param name
+	 * @return null if there is no dialect with the name
+	 */
+	public static Dialect forName(String name) {
+		for (Dialect dialect : DIALECTS) {
+			if (dialect.getName().equalsIgnoreCase(name)) {
+				return dialect;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the dialect of a database based on its driver. Unknown drivers are
+	 * written as MySQL, whose LIMIT is the most widely accepted
+	 *
+	 * @param driveName
+	 *            the driver class of the datasource
+	 * @return
+	 */
+	public static Dialect forDriver(String driveName) {
+		String driver = (driveName != null) ? driveName.toLowerCase() : "";
+
+		if (driver.contains("odbc") || driver.contains("ucanaccess")) {
+			return ACCESS;
+		} else if (driver.contains("h2")) {
+			return H2;
+		} else if (driver.contains("postgresql")) {
+			return POSTGRESQL;
+		}
+		return MYSQL;
+	}
+
+	/**
+	 * @return the codec of the values of the database
+	 */
+	public SqlCodec getCodec() {
+		return SqlCodec.STANDARD;
+	}
+
+	/**
+	 * @return whether or not the texts are compared ignoring their case
+	 */
+	public boolean isCaseInsensitive() {
+		return false;
+	}
+
+	/**
+	 * Limit the number of rows returned by a select
+	 *
+	 * @param select
+	 * @param rows
+	 *            zero (0) or negative (-x) = all rows
+	 * @return
+	 */
+	public abstract String limit(String select, int rows);
+
+	/**
+	 * Skip the first rows of a select and limit the number of rows returned
+	 *
+	 * @param select
+	 * @param offset
+	 *            the number of rows skipped
+	 * @param rows
+	 *            zero (0) or negative (-x) = all rows after the offset
+	 * @return null if the database cannot skip rows, they must be skipped by
+	 *         the reader
+	 */
+	public abstract String page(String select, int offset, int rows);
+
+	/**
+	 * Write an insert of a single row of parameters as an insert of several
+	 * rows. The parameters of the rows are bound one row after another
+	 *
+	 * @param insert
+	 * @param rows
+	 * @return null if the database cannot insert several rows at once
+	 */
+	public String insertRows(String insert, int rows) {
+		Matcher matcher = VALUES.matcher(insert);
+
+		if (!matcher.find()) {
+			return null;
+		}
+		StringBuilder builder = new StringBuilder(insert.length() + rows
+				* (matcher.group(1).length() + 2));
+		builder.append(insert, 0, matcher.end(1));
+
+		for (int i = 1; i < rows; i++) {
+			builder.append(", ").append(matcher.group(1));
+		}
+		return builder.append(insert, matcher.end(1), insert.length())
+				.toString();
+	}
+
+	/**
+	 * Get the type of a column based on the JDBC type of the column it copies
+	 *
+	 * @param type
+	 *            the JDBC type, see {@link Types }
+	 * @param precision
+	 *            the length or number of digits of the column
+	 * @param scale
+	 *            the number of decimal digits of the column
+	 * @return
+	 */
+	public String columnType(int type, int precision, int scale) {
+		switch (type) {
+		case Types.BIT:
+		case Types.BOOLEAN:
+			return "BOOLEAN";
+		case Types.TINYINT:
+		case Types.SMALLINT:
+			return "SMALLINT";
+		case Types.INTEGER:
+			return "INTEGER";
+		case Types.BIGINT:
+			return "BIGINT";
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			return doubleType;
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			if (precision <= 0 || precision > MAX_PRECISION) {
+				return "DECIMAL(" + MAX_PRECISION + ", "
+						+ Math.max(0, Math.min(scale, MAX_PRECISION)) + ")";
+			}
+			return "DECIMAL(" + precision + ", " + Math.max(0, scale) + ")";
+		case Types.CHAR:
+		case Types.NCHAR:
+		case Types.VARCHAR:
+		case Types.NVARCHAR:
+			return (precision > 0 && precision <= MAX_VARCHAR) ? "VARCHAR("
+					+ precision + ")" : textType;
+		case Types.DATE:
+			return "DATE";
+		case Types.TIME:
+			return "TIME";
+		case Types.TIMESTAMP:
+			return timestampType;
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+		case Types.BLOB:
+			return binaryType;
+		default:
+			return textType;
+		}
+	}
+
+	/**
+	 * @param table
+	 * @return the statement that drops a table, if it exists
+	 */
+	public String dropTable(String table) {
+		return "DROP TABLE IF EXISTS " + table;
+	}
+
+	/**
+	 * Write the statement that creates the index of a column. The name of the
+	 * index is derived from the table and the column
+	 *
+	 * @param table
+	 * @param column
+	 * @return
+	 */
+	public String createIndex(String table, String column) {
+		String index = ("IX_" + table + "_" + column).replaceAll("\\W", "_");
+
+		if (index.length() > MAX_NAME) {
+			// keep the name unique within the limit of the database
+			String hash = Integer.toHexString(index.hashCode());
+			index = index.substring(0, MAX_NAME - hash.length() - 1) + "_"
+					+ hash;
+		}
+		return "CREATE INDEX " + index + " ON " + table + " (" + column + ")";
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * Databases that write LIMIT and OFFSET at the end of the select
+	 */
+	private static class Standard extends Dialect {
+
+		Standard(String name, String textType, String binaryType,
+				String timestampType, String doubleType) {
+			super(name, textType, binaryType, timestampType, doubleType);
+		}
+
+		@Override
+		public String limit(String select, int rows) {
+			return (rows > 0) ? select + "\nLIMIT " + rows : select;
+		}
+
+		@Override
+		public String page(String select, int offset, int rows) {
+			return limit(select, rows)
+					+ ((offset > 0) ? "\nOFFSET " + offset : "");
+		}
+	}
+
+	/**
+	 * MS Access writes TOP after SELECT and has neither OFFSET, multi-row
+	 * VALUES nor DROP TABLE IF EXISTS
+	 */
+	private static class Access extends Dialect {
+		private static final Pattern SELECT = Pattern.compile(
+				"^\\s*SELECT(\\s+(DISTINCT|DISTINCTROW))?\\s",
+				Pattern.CASE_INSENSITIVE);
+
+		Access() {
+			super("ACCESS", "MEMO", "LONGBINARY", "DATETIME", "DOUBLE");
+		}
+
+		@Override
+		public SqlCodec getCodec() {
+			return SqlCodec.ACCESS;
+		}
+
+		@Override
+		public boolean isCaseInsensitive() {
+			return true;
+		}
+
+		@Override
+		public String limit(String select, int rows) {
+			Matcher matcher = SELECT.matcher(select);
+
+			if (rows <= 0 || !matcher.find()) {
+				return select;
+			}
+			return select.substring(0, matcher.end()) + "TOP " + rows + " "
+					+ select.substring(matcher.end());
+		}
+
+		@Override
+		public String page(String select, int offset, int rows) {
+			return (offset > 0) ? null : limit(select, rows);
+		}
+
+		@Override
+		public String insertRows(String insert, int rows) {
+			return (rows > 1) ? null : insert;
+		}
+
+		@Override
+		public String columnType(int type, int precision, int scale) {
+			String columnType = super.columnType(type, precision, scale);
+			// Access has no BOOLEAN and its texts are up to 255 characters
+			if (columnType.equals("BOOLEAN")) {
+				return "BIT";
+			}
+			return (columnType.startsWith("VARCHAR") && precision > 255) ? "MEMO"
+					: columnType;
+		}
+
+		@Override
+		public String dropTable(String table) {
+			return "DROP TABLE " + table;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package org.esaude.dmt.dao;
+
+/**
+ * This class commits the transaction of the target database once for a group
+ * of root trees instead of once per tree. The group is committed when it
+ * reaches its size or when the interval since the last commit has elapsed,
+ * whichever comes first
+ */
+public class GroupCommit {
+	private final DatabaseUtil dao;
+	private final int size;// number of trees per commit, zero = no limit
+	private final long interval;// milliseconds between commits, zero = none
+	private int pending;// number of trees not committed
+	private long lastCommit;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param dao
+	 *            the DAO whose transaction is committed
+	 * @param size
+	 *            the number of trees committed together, one (1) = a commit
+	 *            per tree
+	 * @param interval
+	 *            the maximum milliseconds a tree waits to be committed, zero
+	 *            (0) = the group is only committed by its size
+	 */
+	public GroupCommit(DatabaseUtil dao, int size, long interval) {
+		this.dao = dao;
+		this.size = (size <= 0 && interval <= 0) ? 1 : size;
+		this.interval = interval;
+		this.lastCommit = System.currentTimeMillis();
+	}
+
+	/**
+	 * Add a translated tree to the group, the group is committed if it is due
+	 *
+	 * @return true if the group was committed
+	 */
+	public boolean add() {
+		pending++;
+
+		if ((size > 0 && pending >= size)
+				|| (interval > 0 && System.currentTimeMillis() - lastCommit >= interval)) {
+			commit();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Commit the trees of the group, if any
+	 *
+	 * @return true if there were trees to commit
+	 */
+	public boolean commit() {
+		final boolean committed = pending > 0;
+
+		if (committed) {
+			dao.commit();
+		}
+		pending = 0;
+		lastCommit = System.currentTimeMillis();
+		return committed;
+	}
+
+	/**
+	 * @return the number of trees not committed
+	 */
+	public int getPending() {
+		return pending;
+	}
+}
@@ -0,0 +1,134 @@
+package org.esaude.dmt.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class allocates the primary keys of the target tables in the client
+ * side. Contiguous blocks of keys are reserved per table in a sentinel table,
+ * so that the TOP of a tuple is known before its insert is executed. The
+ * reservations are committed in their own connection, keys of rolled back
+ * transactions are left as gaps
+ */
+public class KeyAllocator {
+	public static final String ALLOCATION_TABLE = "dmt_key_allocation";
+	private final DatabaseUtil dao;
+	private final int blockSize;
+	private final Map<String/* table */, long[]/* next, end */> blocks = new HashMap<String, long[]>();
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param dao
+	 *            a DAO of the target database used only for the reservations
+	 * @param blockSize
+	 *            the number of keys reserved at once per table
+	 * @throws SystemException
+	 */
+	public KeyAllocator(DatabaseUtil dao, int blockSize) throws SystemException {
+		this.dao = dao;
+		this.blockSize = blockSize;
+		// create the sentinel table if not exists
+		try {
+			dao.executePreparedStatement("CREATE TABLE IF NOT EXISTS "
+					+ ALLOCATION_TABLE
+					+ " (table_name VARCHAR(100) NOT NULL PRIMARY KEY,"
+					+ " next_key BIGINT NOT NULL)", new ArrayList<Object>());
+			dao.commit();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to create the table "
+					+ ALLOCATION_TABLE);
+		}
+	}
+
+	/**
+	 * Returns the next key of a table, a new block is reserved when the
+	 * current one is exhausted. It fails once the keys leave the integer range
+	 *
+	 * @param table
+	 * @param column
+	 *            the primary key column of the table
+	 * @return
+	 * @throws SystemException
+	 */
+	public synchronized Integer next(String table, String column)
+			throws SystemException {
+		long[] block = blocks.get(table);
+
+		if (block == null || block[0] >= block[1]) {
+			block = reserve(table, column);
+			blocks.put(table, block);
+		}
+		// the TOPs are integers, a greater key would wrap around
+		if (block[0] > Integer.MAX_VALUE) {
+			throw new SystemException("The keys of table " + table
+					+ " exceed the greatest integer: " + block[0]);
+		}
+		return Integer.valueOf((int) block[0]++);
+	}
+
+	/**
+	 * Reserves a block of keys for a table. The block starts after the
+	 * greatest of the last reserved key and the greatest existing key, the
+	 * sentinel row is locked until the reservation is committed
+	 *
+	 * @param table
+	 * @param column
+	 * @return
+	 * @throws SystemException
+	 */
+	private long[] reserve(String table, String column) throws SystemException {
+		try {
+			List<List<Object>> sentinel = dao.executeQuery("SELECT next_key FROM "
+					+ ALLOCATION_TABLE + " WHERE table_name = ? FOR UPDATE",
+					Arrays.<Object> asList(table));
+			List<List<Object>> max = dao.executeQuery("SELECT MAX(" + column
+					+ ") FROM " + table, new ArrayList<Object>());
+
+			long next = 1;
+			if (!max.isEmpty() && max.get(0).get(0) != null) {
+				next = ((Number) max.get(0).get(0)).longValue() + 1;
+			}
+			if (sentinel.isEmpty()) {
+				dao.executePreparedStatement("INSERT INTO " + ALLOCATION_TABLE
+						+ " (table_name, next_key) VALUES (?, ?)",
+						Arrays.<Object> asList(table, next + blockSize));
+			} else {
+				next = Math.max(next,
+						((Number) sentinel.get(0).get(0)).longValue());
+				dao.executePreparedStatement("UPDATE " + ALLOCATION_TABLE
+						+ " SET next_key = ? WHERE table_name = ?",
+						Arrays.<Object> asList(next + blockSize, table));
+			}
+			dao.commit();
+
+			return new long[] { next, next + blockSize };
+		} catch (SQLException e) {
+			e.printStackTrace();
+			dao.rollback();
+			throw new SystemException("Unable to reserve keys of table "
+					+ table);
+		} catch (SystemException e) {
+			dao.rollback();
+			throw e;
+		}
+	}
+
+	/**
+	 * Release the DAO of the reservations
+	 */
+	public void close() {
+		try {
+			dao.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package org.esaude.dmt.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class is a forward-only and read-only cursor over the results of a
+ * query. The rows are fetched from the database as they are iterated, so only
+ * the fetch window is kept in memory. It has its own statement, so other
+ * queries can be executed on the same connection while it is open. It must be
+ * closed by its owner, otherwise it is closed with its DAO
+ */
+public class QueryCursor implements Iterator<List<Object>> {
+	private final DatabaseUtil dao;
+	private final PreparedStatement ps;
+	private final ResultSet resultSet;
+	private final int columnCount;
+	private Boolean hasRow;// null until the next row is fetched
+	private boolean closed;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param dao
+	 *            the DAO that opened the cursor
+	 * @param ps
+	 *            the statement of the query, closed with the cursor
+	 * @param resultSet
+	 * @throws SQLException
+	 */
+	QueryCursor(DatabaseUtil dao, PreparedStatement ps, ResultSet resultSet)
+			throws SQLException {
+		this.dao = dao;
+		this.ps = ps;
+		this.resultSet = resultSet;
+		this.columnCount = resultSet.getMetaData().getColumnCount();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (hasRow == null) {
+			try {
+				hasRow = resultSet.next();
+			} catch (SQLException e) {
+				e.printStackTrace();
+				throw new IllegalStateException("Unable to fetch the next row");
+			}
+		}
+		return hasRow;
+	}
+
+	@Override
+	public List<Object> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		List<Object> row = new ArrayList<Object>(columnCount);
+		try {
+			for (int column = 1; column <= columnCount; column++) {
+				row.add(resultSet.getObject(column));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new IllegalStateException("Unable to read the current row");
+		}
+		hasRow = null;
+		return row;
+	}
+
+	/**
+	 * Retrieve the next rows, at most the given number
+	 *
+	 * @param size
+	 * @return an empty list when there are no more rows
+	 * @throws SystemException
+	 */
+	public List<List<Object>> next(int size) throws SystemException {
+		List<List<Object>> rows = new ArrayList<List<Object>>();
+		try {
+			while (rows.size() < size && hasNext()) {
+				rows.add(next());
+			}
+		} catch (IllegalStateException e) {
+			throw new SystemException(e.getMessage());
+		}
+		return rows;
+	}
+
+	/**
+	 * Skip the given number of rows
+	 *
+	 * @param size
+	 * @throws SystemException
+	 */
+	public void skip(int size) throws SystemException {
+		try {
+			for (int i = 0; i < size && hasNext(); i++) {
+				hasRow = null;// the row is not read
+			}
+		} catch (IllegalStateException e) {
+			throw new SystemException(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the names and types of the columns of the results
+	 * @throws SystemException
+	 */
+	public ResultSetMetaData getMetaData() throws SystemException {
+		try {
+			return resultSet.getMetaData();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to read the columns of the query");
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("The cursor is read-only");
+	}
+
+	/**
+	 * Release the results and the statement of the cursor, closing a closed
+	 * cursor has no effect
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			resultSet.close();
+			ps.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			dao.release(this);
+		}
+	}
+
+	/**
+	 * @return whether or not the cursor was closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+}
@@ -0,0 +1,135 @@
+package org.esaude.dmt.dao;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class copies tables of the source database into a local database, the
+ * mirror, where they are indexed. The tables are created from the columns of
+ * the source, with the types of the dialect of the mirror, and their rows are
+ * streamed and inserted in batches, so only a batch is kept in memory
+ */
+public class SourceMirror {
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final DatabaseUtil source;
+	private final DatabaseUtil mirror;
+	private final Dialect dialect;
+	private final int batchSize;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param source
+	 *            the DAO of the source database
+	 * @param mirror
+	 *            the DAO of the mirror
+	 * @param dialect
+	 *            the dialect of the mirror
+	 * @param batchSize
+	 *            the number of rows fetched and inserted at once
+	 */
+	public SourceMirror(DatabaseUtil source, DatabaseUtil mirror,
+			Dialect dialect, int batchSize) {
+		this.source = source;
+		this.mirror = mirror;
+		this.dialect = dialect;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Copy a table of the source into the mirror, replacing the copy of a
+	 * previous run
+	 *
+	 * @param table
+	 * @return the number of rows copied
+	 * @throws SystemException
+	 */
+	public int copy(String table) throws SystemException {
+		QueryCursor cursor = source.openCursor("SELECT * FROM " + table,
+				Collections.<Object> emptyList(), batchSize);
+		int count = 0;
+
+		try {
+			List<String> columns = new ArrayList<String>();
+			List<String> types = new ArrayList<String>();
+			columns(cursor.getMetaData(), columns, types);
+
+			mirror.execute(dialect.dropTable(table));
+			mirror.execute(createTable(table, columns, types));
+
+			String insert = insert(table, columns);
+			List<List<Object>> rows = cursor.next(batchSize);
+			while (!rows.isEmpty()) {
+				mirror.executeBatch(insert, rows);
+				count += rows.size();
+				rows = cursor.next(batchSize);
+			}
+		} finally {
+			cursor.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Create the index of a column of a table of the mirror
+	 *
+	 * @param table
+	 * @param column
+	 * @throws SystemException
+	 */
+	public void index(String table, String column) throws SystemException {
+		mirror.execute(dialect.createIndex(table, column));
+	}
+
+	/**
+	 * Read the names and the types of the columns of the source
+	 *
+	 * @param metaData
+	 * @param columns
+	 * @param types
+	 * @throws SystemException
+	 */
+	private void columns(ResultSetMetaData metaData, List<String> columns,
+			List<String> types) throws SystemException {
+		try {
+			for (int i = 1; i <= metaData.getColumnCount(); i++) {
+				columns.add(metaData.getColumnName(i));
+				types.add(dialect.columnType(metaData.getColumnType(i),
+						metaData.getPrecision(i), metaData.getScale(i)));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to read the columns of the table");
+		}
+	}
+
+	private String createTable(String table, List<String> columns,
+			List<String> types) {
+		StringBuilder builder = new StringBuilder("CREATE TABLE ").append(
+				table).append(" (");
+
+		for (int i = 0; i < columns.size(); i++) {
+			builder.append(i > 0 ? ", " : "").append(columns.get(i))
+					.append(" ").append(types.get(i));
+		}
+		return builder.append(")").toString();
+	}
+
+	private String insert(String table, List<String> columns) {
+		StringBuilder names = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+
+		for (int i = 0; i < columns.size(); i++) {
+			names.append(i > 0 ? ", " : "").append(columns.get(i));
+			values.append(i > 0 ? ", " : "").append("?");
+		}
+		return "INSERT INTO " + table + " (" + names + ") VALUES (" + values
+				+ ")";
+	}
+}
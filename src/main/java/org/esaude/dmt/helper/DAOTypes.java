@@ -1,7 +1,8 @@
 package org.esaude.dmt.helper;
 
 /**
- * This enum indicates whether the DAO belongs to a source or target database
+ * This enum indicates whether the DAO belongs to a source or target database,
+ * or to the local mirror of the source database
  * @author Valrio Joo
  * @since 18-09-2014
  *
@@ -9,6 +10,7 @@ package org.esaude.dmt.helper;
 public enum DAOTypes {
 	
 	SOURCE,
-	TARGET
+	TARGET,
+	MIRROR
 
 }
@@ -38,5 +38,9 @@ public interface EventCodeContants {
 	public static final String INF005 = "INF005";
 	public static final String INF006 = "INF006";
 	public static final String INF007 = "INF007";
+	public static final String INF008 = "INF008";
+	public static final String INF009 = "INF009";
+	public static final String INF010 = "INF010";
+	public static final String INF011 = "INF011";
 	public static final String SEPARATOR = "common.separator";
 }
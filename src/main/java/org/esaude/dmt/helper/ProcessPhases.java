@@ -18,6 +18,11 @@ public interface ProcessPhases {
 	 * SELECT queries
 	 */
 	public static final String TRANSLATION = "TRANS";
+	/*
+	 * Copies the source tables of the matching into
+	 * the local mirror
+	 */
+	public static final String MIRROR = "MIRR";
 	/*
 	 * Executes the queries into the target databases
 	 */
@@ -11,4 +11,5 @@ public class ProcessStatuses {
 	public static final String PAUSED = "PAUSED";
 	public static final String COMPLETED = "COMPLETED";
 	public static final String RESET = "RESET";
+	public static final String RUNNING = "RUNNING";
 }
@@ -31,6 +31,8 @@ import javax.xml.datatype.XMLGregorianCalendar;
  *         &lt;element name="last_stop_point" type="{http://www.w3.org/2001/XMLSchema}integer"/>
  *         &lt;element name="last_stop_date" type="{http://www.w3.org/2001/XMLSchema}dateTime"/>
  *         &lt;element name="last_stop_status" type="{http://www.w3.org/2001/XMLSchema}string"/>
+ *         &lt;element name="last_stop_key" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="last_stop_key_type" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -43,7 +45,9 @@ import javax.xml.datatype.XMLGregorianCalendar;
 @XmlType(name = "", propOrder = {
     "lastStopPoint",
     "lastStopDate",
-    "lastStopStatus"
+    "lastStopStatus",
+    "lastStopKey",
+    "lastStopKeyType"
 })
 @XmlRootElement(name = "process")
 public class Process {
@@ -55,6 +59,10 @@ public class Process {
     protected XMLGregorianCalendar lastStopDate;
     @XmlElement(name = "last_stop_status", required = true)
     protected String lastStopStatus;
+    @XmlElement(name = "last_stop_key")
+    protected String lastStopKey;
+    @XmlElement(name = "last_stop_key_type")
+    protected String lastStopKeyType;
 
     /**
      * Gets the value of the lastStopPoint property.
@@ -128,4 +136,52 @@ public class Process {
         this.lastStopStatus = value;
     }
 
+    /**
+     * Gets the value of the lastStopKey property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getLastStopKey() {
+        return lastStopKey;
+    }
+
+    /**
+     * Sets the value of the lastStopKey property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setLastStopKey(String value) {
+        this.lastStopKey = value;
+    }
+
+    /**
+     * Gets the value of the lastStopKeyType property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getLastStopKeyType() {
+        return lastStopKeyType;
+    }
+
+    /**
+     * Sets the value of the lastStopKeyType property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setLastStopKeyType(String value) {
+        this.lastStopKeyType = value;
+    }
+
 }
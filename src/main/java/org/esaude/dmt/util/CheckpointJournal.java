@@ -0,0 +1,275 @@
+package org.esaude.dmt.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * Tool that keeps the position of the translation process in an append-only
+ * text file. A checkpoint is appended each time root trees are committed and
+ * a status each time the process stops, both with the key of the last root
+ * CURR committed and its type, so that the key is read back as it was
+ * selected. The file is synced to the disk once per group of checkpoints and
+ * on every status, and it is replayed to find the last position. It is truncated once its content is kept elsewhere, e.g. in
+ * process.xml
+ */
+public class CheckpointJournal {
+	private static final String CHECKPOINT = "K";
+	private static final String STATUS = "S";
+	private static final String SEPARATOR = "\t";
+
+	private final File file;
+	private final int syncSize;// number of checkpoints per sync
+	private FileOutputStream output;
+	private Writer writer;
+	private int unsynced;// number of records not synced
+	private int recordCount;// number of records in the file
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param file
+	 *            the text file of the journal
+	 * @param syncSize
+	 *            the number of checkpoints appended before the file is synced
+	 *            to the disk, one (1) = every checkpoint is synced
+	 */
+	public CheckpointJournal(File file, int syncSize) {
+		this.file = file;
+		this.syncSize = Math.max(syncSize, 1);
+	}
+
+	/**
+	 * Append a checkpoint: the root trees before the stop point are committed
+	 *
+	 * @param stop
+	 * @param key
+	 *            the key of the last root CURR committed, may be null
+	 * @throws IOException
+	 */
+	public synchronized void checkpoint(int stop, Object key)
+			throws IOException {
+		append(CHECKPOINT + SEPARATOR + stop + SEPARATOR
+				+ System.currentTimeMillis() + SEPARATOR + toField(key));
+		if (unsynced >= syncSize) {
+			sync();
+		}
+	}
+
+	/**
+	 * Append the status of the process, it is synced right away
+	 *
+	 * @param stop
+	 * @param key
+	 *            the key of the last root CURR committed, may be null
+	 * @param date
+	 * @param status
+	 * @throws IOException
+	 */
+	public synchronized void status(int stop, Object key, Date date,
+			String status) throws IOException {
+		append(STATUS + SEPARATOR + stop + SEPARATOR + date.getTime()
+				+ SEPARATOR + status + SEPARATOR + toField(key));
+		sync();
+	}
+
+	/**
+	 * Replay the journal to find the last position of the process: the last
+	 * status, moved forward by the checkpoints appended after it. Checkpoints
+	 * may be appended out of order by concurrent commits, so the furthest one
+	 * is kept
+	 *
+	 * @return the position, or null if the journal is empty
+	 * @throws IOException
+	 */
+	public synchronized Position replay() throws IOException {
+		flush();
+		if (!file.exists()) {
+			return null;
+		}
+		Position position = null;
+		int records = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(SEPARATOR);
+				// a record cut by a crash is ignored
+				if (fields.length < 3
+						|| (fields[0].equals(STATUS) && fields.length < 4)) {
+					continue;
+				}
+				records++;
+				int stop = Integer.parseInt(fields[1]);
+				Date date = new Date(Long.parseLong(fields[2]));
+
+				if (fields[0].equals(STATUS)) {
+					position = new Position(stop, toKey(fields, 4), date,
+							fields[3], false);
+				} else if (position == null || !position.isRunning()
+						|| stop >= position.getStop()) {
+					position = new Position(stop, toKey(fields, 3), date,
+							null, true);
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid checkpoint journal " + file, e);
+		} finally {
+			reader.close();
+		}
+		recordCount = records;
+		return position;
+	}
+
+	/**
+	 * Remove all the records of the journal
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void truncate() throws IOException {
+		close();
+		new FileOutputStream(file, false).close();
+		recordCount = 0;
+	}
+
+	/**
+	 * @return the number of records in the journal since it was replayed or
+	 *         truncated
+	 */
+	public synchronized int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Sync and close the file, it is opened again by the next record
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+		if (writer != null) {
+			sync();
+			writer.close();
+			writer = null;
+			output = null;
+		}
+	}
+
+	/**
+	 * The key and its type, the separators can not be part of the key
+	 *
+	 * @param key
+	 * @return
+	 */
+	private String toField(Object key) {
+		if (key == null) {
+			return "";
+		}
+		return SqlCodec.toText(key).replaceAll("[\\t\\r\\n]", " ")
+				+ SEPARATOR + SqlCodec.typeOf(key);
+	}
+
+	/**
+	 * The key of a record, read as text if its type is not recorded
+	 *
+	 * @param fields
+	 * @param index
+	 *            the index of the key, its type follows it
+	 * @return
+	 * @throws IOException
+	 */
+	private Object toKey(String[] fields, int index) throws IOException {
+		if (index >= fields.length || fields[index].isEmpty()) {
+			return null;
+		}
+		if (index + 1 >= fields.length) {
+			return fields[index];
+		}
+		try {
+			return SqlCodec.fromText(fields[index + 1], fields[index]);
+		} catch (SystemException e) {
+			throw new IOException("Invalid checkpoint journal " + file, e);
+		}
+	}
+
+	private void append(String record) throws IOException {
+		if (writer == null) {
+			output = new FileOutputStream(file, true);
+			writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
+		}
+		writer.write(record);
+		writer.write('\n');
+		unsynced++;
+		recordCount++;
+	}
+
+	private void flush() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	private void sync() throws IOException {
+		if (writer != null) {
+			writer.flush();
+			output.getFD().sync();
+		}
+		unsynced = 0;
+	}
+
+	/**
+	 * The position of the process found in the journal
+	 */
+	public static class Position {
+		private final int stop;
+		private final Object key;
+		private final Date date;
+		private final String status;
+		private final boolean running;
+
+		private Position(int stop, Object key, Date date, String status,
+				boolean running) {
+			this.stop = stop;
+			this.key = key;
+			this.date = date;
+			this.status = status;
+			this.running = running;
+		}
+
+		public int getStop() {
+			return stop;
+		}
+
+		/**
+		 * @return the key of the last root CURR committed, null if unknown
+		 */
+		public Object getKey() {
+			return key;
+		}
+
+		public Date getDate() {
+			return date;
+		}
+
+		/**
+		 * @return the status of the process, null if it is still running
+		 */
+		public String getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return true if the position is a checkpoint of a running process
+		 */
+		public boolean isRunning() {
+			return running;
+		}
+	}
+}
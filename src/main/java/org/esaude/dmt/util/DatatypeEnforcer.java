@@ -1,6 +1,5 @@
 package org.esaude.dmt.util;
 
-import org.esaude.dmt.helper.MatchConstants;
 import org.esaude.dmt.helper.SystemException;
 
 /**
@@ -10,6 +9,22 @@ import org.esaude.dmt.helper.SystemException;
  *
  */
 public class DatatypeEnforcer {
+	private final SqlCodec codec;// values of the target database
+	
+	/**
+	 * Default constructor
+	 */
+	public DatatypeEnforcer() {
+		this(SqlCodec.STANDARD);
+	}
+	
+	/**
+	 * Parameterized constructor
+	 * @param codec the values of the database of the enforced values
+	 */
+	public DatatypeEnforcer(SqlCodec codec) {
+		this.codec = codec;
+	}
 	
 	/**
 	 * This method enforces a String value to be a datatype specific format
@@ -19,54 +34,18 @@ public class DatatypeEnforcer {
 	 * @throws SystemException
 	 */
 	public String enforce(String datatype, Object value)  throws SystemException {
-		Object enforced = null;
-		// value should not be null
-		if (value == null) {
-			throw new SystemException("The enforced value is null");
-		}
-		String valueStr = value.toString();
-		//enforce based on datatype
-		if(datatype.equalsIgnoreCase(MatchConstants.DOUBLE)) {
-			enforced = enforceDouble(valueStr);
-		} else {
-			enforced = value;
-		}
-		return cast(enforced);
-	}
-
-	/**
-	 * This method enforces a String value to be Double format
-	 * @param value the value to be enforced
-	 * @return
-	 * @throws SystemException
-	 */
-	private Double enforceDouble(String value) throws SystemException {
-		// replace all the commas to dot
-		value = value.replace(',', '.');
-		// final value should be casted to double
-		try {
-			return Double.parseDouble(value);
-		} catch (NumberFormatException nfe) {
-			throw new SystemException(
-					"Failed to enforce the argument value: " + value + " to double");
-		}
+		return codec.toLiteral(enforceValue(datatype, value));
 	}
 	
 	/**
-	 * This method takes a value and returns its string representation in the database
+	 * This method enforces a value to be a datatype specific object, to be
+	 * bound to a query parameter
+	 * @param datatype
 	 * @param value
 	 * @return
+	 * @throws SystemException
 	 */
-	private String cast(Object value) throws SystemException {
-		String valueStr = value.toString();
-		
-		if(!valueStr.matches("^[-+]?\\d+(\\.\\d+)?$")) {
-			if(valueStr.equalsIgnoreCase(MatchConstants.NULL)) {
-				return valueStr;
-			}
-			return "\'" + valueStr + "\'";
-		}
-		return valueStr;
+	public Object enforceValue(String datatype, Object value)  throws SystemException {
+		return codec.enforce(datatype, value);
 	}
-
 }
@@ -0,0 +1,56 @@
+package org.esaude.dmt.util;
+
+/**
+ * This class is a root tree that failed during the translation and was
+ * skipped: its root CURR, the tuple being processed, the last SQL query
+ * generated and the error
+ */
+public class DeadLetter {
+	private final int index;
+	private final Object curr;
+	private final int tupleId;
+	private final String query;
+	private final String error;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param index
+	 *            the index of the root CURR
+	 * @param curr
+	 *            the root CURR, as selected from the source
+	 * @param tupleId
+	 *            the tuple being processed when the tree failed
+	 * @param query
+	 *            the last SQL query generated
+	 * @param error
+	 */
+	public DeadLetter(int index, Object curr, int tupleId, String query,
+			String error) {
+		this.index = index;
+		this.curr = curr;
+		this.tupleId = tupleId;
+		this.query = query;
+		this.error = error;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Object getCurr() {
+		return curr;
+	}
+
+	public int getTupleId() {
+		return tupleId;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,172 @@
+package org.esaude.dmt.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * Tool that keeps the root trees that failed during the translation in a text
+ * file, a line per tree with its fields separated by tabs. The trees are
+ * appended as they fail, so that they can be translated again later. The root
+ * CURR is written along with its type, so that it is read back as it was
+ * selected from the source
+ */
+public class DeadLetterJournal {
+	private static final String SEPARATOR = "\t";
+	private final File file;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param file
+	 *            the text file of the journal
+	 */
+	public DeadLetterJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Append a failed tree to the journal
+	 *
+	 * @param deadLetter
+	 * @throws SystemException
+	 */
+	public synchronized void append(DeadLetter deadLetter)
+			throws SystemException {
+		write(deadLetter);
+	}
+
+	/**
+	 * Read all the failed trees of the journal, in the order they failed
+	 *
+	 * @return
+	 * @throws SystemException
+	 */
+	public synchronized List<DeadLetter> read() throws SystemException {
+		List<DeadLetter> deadLetters = new ArrayList<DeadLetter>();
+
+		if (!file.exists()) {
+			return deadLetters;
+		}
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(file));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String[] fields = line.split(SEPARATOR, 6);
+				if (fields.length < 6) {
+					throw new SystemException("Invalid dead letter: " + line);
+				}
+				deadLetters.add(new DeadLetter(Integer.valueOf(fields[0]),
+						SqlCodec.fromText(fields[1], unescape(fields[2])), Integer
+								.valueOf(fields[3]), fields[4], fields[5]));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to read the dead letters from "
+					+ file);
+		} finally {
+			close(reader);
+		}
+		return deadLetters;
+	}
+
+	/**
+	 * Replace the content of the journal, e.g. by the trees that failed again
+	 *
+	 * @param deadLetters
+	 * @throws SystemException
+	 */
+	public synchronized void rewrite(List<DeadLetter> deadLetters)
+			throws SystemException {
+		if (file.exists() && !file.delete()) {
+			throw new SystemException("Unable to rewrite the dead letters of "
+					+ file);
+		}
+		for (DeadLetter deadLetter : deadLetters) {
+			write(deadLetter);
+		}
+	}
+
+	private void write(DeadLetter deadLetter) throws SystemException {
+		Writer writer = null;
+		try {
+			writer = new FileWriter(file, true);
+			writer.write(deadLetter.getIndex() + SEPARATOR
+					+ SqlCodec.typeOf(deadLetter.getCurr()) + SEPARATOR
+					+ escape(SqlCodec.toText(deadLetter.getCurr())) + SEPARATOR
+					+ deadLetter.getTupleId() + SEPARATOR
+					+ clean(deadLetter.getQuery()) + SEPARATOR
+					+ clean(deadLetter.getError())
+					+ System.getProperty("line.separator"));
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new SystemException("Unable to write the dead letter to "
+					+ file);
+		} finally {
+			close(writer);
+		}
+	}
+
+	/**
+	 * A field must be in a single line and must not contain the separator
+	 *
+	 * @param field
+	 * @return
+	 */
+	private String clean(String field) {
+		return String.valueOf(field).replaceAll("[\\t\\r\\n]+", " ");
+	}
+
+	/**
+	 * The CURR is kept as it is, its tabs and line breaks are escaped
+	 *
+	 * @param text
+	 * @return
+	 */
+	private String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\t", "\\t")
+				.replace("\r", "\\r").replace("\n", "\\n");
+	}
+
+	private String unescape(String text) {
+		StringBuilder unescaped = new StringBuilder(text.length());
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\' && i + 1 < text.length()) {
+				c = text.charAt(++i);
+				if (c == 't') {
+					c = '\t';
+				} else if (c == 'r') {
+					c = '\r';
+				} else if (c == 'n') {
+					c = '\n';
+				}
+			}
+			unescaped.append(c);
+		}
+		return unescaped.toString();
+	}
+
+	private void close(Closeable closeable) {
+		try {
+			if (closeable != null) {
+				closeable.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package org.esaude.dmt.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps the rows of set-based queries grouped by the key they were
+ * selected for, e.g. the rows of a match grouped by the CURR values of a
+ * batch. It allows the translation to be fed from memory instead of issuing
+ * one query per row
+ */
+public class GroupedResults {
+	private final Map<Integer/* Tuple or Match */, Map<String/* key */, List<List<Object>>>> groups = new HashMap<Integer, Map<String, List<List<Object>>>>();
+	private final boolean ignoreCase;// texts compared as the database does
+
+	/**
+	 * Default constructor, texts are compared with their case
+	 */
+	public GroupedResults() {
+		this(false);
+	}
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param ignoreCase
+	 *            whether or not the texts are compared ignoring their case,
+	 *            as the database of the rows compares them
+	 */
+	public GroupedResults(boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+	}
+
+	/**
+	 * Starts a new group for the owner, discarding the previous one. Every key
+	 * prepared here resolves to an empty list until rows are added
+	 *
+	 * @param owner
+	 * @param keys
+	 */
+	public void prepare(Integer owner, Collection<Object> keys) {
+		Map<String, List<List<Object>>> group = new HashMap<String, List<List<Object>>>();
+
+		for (Object key : keys) {
+			if (key != null) {
+				group.put(normalize(key), new ArrayList<List<Object>>());
+			}
+		}
+		groups.put(owner, group);
+	}
+
+	/**
+	 * Add a row to the group of the owner under the given key. Rows of keys
+	 * that were not prepared are ignored
+	 *
+	 * @param owner
+	 * @param key
+	 * @param row
+	 */
+	public void add(Integer owner, Object key, List<Object> row) {
+		Map<String, List<List<Object>>> group = groups.get(owner);
+
+		if (group == null || key == null) {
+			return;
+		}
+		List<List<Object>> rows = group.get(normalize(key));
+
+		if (rows != null) {
+			rows.add(row);
+		}
+	}
+
+	/**
+	 * Retrieve the rows of a key. It returns null when the key was not
+	 * prepared, meaning that the rows must be queried from the database
+	 *
+	 * @param owner
+	 * @param key
+	 * @return
+	 */
+	public List<List<Object>> get(Integer owner, Object key) {
+		Map<String, List<List<Object>>> group = groups.get(owner);
+
+		if (group == null || key == null) {
+			return null;
+		}
+		return group.get(normalize(key));
+	}
+
+	/**
+	 * Discard the group of the owner
+	 *
+	 * @param owner
+	 */
+	public void clear(Integer owner) {
+		groups.remove(owner);
+	}
+
+	/**
+	 * Keys are compared as the database compares the values they were
+	 * selected for. The same number may come as different numeric types, or as
+	 * a numeric text, from different columns, e.g. 1, 1.0 and "1.00" are the
+	 * same key. Booleans are the numbers one (1) and zero (0)
+	 *
+	 * @param key
+	 * @return
+	 */
+	private String normalize(Object key) {
+		if (key instanceof Number) {
+			return normalizeNumber(key.toString());
+		}
+		if (key instanceof Boolean) {
+			return ((Boolean) key).booleanValue() ? "1" : "0";
+		}
+		if (key instanceof Date) {
+			return "#" + ((Date) key).getTime();
+		}
+		String text = key.toString();
+
+		if (SqlCodec.isNumeric(text)) {
+			return normalizeNumber(text);
+		}
+		// texts never look like the numbers or the dates
+		return "'" + (ignoreCase ? text.toLowerCase() : text);
+	}
+
+	private String normalizeNumber(String number) {
+		try {
+			BigDecimal decimal = new BigDecimal(number);
+			// zero keeps its scale when the trailing zeros are stripped
+			return (decimal.signum() == 0) ? "0" : decimal.stripTrailingZeros()
+					.toPlainString();
+		} catch (NumberFormatException e) {
+			return number;// e.g. NaN
+		}
+	}
+}
@@ -7,14 +7,16 @@ import org.esaude.dmt.helper.SystemException;
 
 /**
  * This class create pools of TOPs, it is used to access a TOP value from a
- * tuple that has no parenthood with the TOP that it wants to access the value
+ * tuple that has no parenthood with the TOP that it wants to access the value.
+ * Each translation manager has its own pools, they only hold the TOPs of the
+ * root tree being translated
  * 
  * @author Valrio Joo
  * @since 09-12-2014
  *
  */
 public class KeyPoolUtil {
-	private static final Map<Integer/* Tuple */, Map<Object/* CURR */, Integer/* TOP */>> keyPools = new HashMap<Integer, Map<Object, Integer>>();
+	private final Map<Integer/* Tuple */, Map<Object/* CURR */, Integer/* TOP */>> keyPools = new HashMap<Integer, Map<Object, Integer>>();
 
 	public KeyPoolUtil() {
 		// TODO Auto-generated constructor stub
@@ -62,4 +64,11 @@ public class KeyPoolUtil {
 		}
 		return top;
 	}
+
+	/**
+	 * Remove all the pools, e.g. when a new root tree is translated
+	 */
+	public void clear() {
+		keyPools.clear();
+	}
 }
@@ -0,0 +1,52 @@
+package org.esaude.dmt.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map bounded by a maximum number of entries, the least recently used entry
+ * is evicted when the limit is exceeded
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int maxEntries;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param maxEntries
+	 *            the maximum number of entries kept
+	 */
+	public LruCache(int maxEntries) {
+		super(16, 0.75f, true);// access order
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		if (size() > maxEntries) {
+			onEviction(eldest.getKey(), eldest.getValue());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Called when an entry is evicted, allows the value to release its
+	 * resources
+	 *
+	 * @param key
+	 * @param value
+	 */
+	protected void onEviction(K key, V value) {
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+}
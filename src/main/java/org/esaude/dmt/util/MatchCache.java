@@ -0,0 +1,127 @@
+package org.esaude.dmt.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class memoizes the results of the select queries of matches. A result
+ * is identified by the match and the values bound to its query, so that the
+ * lookups repeated across trees are answered from memory. The least recently
+ * used results are evicted when the size is exceeded. It is safe to be shared
+ * by concurrent translations
+ */
+public class MatchCache {
+	private final LruCache<Key, List<List<Object>>> results;
+	private final Set<Integer> disabledMatches = Collections
+			.synchronizedSet(new HashSet<Integer>());
+	private long hits, misses;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param maxEntries
+	 *            the maximum number of results kept
+	 */
+	public MatchCache(int maxEntries) {
+		results = new LruCache<Key, List<List<Object>>>(maxEntries);
+	}
+
+	/**
+	 * Enable or disable the cache for a match, the results of a disabled match
+	 * are always selected from the database
+	 *
+	 * @param matchId
+	 * @param enabled
+	 */
+	public void setEnabled(Integer matchId, boolean enabled) {
+		if (enabled) {
+			disabledMatches.remove(matchId);
+		} else {
+			disabledMatches.add(matchId);
+		}
+	}
+
+	public boolean isEnabled(Integer matchId) {
+		return !disabledMatches.contains(matchId);
+	}
+
+	/**
+	 * Retrieve the results of a match for the values bound to its query
+	 *
+	 * @param matchId
+	 * @param values
+	 * @return the results, or null if they are not cached
+	 */
+	public synchronized List<List<Object>> get(Integer matchId,
+			List<Object> values) {
+		List<List<Object>> cached = results.get(new Key(matchId, values));
+
+		if (cached == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return cached;
+	}
+
+	/**
+	 * Keep the results of a match for the values bound to its query
+	 *
+	 * @param matchId
+	 * @param values
+	 * @param rows
+	 * @return the results kept, they must not be modified
+	 */
+	public synchronized List<List<Object>> put(Integer matchId,
+			List<Object> values, List<List<Object>> rows) {
+		List<List<Object>> cached = Collections.unmodifiableList(rows);
+
+		results.put(new Key(matchId, values), cached);
+		return cached;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int size() {
+		return results.size();
+	}
+
+	/**
+	 * The key of a result: the match and the values bound to its query
+	 */
+	private static final class Key {
+		private final Integer matchId;
+		private final List<Object> values;
+
+		private Key(Integer matchId, List<Object> values) {
+			this.matchId = matchId;
+			this.values = new ArrayList<Object>(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * matchId.hashCode() + values.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return matchId.equals(other.matchId) && values.equals(other.values);
+		}
+	}
+}
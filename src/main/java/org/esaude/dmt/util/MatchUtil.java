@@ -1,6 +1,7 @@
 package org.esaude.dmt.util;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.ibatis.jdbc.SQL;
 import org.esaude.dmt.helper.MatchConstants;
@@ -13,6 +14,22 @@ import org.esaude.dmt.helper.SystemException;
  *
  */
 public class MatchUtil {
+	private final SqlCodec codec;// values of the queries built here
+	
+	/**
+	 * Default constructor, the queries are executed in MS Access
+	 */
+	public MatchUtil() {
+		this(SqlCodec.ACCESS);
+	}
+	
+	/**
+	 * Parameterized constructor
+	 * @param codec the values of the database of the queries
+	 */
+	public MatchUtil(SqlCodec codec) {
+		this.codec = codec;
+	}
 	
 	/**
 	 * This method builds multiple OR conditions for the same parameter e.g:
@@ -31,6 +48,31 @@ public class MatchUtil {
 			final int referenceIndex, final String[] referencedValues,
 			final String table, final String column, final String operator,
 			final SQL sql) throws SystemException {
+		return assignReferencedValuesWithMultipleOr(referenceIndex,
+				referencedValues, table, column, operator, sql, null);
+	}
+
+	/**
+	 * This method builds multiple OR conditions for the same parameter using
+	 * bind parameters e.g: (name = ? OR name = ?). The values are added to the
+	 * parameters in the order they appear in the condition, they are inlined
+	 * as literals if parameters is null
+	 * 
+	 * @param referenceIndex
+	 * @param referencedValues
+	 * @param table
+	 * @param column
+	 * @param operator
+	 * @param sql
+	 * @param parameters
+	 * @return
+	 * @throws SystemException
+	 */
+	public String assignReferencedValuesWithMultipleOr(
+			final int referenceIndex, final String[] referencedValues,
+			final String table, final String column, final String operator,
+			final SQL sql, final List<Object> parameters)
+			throws SystemException {
 		// in care there is >> condition
 		String orCondition = "";
 
@@ -41,7 +83,7 @@ public class MatchUtil {
 
 			orCondition += table + "." + column +
 					assignReferencedValueOperationForRelationalCondition(
-							referencedValues[i].trim());
+							referencedValues[i].trim(), parameters);
 
 			if (i < referencedValues.length - 1)
 				orCondition += " OR ";
@@ -58,6 +100,24 @@ public class MatchUtil {
 	 */
 	public Object assignReferencedValueOperationForRelationalCondition(
 			final Object referencedValue) throws SystemException {
+		return assignReferencedValueOperationForRelationalCondition(
+				referencedValue, null);
+	}
+
+	/**
+	 * This method splits and assigns the operator and operand values of
+	 * relational conditions using bind parameters e.g. %>=%10 should returns >=
+	 * ? and add 10 to the parameters. The operand is inlined as a literal if
+	 * parameters is null
+	 * 
+	 * @param referencedValue
+	 * @param parameters
+	 * @return
+	 * @throws SystemException
+	 */
+	public Object assignReferencedValueOperationForRelationalCondition(
+			final Object referencedValue, final List<Object> parameters)
+			throws SystemException {
 		final String SPACE = " ";
 		StringBuilder relationalOperation = new StringBuilder("");
 		
@@ -78,7 +138,8 @@ public class MatchUtil {
 			relationalOperation.append(SPACE);
 			relationalOperation.append(splitedRelational[1].trim());
 			relationalOperation.append(SPACE);
-			relationalOperation.append(this.cast(splitedRelational[2].trim()));
+			relationalOperation.append(this.bind(splitedRelational[2].trim(),
+					parameters));
 
 			return relationalOperation.toString();
 		} else if (!Arrays.asList(MatchConstants.ALL, MatchConstants.EQUALS,
@@ -87,7 +148,7 @@ public class MatchUtil {
 				referencedValue)) {
 			// return the referenced value with
 			return SPACE + "=" + SPACE
-					+ this.cast(referencedValue);
+					+ this.bind(referencedValue, parameters);
 		} else {
 			return referencedValue;
 		}
@@ -113,31 +174,44 @@ public class MatchUtil {
 		return referencedValues;
 	}
 	
+	/**
+	 * This method adds a value to the parameters and returns its bind marker,
+	 * the value is inlined as a literal if parameters is null
+	 * 
+	 * @param value
+	 * @param parameters
+	 * @return
+	 * @throws SystemException
+	 */
+	public String bind(Object value, List<Object> parameters)
+			throws SystemException {
+		if (parameters == null) {
+			return this.cast(value);
+		}
+		parameters.add(this.toParameter(value));
+		return "?";
+	}
+
+	/**
+	 * This method takes a value and returns the object to be bound to a
+	 * parameter, the same way {@link #cast(Object)} represents it as a literal:
+	 * numeric strings are bound as numbers and NULL as null
+	 * 
+	 * @param value
+	 * @return
+	 * @throws SystemException
+	 */
+	public Object toParameter(Object value) throws SystemException {
+		return codec.toParameter(value);
+	}
+	
 	/**
 	 * This method takes a value and returns its string representation in the database
 	 * @param value
 	 * @return
 	 */
 	public String cast(Object value) throws SystemException {
-		if(value == null) {
-			throw new SystemException("Invalid database value to cast");
-		}
-		
-		String valueStr = value.toString();
-		
-		if(value instanceof java.util.Date) {
-			String valueDateStr = valueStr.substring(0, valueStr.lastIndexOf('.'));
-			
-			return "#" + valueDateStr + "#";
-		}
-		
-		if(!valueStr.matches("^[-+]?\\d+(\\.\\d+)?$")) {
-			if(valueStr.equalsIgnoreCase(MatchConstants.NULL)) {
-				return valueStr;
-			}
-			return "\'" + valueStr + "\'";
-		}
-		return valueStr;
+		return codec.toLiteral(value);
 	}
 
 }
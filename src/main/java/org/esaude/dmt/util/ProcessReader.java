@@ -9,6 +9,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -23,6 +25,8 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.transform.Result;
 
 import org.esaude.dmt.App;
+import org.esaude.dmt.config.schema.Config;
+import org.esaude.dmt.helper.ProcessStatuses;
 import org.esaude.dmt.process.schema.Process;
 
 /**
@@ -34,15 +38,37 @@ import org.esaude.dmt.process.schema.Process;
  *
  */
 public final class ProcessReader {
+	// number of journal records that triggers the compaction into process.xml
+	private static final int COMPACTION_SIZE = 10000;
 	private static ProcessReader instance;
 	private JAXBContext jaxbContext;
+	private CheckpointJournal journal;// null = process.xml is rewritten
+	private final String path;// the directory of the process files
 
 	private ProcessReader() {
+		this(App.MAIN_PATH, ConfigReader.getInstance().getConfig());
+	}
+	
+	/**
+	 * Parameterized constructor, the process files are kept in the given
+	 * directory instead of the resources folder, e.g. in the tests
+	 * @param path
+	 * @param config
+	 */
+	public ProcessReader(final String path, final Config config) {
+		this.path = path;
 		try {
 			jaxbContext = JAXBContext.newInstance("org.esaude.dmt.process.schema");
 		} catch (JAXBException e) {
 			e.printStackTrace();
 		}
+		
+		if (config != null && Boolean.TRUE.equals(config.isCheckpointJournal())) {
+			journal = new CheckpointJournal(new File(path
+					+ "/process.journal"),
+					(config.getCheckpointSyncSize() != null) ? config
+							.getCheckpointSyncSize().intValue() : 1);
+		}
 	}
 	
 	/**
@@ -57,46 +83,110 @@ public final class ProcessReader {
 		return instance;
 	}
 	
+	/**
+	 * @return the directory of the process files
+	 */
+	public String getPath() {
+		return path;
+	}
+	
 	/**
 	 * Used to get the configuration objects
 	 * @return
 	 */
-	public Process getProcess() {
+	public synchronized Process getProcess() {
 
 		Process process = null;
 		try {
 			Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-			process  = (Process) jaxbUnmarshaller.unmarshal(new FileInputStream(App.MAIN_PATH + "/process.xml"));
+			process  = (Process) jaxbUnmarshaller.unmarshal(new FileInputStream(path + "/process.xml"));
 
 		} catch (JAXBException | FileNotFoundException e) {
 			e.printStackTrace();
 		}
+		// the journal holds the records written after process.xml
+		if (journal != null && process != null) {
+			try {
+				CheckpointJournal.Position position = journal.replay();
+				
+				if (position != null) {
+					process.setLastStopPoint(BigInteger.valueOf(position.getStop()));
+					process.setLastStopDate(toXmlDate(position.getDate()));
+					process.setLastStopStatus(position.isRunning() ? ProcessStatuses.RUNNING
+							: position.getStatus());
+					process.setLastStopKey(toKey(position.getKey()));
+					process.setLastStopKeyType(toKeyType(position.getKey()));
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 		return process;
 	}
 	
+	/**
+	 * Append a checkpoint of the root trees committed so far to the journal.
+	 * It does nothing if the journal is disabled, the position is then only
+	 * recorded when the process stops
+	 * @param stop
+	 * @param key the key of the last root CURR committed
+	 */
+	public synchronized void checkpoint(Integer stop, Object key) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.checkpoint(stop, key);
+			
+			if (journal.getRecordCount() >= COMPACTION_SIZE) {
+				compact(getProcess());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
 	/**
 	 * Write the process stop information to process.xml file
 	 * @param stop
 	 * @param status
 	 */
 	public void recordProcess(Integer stop, Date date, String status) {
-		
-		GregorianCalendar c = new GregorianCalendar();
-		c.setTime(date);
-		XMLGregorianCalendar xmlDate = null;
-		try {
-			xmlDate = DatatypeFactory.newInstance().newXMLGregorianCalendar(c);
-		} catch (DatatypeConfigurationException e) {
-			e.printStackTrace();
+		recordProcess(stop, null, date, status);
+	}
+	
+	/**
+	 * Write the process stop information to process.xml file, with the key of
+	 * the last root CURR committed and its type
+	 * @param stop
+	 * @param key
+	 * @param status
+	 */
+	public synchronized void recordProcess(Integer stop, Object key, Date date, String status) {
+		// the status is appended to the journal, process.xml is only rewritten
+		// when the journal is compacted
+		if (journal != null) {
+			try {
+				journal.status(stop, key, date, status);
+				
+				if (journal.getRecordCount() >= COMPACTION_SIZE) {
+					compact(getProcess());
+				}
+				return;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
         
 		Process process = new Process();
 		process.setLastStopPoint(new BigInteger(stop.toString()));
-		process.setLastStopDate(xmlDate);
+		process.setLastStopDate(toXmlDate(date));
 		process.setLastStopStatus(status);
+		process.setLastStopKey(toKey(key));
+		process.setLastStopKeyType(toKeyType(key));
 		
 		try {
-			File file = new File(App.MAIN_PATH + "/process.xml");
+			File file = new File(path + "/process.xml");
 			Marshaller m = jaxbContext.createMarshaller();
 			m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 			m.marshal(process, file);
@@ -105,4 +195,57 @@ public final class ProcessReader {
 		}
 		
 	}
+	
+	/**
+	 * Write the replayed position to process.xml and empty the journal. The
+	 * new file replaces the old one at once, so a crash never leaves
+	 * process.xml half written
+	 * @param process
+	 * @throws IOException
+	 */
+	private void compact(Process process) throws IOException {
+		if (process == null) {
+			return;
+		}
+		File file = new File(path + "/process.xml");
+		File temp = new File(path + "/process.xml.tmp");
+		try {
+			Marshaller m = jaxbContext.createMarshaller();
+			m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+			m.marshal(process, temp);
+		} catch (JAXBException e) {
+			e.printStackTrace();
+			return;
+		}
+		Files.move(temp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		journal.truncate();
+	}
+	
+	private String toKey(Object key) {
+		return (key == null) ? null : SqlCodec.toText(key);
+	}
+	
+	/**
+	 * The type of the key is recorded with it, so that a key of a VARCHAR
+	 * column made of digits is not read back as a number
+	 * @param key
+	 * @return
+	 */
+	private String toKeyType(Object key) {
+		return (key == null) ? null : SqlCodec.typeOf(key);
+	}
+	
+	private XMLGregorianCalendar toXmlDate(Date date) {
+		GregorianCalendar c = new GregorianCalendar();
+		c.setTime(date);
+		XMLGregorianCalendar xmlDate = null;
+		try {
+			xmlDate = DatatypeFactory.newInstance().newXMLGregorianCalendar(c);
+		} catch (DatatypeConfigurationException e) {
+			e.printStackTrace();
+		}
+		return xmlDate;
+	}
 }
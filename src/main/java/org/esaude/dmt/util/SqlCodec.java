@@ -0,0 +1,400 @@
+package org.esaude.dmt.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+
+import org.esaude.dmt.helper.MatchConstants;
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.datatypemapping.DatatypeMappingReader;
+
+/**
+ * This class converts the values of the translation to SQL: literals written
+ * in the queries, objects bound to the parameters of prepared statements and
+ * values enforced to the datatype of a column. The datatypes are the ones of
+ * the datatype mapping file, a datatype is converted as the head of its line.
+ * Numbers are recognized without regular expressions and the literals are
+ * written without intermediate strings, as this is done for every value of
+ * every row. The values kept in text files, e.g. the key of the process
+ * position, are written with their type so that they are read back as they
+ * were selected
+ */
+public final class SqlCodec {
+	/**
+	 * Values of MS Access, dates are written as #yyyy-MM-dd HH:mm:ss#
+	 */
+	public static final SqlCodec ACCESS = new SqlCodec('#');
+	/**
+	 * Values of standard SQL databases, e.g. MySQL, dates are written as
+	 * 'yyyy-MM-dd HH:mm:ss'
+	 */
+	public static final SqlCodec STANDARD = new SqlCodec('\'');
+
+	private static DatatypeMappingReader datatypes;// loaded once
+
+	private final char dateQuote;
+	// the calendar used to write dates, one per thread
+	private final ThreadLocal<Calendar> calendar = new ThreadLocal<Calendar>() {
+		@Override
+		protected Calendar initialValue() {
+			return Calendar.getInstance();
+		}
+	};
+
+	private SqlCodec(char dateQuote) {
+		this.dateQuote = dateQuote;
+	}
+
+	/**
+	 * This method takes a value and returns its string representation in the
+	 * database
+	 *
+	 * @param value
+	 * @return
+	 * @throws SystemException
+	 */
+	public String toLiteral(Object value) throws SystemException {
+		if (value == null) {
+			throw new SystemException("Invalid database value to cast");
+		}
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).toPlainString();
+		}
+		if (value instanceof Number) {
+			return value.toString();
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue() ? "1" : "0";
+		}
+		if (value instanceof java.util.Date) {
+			StringBuilder literal = new StringBuilder(21);
+			literal.append(dateQuote);
+			appendDate(literal, (java.util.Date) value);
+			return literal.append(dateQuote).toString();
+		}
+		String valueStr = value.toString();
+
+		if (isNumeric(valueStr) || valueStr.equalsIgnoreCase(MatchConstants.NULL)) {
+			return valueStr;
+		}
+		return quote(valueStr);
+	}
+
+	/**
+	 * This method takes a value and returns the object to be bound to a
+	 * parameter, the same way {@link #toLiteral(Object)} represents it as a
+	 * literal: numeric strings are bound as numbers and NULL as null
+	 *
+	 * @param value
+	 * @return
+	 * @throws SystemException
+	 */
+	public Object toParameter(Object value) throws SystemException {
+		if (value == null) {
+			throw new SystemException("Invalid database value to bind");
+		}
+		if (!(value instanceof String)) {
+			return value;
+		}
+		String valueStr = (String) value;
+
+		if (isNumeric(valueStr)) {
+			return new BigDecimal(valueStr);
+		}
+		if (valueStr.equalsIgnoreCase(MatchConstants.NULL)) {
+			return null;
+		}
+		return valueStr;
+	}
+
+	/**
+	 * This method enforces a value to be an object of the datatype of a
+	 * column. DOUBLE values are enforced as doubles and DECIMAL values as
+	 * exact decimals, both may use a comma as decimal separator
+	 *
+	 * @param datatype
+	 *            the datatype of the column, as in the datatype mapping file
+	 * @param value
+	 * @return
+	 * @throws SystemException
+	 */
+	public Object enforce(String datatype, Object value)
+			throws SystemException {
+		// value should not be null
+		if (value == null) {
+			throw new SystemException("The enforced value is null");
+		}
+		String head = headOf(datatype);
+
+		if (head.equalsIgnoreCase(MatchConstants.DOUBLE)) {
+			return toDouble(value);
+		}
+		if (head.equalsIgnoreCase("DECIMAL")) {
+			return toDecimal(value);
+		}
+		return value;
+	}
+
+	/**
+	 * This method binds a value to a parameter of a prepared statement based
+	 * on its type
+	 *
+	 * @param ps
+	 * @param index
+	 *            the index of the parameter, starting at one (1)
+	 * @param parameter
+	 * @throws SQLException
+	 */
+	public void bind(PreparedStatement ps, int index, Object parameter)
+			throws SQLException {
+		if (parameter == null) {
+			ps.setNull(index, Types.VARCHAR);
+		} else if (parameter instanceof String) {
+			ps.setString(index, (String) parameter);
+		} else if (parameter instanceof Integer) {
+			ps.setInt(index, (Integer) parameter);
+		} else if (parameter instanceof java.sql.Date) {
+			ps.setDate(index, (java.sql.Date) parameter);
+		} else if (parameter instanceof Timestamp) {
+			ps.setTimestamp(index, (Timestamp) parameter);
+		} else if (parameter instanceof java.util.Date) {
+			ps.setTimestamp(index, new Timestamp(
+					((java.util.Date) parameter).getTime()));
+		} else if (parameter instanceof Boolean) {
+			ps.setBoolean(index, (Boolean) parameter);
+		} else if (parameter instanceof Long) {
+			ps.setLong(index, (Long) parameter);
+		} else if (parameter instanceof Double) {
+			ps.setDouble(index, (Double) parameter);
+		} else if (parameter instanceof Float) {
+			ps.setFloat(index, (Float) parameter);
+		} else if (parameter instanceof BigDecimal) {
+			ps.setBigDecimal(index, (BigDecimal) parameter);
+		} else if (parameter instanceof byte[]) {
+			ps.setBytes(index, (byte[]) parameter);
+		} else {
+			ps.setObject(index, parameter);
+		}
+	}
+
+	/**
+	 * Whether or not the text is an integer or decimal number, e.g. -12 or
+	 * +1.5
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static boolean isNumeric(CharSequence text) {
+		final int length = text.length();
+		int i = 0;
+
+		if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			i++;
+		}
+		final int integerStart = i;
+		while (i < length && Character.isDigit(text.charAt(i))) {
+			i++;
+		}
+		if (i == integerStart) {
+			return false;
+		}
+		if (i == length) {
+			return true;
+		}
+		if (text.charAt(i) != '.') {
+			return false;
+		}
+		final int fractionStart = ++i;
+		while (i < length && Character.isDigit(text.charAt(i))) {
+			i++;
+		}
+		return i > fractionStart && i == length;
+	}
+
+	/**
+	 * The type of a value, as it is written in a text file with the value. The
+	 * types that cannot be read back are written as text
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static String typeOf(Object value) {
+		if (value == null) {
+			return "null";
+		}
+		if (value instanceof Number || value instanceof Boolean
+				|| value instanceof java.util.Date) {
+			return value.getClass().getName();
+		}
+		return String.class.getName();
+	}
+
+	/**
+	 * The text of a value, dates that are not SQL dates are written as their
+	 * milliseconds
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static String toText(Object value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.getClass() == java.util.Date.class) {
+			return String.valueOf(((java.util.Date) value).getTime());
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Read a value back from its type and text, see {@link #typeOf(Object)}
+	 * and {@link #toText(Object)}
+	 *
+	 * @param type
+	 * @param text
+	 * @return
+	 * @throws SystemException
+	 */
+	public static Object fromText(String type, String text)
+			throws SystemException {
+		try {
+			if (type.equals("null")) {
+				return null;
+			} else if (type.equals(String.class.getName())) {
+				return text;
+			} else if (type.equals(Integer.class.getName())) {
+				return Integer.valueOf(text);
+			} else if (type.equals(Long.class.getName())) {
+				return Long.valueOf(text);
+			} else if (type.equals(Short.class.getName())) {
+				return Short.valueOf(text);
+			} else if (type.equals(Byte.class.getName())) {
+				return Byte.valueOf(text);
+			} else if (type.equals(BigInteger.class.getName())) {
+				return new BigInteger(text);
+			} else if (type.equals(BigDecimal.class.getName())) {
+				return new BigDecimal(text);
+			} else if (type.equals(Double.class.getName())) {
+				return Double.valueOf(text);
+			} else if (type.equals(Float.class.getName())) {
+				return Float.valueOf(text);
+			} else if (type.equals(Boolean.class.getName())) {
+				return Boolean.valueOf(text);
+			} else if (type.equals(Timestamp.class.getName())) {
+				return Timestamp.valueOf(text);
+			} else if (type.equals(java.sql.Date.class.getName())) {
+				return java.sql.Date.valueOf(text);
+			} else if (type.equals(Time.class.getName())) {
+				return Time.valueOf(text);
+			} else if (type.equals(java.util.Date.class.getName())) {
+				return new java.util.Date(Long.parseLong(text));
+			}
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+		}
+		throw new SystemException("Invalid value of type " + type + ": "
+				+ text);
+	}
+
+	/**
+	 * The head of the line of a datatype in the datatype mapping file, the
+	 * datatype itself if it is not in the file
+	 *
+	 * @param datatype
+	 * @return
+	 */
+	private static synchronized String headOf(String datatype) {
+		if (datatypes == null) {
+			datatypes = new DatatypeMappingReader().process();
+		}
+		String head = datatypes.getHead(datatype);
+		return (head != null) ? head : datatype;
+	}
+
+	private Double toDouble(Object value) throws SystemException {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		// replace all the commas to dot
+		String valueStr = value.toString().replace(',', '.');
+		// final value should be casted to double
+		try {
+			return Double.parseDouble(valueStr);
+		} catch (NumberFormatException nfe) {
+			throw new SystemException("Failed to enforce the argument value: "
+					+ value + " to double");
+		}
+	}
+
+	private BigDecimal toDecimal(Object value) throws SystemException {
+		if (value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		if (value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte) {
+			return BigDecimal.valueOf(((Number) value).longValue());
+		}
+		// replace all the commas to dot, the digits are kept as written
+		String valueStr = value.toString().replace(',', '.');
+		try {
+			return new BigDecimal(valueStr);
+		} catch (NumberFormatException nfe) {
+			throw new SystemException("Failed to enforce the argument value: "
+					+ value + " to decimal");
+		}
+	}
+
+	/**
+	 * Quote a text, the quotes inside it are doubled
+	 *
+	 * @param text
+	 * @return
+	 */
+	private String quote(String text) {
+		if (text.indexOf('\'') < 0) {
+			return new StringBuilder(text.length() + 2).append('\'')
+					.append(text).append('\'').toString();
+		}
+		StringBuilder literal = new StringBuilder(text.length() + 8);
+		literal.append('\'');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\'') {
+				literal.append('\'');
+			}
+			literal.append(c);
+		}
+		return literal.append('\'').toString();
+	}
+
+	/**
+	 * Write a date as yyyy-MM-dd HH:mm:ss
+	 *
+	 * @param literal
+	 * @param date
+	 */
+	private void appendDate(StringBuilder literal, java.util.Date date) {
+		Calendar c = calendar.get();
+		c.setTime(date);
+		pad(literal, c.get(Calendar.YEAR), 4).append('-');
+		pad(literal, c.get(Calendar.MONTH) + 1, 2).append('-');
+		pad(literal, c.get(Calendar.DAY_OF_MONTH), 2).append(' ');
+		pad(literal, c.get(Calendar.HOUR_OF_DAY), 2).append(':');
+		pad(literal, c.get(Calendar.MINUTE), 2).append(':');
+		pad(literal, c.get(Calendar.SECOND), 2);
+	}
+
+	private StringBuilder pad(StringBuilder literal, int value, int width) {
+		for (int i = 1, limit = 10; i < width; i++, limit *= 10) {
+			if (value < limit) {
+				literal.append('0');
+			}
+		}
+		return literal.append(value);
+	}
+}
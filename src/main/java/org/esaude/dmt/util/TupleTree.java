@@ -47,6 +47,24 @@ public class TupleTree {
 		return t;
 	}
 
+	/**
+	 * Creates a copy of this tree sharing the same tuples, so that the CURR and
+	 * TOP values of the copy can be set independently
+	 * 
+	 * @return
+	 */
+	public TupleTree copy() {
+		TupleTree t = new TupleTree(head);
+		copyLeafs(this, t);
+		return t;
+	}
+
+	private static void copyLeafs(TupleTree from, TupleTree to) {
+		for (TupleTree leaf : from.leafs) {
+			copyLeafs(leaf, to.addLeaf(leaf.head));
+		}
+	}
+
 	public TupleType getHead() {
 		return head;
 	}
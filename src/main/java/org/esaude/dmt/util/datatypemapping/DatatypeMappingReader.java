@@ -49,6 +49,10 @@ public final class DatatypeMappingReader {
 		headMappings = new HashMap<String, DatatypeMapping>();
 		//read CSV file top down
 		String line = null;
+		// the file was not found
+		if (br == null) {
+			return this;
+		}
 		try {
 			while ((line = br.readLine()) != null) {
 				// use comma as separator
@@ -77,6 +81,20 @@ public final class DatatypeMappingReader {
 		return this;
 	}
 	
+	/**
+	 * Get the head of the line of a datatype, a datatype that heads a line is
+	 * its own head
+	 * @param datatype
+	 * @return the head or null if the datatype is not in the CSV
+	 */
+	public String getHead(String datatype) {
+		if (headMappings.containsKey(datatype)) {
+			return datatype;
+		}
+		DatatypeMapping currentMapping = currentMappings.get(datatype);
+		return (currentMapping != null) ? currentMapping.getHead() : null;
+	}
+	
 	/**
 	 * Verifies whether or not the right datatype matches with the left datatype
 	 * @param left
@@ -0,0 +1,176 @@
+package org.esaude.dmt.util.plan;
+
+import org.esaude.dmt.helper.MatchConstants;
+import org.esaude.matchingschema.MatchType;
+
+/**
+ * This class is a compiled column of an insert query: it says where the value
+ * of the column comes from. The rules of the default value of a match are
+ * parsed once, when the plan is compiled
+ */
+public final class ColumnPlan {
+	/**
+	 * The source of the value of a column
+	 */
+	public enum Kind {
+		ALLOCATED_PK, // the PK allocated in the client side
+		VALUE, // a constant or a value of the tree
+		LITERAL, // a SQL expression, it is not a parameter
+		UUID, // the UUID of the insert
+		MATCH // the value selected by a match
+	}
+
+	private final Kind kind;
+	private final String column;
+	private final Object value;
+	private final MatchType match;
+	private final QueryPlan select;
+	private final boolean bound;
+	private final boolean skipWhenTrue;
+	private final boolean skipWhenFalse;
+	private final boolean skipWhenNull;
+	private final boolean hasNullValue;
+	private final Integer valueMatchGroup;
+
+	private ColumnPlan(Kind kind, String column, Object value,
+			MatchType match, QueryPlan select, boolean bound,
+			boolean skipWhenTrue, boolean skipWhenFalse, boolean skipWhenNull,
+			boolean hasNullValue, Integer valueMatchGroup) {
+		this.kind = kind;
+		this.column = column;
+		this.value = value;
+		this.match = match;
+		this.select = select;
+		this.bound = bound;
+		this.skipWhenTrue = skipWhenTrue;
+		this.skipWhenFalse = skipWhenFalse;
+		this.skipWhenNull = skipWhenNull;
+		this.hasNullValue = hasNullValue;
+		this.valueMatchGroup = valueMatchGroup;
+	}
+
+	/**
+	 * @param column
+	 * @return a column whose value is the PK allocated for the insert
+	 */
+	public static ColumnPlan allocatedPk(String column) {
+		return new ColumnPlan(Kind.ALLOCATED_PK, column, null, null, null,
+				true, false, false, false, false, null);
+	}
+
+	/**
+	 * @param column
+	 * @param value
+	 *            a parameter value or a {@link PlanValue }
+	 * @return a column whose value is known when the plan is compiled
+	 */
+	public static ColumnPlan value(String column, Object value) {
+		return new ColumnPlan(Kind.VALUE, column, value, null, null, true,
+				false, false, false, false, null);
+	}
+
+	/**
+	 * @param column
+	 * @param sql
+	 * @return a column whose value is a SQL expression, e.g. NOW()
+	 */
+	public static ColumnPlan literal(String column, String sql) {
+		return new ColumnPlan(Kind.LITERAL, column, sql, null, null, true,
+				false, false, false, false, null);
+	}
+
+	/**
+	 * @param column
+	 * @return a column whose value is the UUID of the insert
+	 */
+	public static ColumnPlan uuid(String column) {
+		return new ColumnPlan(Kind.UUID, column, null, null, null, true,
+				false, false, false, false, null);
+	}
+
+	/**
+	 * @param match
+	 *            a match with right side
+	 * @param select
+	 *            the query of the right side
+	 * @param nullValue
+	 *            the parameter value used when nothing is selected
+	 * @return a column whose value is selected by a match
+	 */
+	public static ColumnPlan match(MatchType match, QueryPlan select,
+			Object nullValue) {
+		String defaultValue = match.getDefaultValue().toString();
+		boolean skipWhenTrue = defaultValue.equals(MatchConstants.AI_SKIP_TRUE);
+		boolean skipWhenFalse = defaultValue
+				.equals(MatchConstants.AI_SKIP_FALSE);
+		boolean now = defaultValue.equals(MatchConstants.NOW);
+		boolean notRequired = match.getRight().isIsRequired()
+				.equals(MatchConstants.NO);
+
+		return new ColumnPlan(Kind.MATCH, match.getLeft().getColumn(),
+				nullValue, match, select,
+				!(skipWhenTrue || skipWhenFalse)/* only checks the value */,
+				skipWhenTrue, skipWhenFalse,
+				defaultValue.equals(MatchConstants.SKIP), now || notRequired,
+				match.getValueMatchId().equals(MatchConstants.NA) ? null
+						: Integer.valueOf(match.getValueMatchId().toString()));
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * @return the value of a VALUE column, the expression of a LITERAL column
+	 *         or the value used when a MATCH column selects nothing
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	public MatchType getMatch() {
+		return match;
+	}
+
+	public QueryPlan getSelect() {
+		return select;
+	}
+
+	/**
+	 * @return whether or not the column is in the insert, the AI/SKIP matches
+	 *         only check their value
+	 */
+	public boolean isBound() {
+		return bound;
+	}
+
+	public boolean isSkipWhenTrue() {
+		return skipWhenTrue;
+	}
+
+	public boolean isSkipWhenFalse() {
+		return skipWhenFalse;
+	}
+
+	public boolean isSkipWhenNull() {
+		return skipWhenNull;
+	}
+
+	/**
+	 * @return whether or not the value is used when nothing is selected
+	 */
+	public boolean hasNullValue() {
+		return hasNullValue;
+	}
+
+	/**
+	 * @return the value match group, null if the match has none
+	 */
+	public Integer getValueMatchGroup() {
+		return valueMatchGroup;
+	}
+}
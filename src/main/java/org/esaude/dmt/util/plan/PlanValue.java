@@ -0,0 +1,73 @@
+package org.esaude.dmt.util.plan;
+
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.TupleTree;
+
+/**
+ * This class is a placeholder, in a compiled plan, for a value that is only
+ * known during the translation: the CURR or the TOP of a tuple of the tree
+ */
+public final class PlanValue {
+	/**
+	 * The kind of value of a tuple
+	 */
+	public enum Type {
+		CURR, TOP
+	}
+
+	private final Type type;
+	private final Integer tupleId;
+
+	private PlanValue(Type type, Integer tupleId) {
+		this.type = type;
+		this.tupleId = tupleId;
+	}
+
+	/**
+	 * @param tupleId
+	 * @return the placeholder of the CURR of a tuple
+	 */
+	public static PlanValue curr(Integer tupleId) {
+		return new PlanValue(Type.CURR, tupleId);
+	}
+
+	/**
+	 * @param tupleId
+	 * @return the placeholder of the TOP of a tuple
+	 */
+	public static PlanValue top(Integer tupleId) {
+		return new PlanValue(Type.TOP, tupleId);
+	}
+
+	/**
+	 * Retrieve the current value of the tuple in the given tree
+	 *
+	 * @param tree
+	 *            any node of the tree being translated
+	 * @return
+	 * @throws SystemException
+	 */
+	public Object resolve(TupleTree tree) throws SystemException {
+		TupleTree tupleTree = tree.getTree(tupleId);
+
+		if (tupleTree == null) {
+			throw new SystemException("The tuple " + tupleId
+					+ " is not in the tree of tuple "
+					+ tree.getHead().getId());
+		}
+		return (type == Type.CURR) ? tupleTree.getCurr() : tupleTree.getTop();
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Integer getTupleId() {
+		return tupleId;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + type + " of tuple " + tupleId + "]";
+	}
+}
@@ -0,0 +1,80 @@
+package org.esaude.dmt.util.plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.MatchUtil;
+import org.esaude.dmt.util.TupleTree;
+
+/**
+ * This class is a compiled query: its SQL and the sources of its parameters,
+ * in order. A source is either a constant, already converted to its
+ * parameter value, or a {@link PlanValue } resolved when the query is bound
+ */
+public final class QueryPlan {
+	private final String sql;
+	private final List<Object> parameters;
+	private final boolean invariant;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param sql
+	 * @param parameters
+	 *            the sources of the parameters
+	 */
+	public QueryPlan(String sql, List<Object> parameters) {
+		this.sql = sql;
+		this.parameters = Collections.unmodifiableList(new ArrayList<Object>(
+				parameters));
+		boolean invariant = true;
+		for (Object parameter : parameters) {
+			if (parameter instanceof PlanValue) {
+				invariant = false;
+			}
+		}
+		this.invariant = invariant;
+	}
+
+	/**
+	 * Resolve the parameters of the query for the current values of the tree
+	 *
+	 * @param tree
+	 *            the tree being translated
+	 * @param matchUtil
+	 * @return
+	 * @throws SystemException
+	 */
+	public List<Object> bind(TupleTree tree, MatchUtil matchUtil)
+			throws SystemException {
+		List<Object> values = new ArrayList<Object>(parameters.size());
+
+		for (Object parameter : parameters) {
+			if (parameter instanceof PlanValue) {
+				values.add(matchUtil.toParameter(((PlanValue) parameter)
+						.resolve(tree)));
+			} else {
+				values.add(parameter);
+			}
+		}
+		return values;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return true if no parameter depends on the values of the tree, i.e. the
+	 *         query returns the same rows for every CURR
+	 */
+	public boolean isInvariant() {
+		return invariant;
+	}
+}
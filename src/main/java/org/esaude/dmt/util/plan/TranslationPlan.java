@@ -0,0 +1,45 @@
+package org.esaude.dmt.util.plan;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.esaude.dmt.helper.SystemException;
+
+/**
+ * This class is the compiled translation of a tree of tuples. It is built once
+ * after the validation and shared, read-only, by the whole translation
+ */
+public final class TranslationPlan {
+	private final Map<Integer/* Tuple */, TuplePlan> tuplePlans;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param tuplePlans
+	 */
+	public TranslationPlan(Map<Integer, TuplePlan> tuplePlans) {
+		this.tuplePlans = Collections
+				.unmodifiableMap(new HashMap<Integer, TuplePlan>(tuplePlans));
+	}
+
+	/**
+	 * Retrieve the plan of a tuple
+	 *
+	 * @param tupleId
+	 * @return
+	 * @throws SystemException
+	 */
+	public TuplePlan get(Integer tupleId) throws SystemException {
+		TuplePlan tuplePlan = tuplePlans.get(tupleId);
+
+		if (tuplePlan == null) {
+			throw new SystemException("There is no plan for tuple " + tupleId);
+		}
+		return tuplePlan;
+	}
+
+	public int size() {
+		return tuplePlans.size();
+	}
+}
@@ -0,0 +1,63 @@
+package org.esaude.dmt.util.plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.esaude.matchingschema.TupleType;
+
+/**
+ * This class is the compiled plan of a tuple: the query of its CURRs, the
+ * insert query and where each of its values comes from
+ */
+public final class TuplePlan {
+	private final TupleType tuple;
+	private final QueryPlan currsQuery;
+	private final String insertQuery;
+	private final List<ColumnPlan> columns;
+	private final String allocatedPkColumn;
+
+	/**
+	 * Parameterized constructor
+	 *
+	 * @param tuple
+	 * @param currsQuery
+	 * @param insertQuery
+	 *            the insert with a parameter per bound column
+	 * @param columns
+	 *            the columns in the order of the parameters
+	 * @param allocatedPkColumn
+	 *            the PK column whose value is allocated in the client side,
+	 *            null if none
+	 */
+	public TuplePlan(TupleType tuple, QueryPlan currsQuery,
+			String insertQuery, List<ColumnPlan> columns,
+			String allocatedPkColumn) {
+		this.tuple = tuple;
+		this.currsQuery = currsQuery;
+		this.insertQuery = insertQuery;
+		this.columns = Collections.unmodifiableList(new ArrayList<ColumnPlan>(
+				columns));
+		this.allocatedPkColumn = allocatedPkColumn;
+	}
+
+	public TupleType getTuple() {
+		return tuple;
+	}
+
+	public QueryPlan getCurrsQuery() {
+		return currsQuery;
+	}
+
+	public String getInsertQuery() {
+		return insertQuery;
+	}
+
+	public List<ColumnPlan> getColumns() {
+		return columns;
+	}
+
+	public String getAllocatedPkColumn() {
+		return allocatedPkColumn;
+	}
+}
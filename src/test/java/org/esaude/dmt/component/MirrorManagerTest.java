@@ -0,0 +1,100 @@
+package org.esaude.dmt.component;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.esaude.dmt.dao.SourceMirror;
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.MatchBuilder;
+import org.esaude.dmt.util.ReferenceBuilder;
+import org.esaude.dmt.util.TupleBuilder;
+import org.esaude.dmt.util.TupleTree;
+import org.esaude.dmt.util.log.EventCode;
+import org.esaude.dmt.util.log.LogWriter;
+import org.esaude.matchingschema.MatchType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MirrorManager }
+ */
+public class MirrorManagerTest {
+	private TupleTree tree;
+	private List<String> executed;
+	private SourceMirror mirror;
+
+	@Before
+	public void setUp() throws Exception {
+		tree = new TupleBuilder()
+				.createTuple(1, "personal", "person", "personal data", null)
+				.createTuple(2, "address", "person_address", "address data",
+						1).process();
+		// the PK match of the root reads the CURRs of the patients
+		MatchType pk = match(1, "t_paciente", "nid");
+		pk.setReferences(new ReferenceBuilder()
+				.createReference(1, "INT", 10, "patient", 0)
+				.createReferenceSide("t_paciente", "nid", "referencee")
+				.createReferenceSide("t_paciente", "estado", "referenced")
+				.createReferencedValue("ACTIVE").processMap());
+		tree.getHead().getMatches().add(pk);
+		tree.getHead().getMatches().add(match(2, "t_paciente", "sexo"));
+		// the address is selected by the CURR of the patient
+		MatchType address = match(3, "t_endereco", "rua");
+		address.setReferences(new ReferenceBuilder()
+				.createReference(1, "INT", 10, "address", 0)
+				.createReferenceSide("t_endereco", "nid", "referenced")
+				.createReferencedValue("CURR").processMap());
+		tree.getTree(2).getHead().getMatches().add(address);
+
+		executed = new ArrayList<String>();
+		mirror = new SourceMirror(null, null, null, 1) {
+			@Override
+			public int copy(String table) throws SystemException {
+				executed.add("copy " + table);
+				return 0;
+			}
+
+			@Override
+			public void index(String table, String column)
+					throws SystemException {
+				executed.add("index " + table + "." + column);
+			}
+		};
+	}
+
+	@Test
+	public void testTablesAndColumnsOfReferences() {
+		MirrorManager manager = new MirrorManager(tree, mirror,
+				LogWriter.getWriter(), new EventCode());
+
+		assertEquals(Arrays.asList("t_paciente", "t_endereco"),
+				new ArrayList<String>(manager.getTables().keySet()));
+		assertEquals(new LinkedHashSet<String>(Arrays.asList("nid", "estado")),
+				manager.getTables().get("t_paciente"));
+		assertEquals(new LinkedHashSet<String>(Arrays.asList("nid")), manager
+				.getTables().get("t_endereco"));
+	}
+
+	@Test
+	public void testTablesAreCopiedBeforeIndexed() throws SystemException {
+		MirrorManager manager = new MirrorManager(tree, mirror,
+				LogWriter.getWriter(), new EventCode());
+
+		assertTrue(manager.execute());
+		assertEquals(Arrays.asList("copy t_paciente", "index t_paciente.nid",
+				"index t_paciente.estado", "copy t_endereco",
+				"index t_endereco.nid"), executed);
+	}
+
+	private MatchType match(Integer id, String table, String column)
+			throws SystemException {
+		return new MatchBuilder()
+				.createMatch(1, id, "match", null, null, "NO", null)
+				.createMatchSide(table, column, "VARCHAR", 10, "NO", "right")
+				.getMatch();
+	}
+}
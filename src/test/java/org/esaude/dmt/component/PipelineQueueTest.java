@@ -0,0 +1,74 @@
+package org.esaude.dmt.component;
+
+import static org.junit.Assert.*;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link PipelineQueue }
+ */
+public class PipelineQueueTest {
+
+	@Test
+	public void testItemsPutBeforeClosingAreTaken() {
+		PipelineQueue<Integer> queue = new PipelineQueue<Integer>(2);
+
+		assertTrue(queue.put(1));
+		assertTrue(queue.put(2));
+		queue.close();
+
+		assertEquals(Integer.valueOf(1), queue.take());
+		assertEquals(Integer.valueOf(2), queue.take());
+		assertNull(queue.take());
+	}
+
+	@Test
+	public void testProducerWaitsForConsumer() throws Exception {
+		final PipelineQueue<Integer> queue = new PipelineQueue<Integer>(1);
+		Thread consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				int sum = 0;
+				Integer item;
+				while ((item = queue.take()) != null) {
+					sum += item;
+				}
+				assertEquals(55, sum);
+			}
+		});
+		consumer.start();
+
+		for (int i = 1; i <= 10; i++) {
+			assertTrue(queue.put(i));
+		}
+		queue.close();
+		consumer.join(10000);
+
+		assertFalse(consumer.isAlive());
+	}
+
+	@Test
+	public void testAbortReleasesProducer() {
+		PipelineQueue<Integer> queue = new PipelineQueue<Integer>(1);
+
+		assertTrue(queue.put(1));
+		queue.abort(new SystemException("failed"));
+
+		assertFalse(queue.put(2));
+		assertNull(queue.take());
+		assertEquals("failed", queue.getFailure().getMessage());
+	}
+
+	@Test
+	public void testFirstFailureIsKept() {
+		PipelineQueue<Integer> queue = new PipelineQueue<Integer>(1);
+
+		queue.abort(new SystemException("first"));
+		queue.abort(null);
+		queue.abort(new SystemException("second"));
+
+		assertTrue(queue.isAborted());
+		assertEquals("first", queue.getFailure().getMessage());
+	}
+}
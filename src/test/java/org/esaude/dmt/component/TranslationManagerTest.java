@@ -0,0 +1,838 @@
+package org.esaude.dmt.component;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.esaude.dmt.config.schema.Config;
+import org.esaude.dmt.dao.DatabaseUtil;
+import org.esaude.dmt.dao.KeyAllocator;
+import org.esaude.dmt.helper.DAOTypes;
+import org.esaude.dmt.helper.ProcessStatuses;
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.ConfigReader;
+import org.esaude.dmt.util.DeadLetter;
+import org.esaude.dmt.util.DeadLetterJournal;
+import org.esaude.dmt.util.MatchBuilder;
+import org.esaude.dmt.util.ProcessReader;
+import org.esaude.dmt.util.ReferenceBuilder;
+import org.esaude.dmt.util.TupleBuilder;
+import org.esaude.dmt.util.TupleTree;
+import org.esaude.matchingschema.MatchType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TranslationManager }, the source and the target
+ * databases are kept in memory
+ */
+public class TranslationManagerTest {
+	private Config config;
+	private TupleTree tree;
+	private Source source;
+	private File directory;// the process and dead letter files
+	private ProcessReader processReader;
+
+	@Before
+	public void setUp() throws Exception {
+		config = ConfigReader.getInstance().getConfig();
+		directory = Files.createTempDirectory("process").toFile();
+		processReader = new ProcessReader(directory.getPath(), config);
+		processReader.recordProcess(0, Calendar.getInstance().getTime(),
+				ProcessStatuses.RESET);
+
+		// a person per patient, with the addresses of the patient
+		tree = new TupleBuilder()
+				.createTuple(1, "personal", "person", "personal data", null)
+				.createTuple(2, "address", "person_address", "address data",
+						1).process();
+		tree.getHead().getMatches()
+				.add(pk(1, 1, "person", "person_id", "t_paciente", "nid",
+						null, "ALL"));
+		tree.getHead().getMatches()
+				.add(match(1, 2, "person", "gender", "t_demografia", "sexo",
+						"nid"));
+		tree.getTree(2).getHead().getMatches()
+				.add(pk(2, 3, "person_address", "person_address_id",
+						"t_endereco", "id", "nid", "CURR"));
+		// the address references the TOP of its person
+		ReferenceBuilder person = new ReferenceBuilder()
+				.createReference(1, "INT", 10, "person", 0)
+				.createReferenceSide("person_address", "person_id",
+						"referencee")
+				.createReferenceSide("person", "person_id", "referenced")
+				.createReferencedValue("TOP");
+		tree.getTree(2).getHead().setReferences(person.processMap());
+		tree.getTree(2).getHead().getMatches()
+				.add(match(2, 4, "person_address", "address1", "t_endereco",
+						"rua", "id"));
+
+		source = new Source();
+		source.add("t_paciente", "nid").row(1).row(2).row(3);
+		// the keys of the patients are DOUBLE columns of these tables
+		source.add("t_demografia", "nid", "sexo").row(1.0, "F").row(2.0, "M")
+				.row(3.0, "F");
+		source.add("t_endereco", "id", "nid", "rua").row(10, 1.0, "Rua A")
+				.row(11, 1.0, "Rua B").row(12, 3.0, "Rua C");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testMatchesOfBatchAreTheOnesOfEachCurr() throws Exception {
+		List<String> inserts = translate(0, 0);
+
+		assertEquals(3, source.count("t_demografia"));
+		assertEquals(Arrays.asList("person [F, 1, 0]",
+				"person_address [Rua A, 1, 1, 0]",
+				"person_address [Rua B, 1, 1, 0]", "person [M, 1, 0]",
+				"person [F, 1, 0]", "person_address [Rua C, 5, 1, 0]"),
+				inserts);
+
+		source.reset();
+		assertEquals(inserts, translate(2, 0));
+		// a query per batch of 2 CURRs
+		assertEquals(2, source.count("t_demografia"));
+	}
+
+	@Test
+	public void testChildCurrsOfBatchAreTheOnesOfEachParent()
+			throws Exception {
+		List<String> inserts = translate(0, 0);
+
+		assertEquals(3, source.count("SELECT t_endereco.id"));
+
+		source.reset();
+		assertEquals(inserts, translate(0, 3));
+		// a query for the whole batch of parent CURRs
+		assertEquals(1, source.count("SELECT t_endereco.id"));
+	}
+
+	@Test
+	public void testChildCurrsAreSelectedPerWindowOfParents()
+			throws Exception {
+		List<String> inserts = translate(0, 0);
+
+		source.reset();
+		// the second patient, without addresses, shares the first window
+		assertEquals(inserts, translate(0, 2));
+		assertEquals(2, source.count("SELECT t_endereco.id"));
+	}
+
+	@Test
+	public void testChildWithoutCurrReferenceIsSelectedPerParent()
+			throws Exception {
+		// every address of the source is selected for each patient
+		tree.getTree(2).getHead().getMatches().set(0,
+				pk(2, 3, "person_address", "person_address_id",
+						"t_endereco", "id", null, "ALL"));
+		List<String> inserts = translate(0, 0);
+
+		assertEquals(12, inserts.size());
+		source.reset();
+		assertEquals(inserts, translate(0, 3));
+		assertEquals(3, source.count("SELECT t_endereco.id"));
+	}
+
+	@Test
+	public void testSkippedTreesOfPipelineAreCounted() throws Exception {
+		// the second patient, without gender, is skipped
+		tree.getHead().getMatches().get(1).setDefaultValue("SKIP");
+		source.add("t_demografia", "nid", "sexo").row(1.0, "F")
+				.row(2.0, null).row(3.0, "F");
+		config.setPipelineQueueSize(BigInteger.valueOf(2));
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		final Target target = new Target();
+
+		new TranslationManager(tree.copy(), config, source, target,
+				new KeyAllocator(new Keys(), 10), processReader) {
+			@Override
+			DatabaseUtil createDAO(DAOTypes type) throws SystemException {
+				return source;
+			}
+		}.execute();
+
+		assertEquals(5, target.inserts.size());
+		assertEquals(ProcessStatuses.COMPLETED, processReader
+				.getProcess().getLastStopStatus());
+	}
+
+	@Test
+	public void testSkippedTreesAreCounted() throws Exception {
+		// the second patient, without gender, is skipped
+		tree.getHead().getMatches().get(1).setDefaultValue("SKIP");
+		source.add("t_paciente", "nid").row(1).row(2).row(3).row(4);
+		source.add("t_demografia", "nid", "sexo").row(1.0, "F")
+				.row(2.0, null).row(3.0, "F").row(4.0, "M");
+		config.setTreeLimit(BigInteger.valueOf(2));
+		config.setAllowCommit(true);
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		Target target = new Target();
+
+		new TranslationManager(tree.copy(), config, source, target, null,
+				processReader).execute();
+
+		// the next run starts after the skipped tree and the third one
+		assertEquals(5, target.inserts.size());
+		assertEquals(3, processReader.getProcess()
+				.getLastStopPoint().intValue());
+		assertEquals(ProcessStatuses.PAUSED, processReader
+				.getProcess().getLastStopStatus());
+
+		target = new Target();
+		new TranslationManager(tree.copy(), config, source, target, null,
+				processReader).execute();
+
+		assertEquals(Arrays.asList("person [M, 1, 0]"), target.inserts);
+		assertEquals(ProcessStatuses.COMPLETED, processReader
+				.getProcess().getLastStopStatus());
+	}
+
+	@Test
+	public void testTextKeysAreResumedAsText() throws Exception {
+		// the NIDs are VARCHAR, "10" comes before "9"
+		source.add("t_paciente", "nid").row("9").row("00123").row("10");
+		source.add("t_demografia", "nid", "sexo").row("9", "M")
+				.row("00123", "F").row("10", "F");
+		source.add("t_endereco", "id", "nid", "rua");
+		config.setKeysetResume(true);
+		config.setTreeLimit(BigInteger.valueOf(2));
+		config.setAllowCommit(true);
+		Target target = new Target();
+
+		new TranslationManager(tree.copy(), config, source, target, null,
+				processReader).execute();
+
+		assertEquals(Arrays.asList("person [F, 1, 0]", "person [F, 1, 0]"),
+				target.inserts);
+		assertEquals("10", processReader.getProcess().getLastStopKey());
+
+		target = new Target();
+		new TranslationManager(tree.copy(), config, source, target, null,
+				processReader).execute();
+
+		// the tree after "10" is the one of "9", and only it
+		assertEquals(Arrays.asList("person [M, 1, 0]"), target.inserts);
+		assertEquals(ProcessStatuses.COMPLETED, processReader.getProcess()
+				.getLastStopStatus());
+	}
+
+	@Test
+	public void testTreesOfFailedGroupAreNotSkipped() throws Exception {
+		// the inserts of the third patient fail once they are flushed
+		config.setInsertBatchSize(BigInteger.valueOf(100));
+		config.setCommitBatchSize(BigInteger.valueOf(3));
+		config.setAllowCommit(true);
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		Target target = new Target();
+		target.failOn = "Rua C";
+
+		try {
+			new TranslationManager(tree.copy(), config, source, target, null,
+					processReader).execute();
+			fail("The translation should fail");
+		} catch (SystemException e) {
+			// expected
+		}
+		// the position is the one of the trees committed before the failure
+		assertEquals(Arrays.asList("person [F, 1, 0]",
+				"person_address [Rua A, 1, 1, 0]",
+				"person_address [Rua B, 1, 1, 0]", "person [M, 1, 0]"),
+				target.committed);
+		assertEquals(2, processReader.getProcess()
+				.getLastStopPoint().intValue());
+		assertEquals(ProcessStatuses.FAILED, processReader
+				.getProcess().getLastStopStatus());
+	}
+
+	@Test
+	public void testBufferedParentsAreInsertedBeforeTheirChildren()
+			throws Exception {
+		// a patient per person, its PK is the TOP of the person, with the
+		// addresses of the patient
+		TupleTree patients = new TupleBuilder()
+				.createTuple(1, "personal", "person", "personal data", null)
+				.createTuple(2, "patient", "patient", "patient data", 1)
+				.createTuple(3, "address", "person_address", "address data",
+						2).process();
+		patients.getHead().getMatches()
+				.add(pk(1, 1, "person", "person_id", "t_paciente", "nid",
+						null, "ALL"));
+		MatchType patientId = pk(2, 2, "patient", "patient_id",
+				"t_paciente", "nid", "nid", "CURR");
+		patientId.setDefaultValue("TOP");
+		patients.getTree(2).getHead().getMatches().add(patientId);
+		patients.getTree(3).getHead().getMatches()
+				.add(pk(3, 3, "person_address", "person_address_id",
+						"t_endereco", "id", "nid", "CURR"));
+		patients.getTree(3).getHead().getMatches()
+				.add(match(3, 4, "person_address", "address1", "t_endereco",
+						"rua", "id"));
+		config.setInsertBatchSize(BigInteger.valueOf(100));
+		config.setKeyBlockSize(BigInteger.valueOf(10));
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		Target target = new Target();
+
+		new TranslationManager(patients, config, source, target,
+				new KeyAllocator(new Keys(), 10), processReader).execute();
+
+		// each patient is inserted after its person
+		List<String> tables = new ArrayList<String>();
+		for (String insert : target.inserts) {
+			tables.add(insert.substring(0, insert.indexOf(' ')));
+		}
+		assertEquals(Arrays.asList("person", "patient", "person_address",
+				"person_address", "person", "patient", "person", "patient",
+				"person_address"), tables);
+	}
+
+	@Test
+	public void testFailedBatchedTreeIsDeadLettered() throws Exception {
+		// the inserts of the first patient fail once they are flushed
+		config.setInsertBatchSize(BigInteger.valueOf(100));
+		config.setContinueOnError(true);
+		Target target = new Target();
+		target.failOn = "Rua A";
+
+		List<DeadLetter> deadLetters = translateOnError(target, null);
+
+		assertEquals(1, deadLetters.size());
+		assertEquals(0, deadLetters.get(0).getIndex());
+		assertEquals(1, deadLetters.get(0).getCurr());
+		assertEquals(Arrays.asList("person [M, 1, 0]", "person [F, 1, 0]",
+				"person_address [Rua C, 3, 1, 0]"), target.committed);
+	}
+
+	@Test
+	public void testFailedTreeOfPipelineIsDeadLettered() throws Exception {
+		// the inserts of the third patient fail in the writer
+		config.setPipelineQueueSize(BigInteger.valueOf(2));
+		config.setContinueOnError(true);
+		Target target = new Target();
+		target.failOn = "Rua C";
+
+		List<DeadLetter> deadLetters = translateOnError(target,
+				new KeyAllocator(new Keys(), 10));
+
+		assertEquals(1, deadLetters.size());
+		assertEquals(2, deadLetters.get(0).getIndex());
+		assertEquals(3, deadLetters.get(0).getCurr());
+		assertEquals(4, target.committed.size());
+		assertEquals(ProcessStatuses.COMPLETED, processReader
+				.getProcess().getLastStopStatus());
+	}
+
+	@Test
+	public void testSiblingBranchesInsertAsTheSequentialTranslation()
+			throws Exception {
+		TupleTree encounters = encounters();
+		List<String> inserts = translateInBranches(encounters, 0,
+				new Target());
+
+		// the addresses and the encounters of a person are siblings
+		assertEquals(inserts,
+				translateInBranches(encounters, 2, new Target()));
+	}
+
+	@Test
+	public void testBranchesWithoutKeyAllocatorAreRejected()
+			throws Exception {
+		config.setBranchCount(BigInteger.valueOf(2));
+		Target target = new Target();
+
+		try {
+			new TranslationManager(tree.copy(), config, source, target, null,
+					processReader).execute();
+			fail("The branches should require allocated keys");
+		} catch (SystemException e) {
+			// expected
+		}
+		assertTrue(target.inserts.isEmpty());
+	}
+
+	@Test
+	public void testBranchesInsertAsTheSequentialTranslation()
+			throws Exception {
+		TupleTree encounters = encounters();
+		List<String> inserts = translateInBranches(encounters, 0,
+				new Target());
+
+		assertEquals(17, inserts.size());
+		assertEquals(inserts,
+				translateInBranches(encounters, 3, new Target()));
+		// the observations of the encounters are split across the branches
+		config.setSplitThreshold(BigInteger.valueOf(2));
+		assertEquals(inserts,
+				translateInBranches(encounters, 3, new Target()));
+		assertEquals(inserts,
+				translateInBranches(encounters, 2, new Target()));
+	}
+
+	@Test
+	public void testFailedBranchRollsBackTheRootTree() throws Exception {
+		TupleTree encounters = encounters();
+		List<String> inserts = translateInBranches(encounters, 0,
+				new Target());
+		// an observation of the second patient fails
+		source.failOn = "FROM t_obs WHERE (t_obs.id = ?) [35]";
+		config.setSplitThreshold(BigInteger.valueOf(2));
+		Target target = new Target();
+
+		try {
+			translateInBranches(encounters, 3, target);
+			fail("The translation should fail");
+		} catch (SystemException e) {
+			// expected
+		}
+		// only the first tree is committed
+		assertEquals(inserts.subList(0, 7), target.committed);
+		assertTrue(target.committed.get(6).startsWith("obs "));
+		assertTrue(target.transaction.isEmpty());
+	}
+
+	/**
+	 * A person per patient with its addresses and its encounters, each one
+	 * with its observations
+	 * 
+	 * @return
+	 * @throws Exception
+	 */
+	private TupleTree encounters() throws Exception {
+		TupleTree encounters = new TupleBuilder()
+				.createTuple(1, "personal", "person", "personal data", null)
+				.createTuple(2, "address", "person_address", "address data",
+						1)
+				.createTuple(3, "encounter", "encounter", "encounter data", 1)
+				.createTuple(4, "obs", "obs", "observation data", 3)
+				.process();
+		encounters.getHead().getMatches()
+				.add(pk(1, 1, "person", "person_id", "t_paciente", "nid",
+						null, "ALL"));
+		encounters.getTree(2).getHead().getMatches()
+				.add(pk(2, 2, "person_address", "person_address_id",
+						"t_endereco", "id", "nid", "CURR"));
+		encounters.getTree(2).getHead().getMatches()
+				.add(match(2, 3, "person_address", "address1", "t_endereco",
+						"rua", "id"));
+		encounters.getTree(3).getHead().getMatches()
+				.add(pk(3, 4, "encounter", "encounter_id", "t_consulta", "id",
+						"nid", "CURR"));
+		encounters.getTree(3).getHead().getMatches()
+				.add(top(3, 5, "encounter", "patient_id"));
+		// the keys of the observations are generated by the target
+		MatchType obsId = pk(4, 6, "obs", "obs_id", "t_obs", "id",
+				"consulta", "CURR");
+		obsId.setDefaultValue("NULL");
+		encounters.getTree(4).getHead().getMatches().add(obsId);
+		encounters.getTree(4).getHead().getMatches()
+				.add(top(4, 7, "obs", "encounter_id"));
+		encounters.getTree(4).getHead().getMatches()
+				.add(match(4, 8, "obs", "value_text", "t_obs", "valor", "id"));
+
+		source.add("t_consulta", "id", "nid").row(20, 1).row(21, 2)
+				.row(22, 2);
+		source.add("t_obs", "id", "consulta", "valor").row(30, 20, "A")
+				.row(31, 20, "B").row(32, 20, "C").row(33, 21, "D")
+				.row(34, 21, "E").row(35, 22, "F").row(36, 22, "G")
+				.row(37, 22, "H");
+		return encounters;
+	}
+
+	/**
+	 * Translate the tree with the given number of branches and return the
+	 * inserts executed in the target
+	 * 
+	 * @param t
+	 * @param branchCount
+	 * @param target
+	 * @return
+	 * @throws Exception
+	 */
+	private List<String> translateInBranches(TupleTree t, int branchCount,
+			Target target) throws Exception {
+		config.setBranchCount(BigInteger.valueOf(branchCount));
+		config.setAllowCommit(true);
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+
+		new TranslationManager(t.copy(), config, source, target,
+				new KeyAllocator(new Keys(), 10), processReader) {
+			@Override
+			DatabaseUtil createDAO(DAOTypes type) throws SystemException {
+				return source;
+			}
+		}.execute();
+		return target.inserts;
+	}
+
+	/**
+	 * Translate the tree, going on if a tree fails, and return the dead
+	 * letters
+	 * 
+	 * @param target
+	 * @param keyAllocator
+	 * @return
+	 * @throws Exception
+	 */
+	private List<DeadLetter> translateOnError(Target target,
+			KeyAllocator keyAllocator) throws Exception {
+		DeadLetterJournal journal = new DeadLetterJournal(new File(
+				directory, "dead_letters.txt"));
+		config.setAllowCommit(true);
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+
+		new TranslationManager(tree.copy(), config, source, target,
+				keyAllocator, processReader) {
+			@Override
+			DatabaseUtil createDAO(DAOTypes type) throws SystemException {
+				return source;
+			}
+		}.execute();
+		return journal.read();
+	}
+
+	/**
+	 * Translate the tree and return the inserts executed in the target
+	 * 
+	 * @param matchBatch
+	 *            the match_batch_size
+	 * @param currBatch
+	 *            the curr_batch_size
+	 * @return
+	 * @throws Exception
+	 */
+	private List<String> translate(int matchBatch, int currBatch)
+			throws Exception {
+		config.setMatchBatchSize(BigInteger.valueOf(matchBatch));
+		config.setCurrBatchSize(BigInteger.valueOf(currBatch));
+		processReader.recordProcess(0,
+				Calendar.getInstance().getTime(), ProcessStatuses.RESET);
+		Target target = new Target();
+
+		new TranslationManager(tree.copy(), config, source, target, null,
+				processReader).execute();
+		return target.inserts;
+	}
+
+	private MatchType pk(Integer tupleId, Integer id, String table,
+			String column, String sourceTable, String currColumn,
+			String referencedColumn, String referencedValue)
+			throws SystemException {
+		MatchType pk = new MatchBuilder()
+				.createMatch(tupleId, id, "id", "N/A", "AI", "YES", null)
+				.createMatchSide(table, column, "INT", 10, "YES", "left")
+				.getMatch();
+		ReferenceBuilder references = new ReferenceBuilder()
+				.createReference(1, "INT", 10, "curr", 0)
+				.createReferenceSide(sourceTable, currColumn, "referencee");
+		pk.setReferences(references
+				.createReferenceSide(sourceTable,
+						referencedColumn != null ? referencedColumn
+								: currColumn, "referenced")
+				.createReferencedValue(referencedValue).processMap());
+		return pk;
+	}
+
+	private MatchType top(Integer tupleId, Integer id, String table,
+			String column) throws SystemException {
+		return new MatchBuilder()
+				.createMatch(tupleId, id, column, "N/A", "TOP", "NO", null)
+				.createMatchSide(table, column, "INT", 10, "NO", "left")
+				.getMatch();
+	}
+
+	private MatchType match(Integer tupleId, Integer id, String table,
+			String column, String sourceTable, String sourceColumn,
+			String currColumn) throws SystemException {
+		MatchType match = new MatchBuilder()
+				.createMatch(tupleId, id, column, "N/A", "NULL", "NO", null)
+				.createMatchSide(table, column, "VARCHAR", 10, "NO", "left")
+				.createMatchSide(sourceTable, sourceColumn, "VARCHAR", 10,
+						"NO", "right").getMatch();
+		match.setReferences(new ReferenceBuilder()
+				.createReference(1, "INT", 10, "curr", 0)
+				.createReferenceSide(sourceTable, currColumn, "referenced")
+				.createReferencedValue("CURR").processMap());
+		return match;
+	}
+
+	/**
+	 * The tables of the source database, the selects of a single table
+	 * filtered by an equality, an IN or a greater than condition and ordered
+	 * by a column are executed in memory. Values are compared as numbers, as
+	 * a database would, unless both are text
+	 */
+	static class Source extends DatabaseUtil {
+		private static final Pattern SELECT = Pattern
+				.compile("SELECT (.+) FROM (\\w+)(?: WHERE \\((\\w+)\\.(\\w+) (= \\?|IN \\(.*\\)|> \\?)\\))?(?: ORDER BY \\w+\\.(\\w+))?");
+		private final Map<String, List<String>> columns = new HashMap<String, List<String>>();
+		private final Map<String, List<List<Object>>> tables = new HashMap<String, List<List<Object>>>();
+		private final List<String> executed = Collections
+				.synchronizedList(new ArrayList<String>());
+		private String table;
+		private String failOn;// queries with this text fail, null = none
+
+		Source() throws Exception {
+			super(null);
+		}
+
+		Source add(String name, String... names) {
+			table = name;
+			columns.put(name, Arrays.asList(names));
+			tables.put(name, new ArrayList<List<Object>>());
+			return this;
+		}
+
+		Source row(Object... values) {
+			tables.get(table).add(Arrays.asList(values));
+			return this;
+		}
+
+		int count(String text) {
+			int count = 0;
+			for (String query : executed) {
+				if (query.contains(text)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		void reset() {
+			executed.clear();
+		}
+
+		@Override
+		public List<List<Object>> executeQuery(String query,
+				List<Object> parameters) throws SystemException {
+			String sql = query.replaceAll("\\s+", " ").trim();
+			Matcher matcher = SELECT.matcher(sql);
+
+			if (!matcher.matches()) {
+				throw new SystemException("Unsupported query " + sql);
+			}
+			if (failOn != null && (sql + " " + parameters).contains(failOn)) {
+				throw new SystemException("Failed query " + sql);
+			}
+			executed.add(sql);
+			List<String> names = columns.get(matcher.group(2));
+			List<List<Object>> rows = new ArrayList<List<Object>>();
+
+			List<List<Object>> table = new ArrayList<List<Object>>(
+					tables.get(matcher.group(2)));
+
+			if (matcher.group(6) != null) {
+				final int order = names.indexOf(matcher.group(6));
+				Collections.sort(table, new Comparator<List<Object>>() {
+					@Override
+					public int compare(List<Object> a, List<Object> b) {
+						return Source.compare(a.get(order), b.get(order));
+					}
+				});
+			}
+			for (List<Object> row : table) {
+				Object value = (matcher.group(4) != null) ? row.get(names
+						.indexOf(matcher.group(4))) : null;
+
+				if (matcher.group(4) != null
+						&& (matcher.group(5).startsWith(">") ? compare(value,
+								parameters.get(0)) <= 0 : !contains(
+								parameters, value))) {
+					continue;
+				}
+				List<Object> selected = new ArrayList<Object>();
+				for (String column : matcher.group(1).split(", ")) {
+					selected.add(row.get(names.indexOf(column.substring(column
+							.indexOf('.') + 1))));
+				}
+				rows.add(selected);
+			}
+			return rows;
+		}
+
+		private boolean contains(List<Object> values, Object value) {
+			for (Object each : values) {
+				if (compare(each, value) == 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int compare(Object a, Object b) {
+			if (a instanceof String && b instanceof String) {
+				return ((String) a).compareTo((String) b);
+			}
+			return new BigDecimal(a.toString()).compareTo(new BigDecimal(b
+					.toString()));
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * The target database, the inserts are kept as the table and the values
+	 * bound to them, without the UUIDs. The keys are generated in sequence.
+	 * The inserts of the transaction are kept apart until they are committed
+	 */
+	static class Target extends DatabaseUtil {
+		private static final Pattern TABLE = Pattern
+				.compile("INSERT INTO (\\w+)");
+		private final List<String> inserts = new ArrayList<String>();
+		private final List<String> transaction = new ArrayList<String>();
+		private final List<String> committed = new ArrayList<String>();
+		private String failOn;// inserts with this text fail, null = none
+		private int key;
+
+		Target() throws Exception {
+			super(null);
+		}
+
+		@Override
+		public synchronized List<List<Object>> executeUpdate(String query,
+				List<Object> parameters) throws SystemException {
+			insert(query, parameters);
+
+			List<List<Object>> keys = new ArrayList<List<Object>>();
+			keys.add(Arrays.<Object> asList(++key));
+			return keys;
+		}
+
+		@Override
+		public synchronized List<List<Object>> executeBatch(String query,
+				List<List<Object>> rows) throws SystemException {
+			List<List<Object>> keys = new ArrayList<List<Object>>();
+
+			for (List<Object> row : rows) {
+				insert(query, row);
+				keys.add(Arrays.<Object> asList(++key));
+			}
+			return keys;
+		}
+
+		private void insert(String query, List<Object> parameters)
+				throws SystemException {
+			Matcher matcher = TABLE.matcher(query);
+			matcher.find();
+			List<Object> values = new ArrayList<Object>(parameters);
+			// the UUID is the last parameter
+			values.remove(values.size() - 1);
+			String insert = matcher.group(1) + " " + values;
+
+			if (failOn != null && insert.contains(failOn)) {
+				throw new SystemException("Failed insert " + insert);
+			}
+			inserts.add(insert);
+			transaction.add(insert);
+		}
+
+		@Override
+		public synchronized Savepoint setSavePoint() {
+			final int size = transaction.size();
+
+			return new Savepoint() {
+				@Override
+				public int getSavepointId() {
+					return size;
+				}
+
+				@Override
+				public String getSavepointName() {
+					return null;
+				}
+			};
+		}
+
+		@Override
+		public void releaseSavePoint(Savepoint savePoint) {
+		}
+
+		@Override
+		public synchronized void rollback(Savepoint savePoint) {
+			try {
+				transaction.subList(savePoint.getSavepointId(),
+						transaction.size()).clear();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public synchronized void rollback() {
+			transaction.clear();
+		}
+
+		@Override
+		public synchronized void commit() {
+			committed.addAll(transaction);
+			transaction.clear();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * The reservations of the keys, no key is reserved yet
+	 */
+	static class Keys extends DatabaseUtil {
+
+		Keys() throws Exception {
+			super(null);
+		}
+
+		@Override
+		public List<List<Object>> executeQuery(String query,
+				List<Object> parameters) {
+			return new ArrayList<List<Object>>();
+		}
+
+		@Override
+		public int executePreparedStatement(String query,
+				List<Object> parameters) {
+			return 1;
+		}
+
+		@Override
+		public void rollback() {
+		}
+
+		@Override
+		public void commit() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
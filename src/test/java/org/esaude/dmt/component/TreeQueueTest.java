@@ -0,0 +1,111 @@
+package org.esaude.dmt.component;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TreeQueue }
+ */
+public class TreeQueueTest {
+
+	private Iterator<List<Object>> rows(int size) {
+		List<List<Object>> rows = new ArrayList<List<Object>>();
+		for (int i = 0; i < size; i++) {
+			rows.add(Arrays.<Object> asList(i));
+		}
+		return rows.iterator();
+	}
+
+	@Test
+	public void testTreesAreHandedOutUpToTheLimit() {
+		TreeQueue queue = new TreeQueue(2, rows(10), 3);
+
+		assertEquals(2, queue.take());
+		assertEquals(3, queue.take());
+		assertEquals(4, queue.take());
+		assertEquals(-1, queue.take());
+		// the rows are read from the start of the iterator
+		assertEquals(Arrays.<Object> asList(1), queue.getRow(3));
+	}
+
+	@Test
+	public void testWatermarkFollowsCommitOrder() throws Exception {
+		final TreeQueue queue = new TreeQueue(0, rows(2), 0);
+		final int first = queue.take();
+		final int second = queue.take();
+
+		// the second tree waits for the first one to be committed
+		Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					queue.awaitTurn(second);
+					queue.done(second);
+				} catch (SystemException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		worker.start();
+		worker.join(200);
+
+		assertTrue(worker.isAlive());
+		assertEquals(0, queue.getWatermark());
+
+		queue.awaitTurn(first);
+		queue.done(first);
+		worker.join();
+
+		assertEquals(2, queue.getWatermark());
+		assertEquals(-1, queue.take());
+		assertTrue(queue.isExhausted());
+	}
+
+	@Test
+	public void testLastKeyFollowsCommitOrder() throws Exception {
+		TreeQueue queue = new TreeQueue(0, rows(2), 0);
+		int first = queue.take();
+		int second = queue.take();
+
+		assertNull(queue.getLastKey());
+		queue.done(first, queue.getRow(first).get(0));
+		queue.done(second, queue.getRow(second).get(0));
+
+		assertEquals(2, queue.getWatermark());
+		assertEquals(1, queue.getLastKey());
+	}
+
+	@Test
+	public void testHasMoreUntilLimitOrFailure() {
+		TreeQueue limited = new TreeQueue(0, rows(10), 1);
+
+		assertTrue(limited.hasMore());
+		limited.take();
+		assertFalse(limited.hasMore());
+
+		TreeQueue failed = new TreeQueue(0, rows(10), 0);
+		failed.fail(0, new SystemException("failed"));
+		assertFalse(failed.hasMore());
+
+		assertFalse(new TreeQueue(0, rows(0), 0).hasMore());
+	}
+
+	@Test(expected = SystemException.class)
+	public void testTreesAfterFailureAreDiscarded() throws SystemException {
+		TreeQueue queue = new TreeQueue(0, rows(10), 0);
+		int first = queue.take();
+		int second = queue.take();
+
+		queue.fail(first, new SystemException("failed"));
+
+		assertEquals(-1, queue.take());
+		queue.awaitTurn(second);
+	}
+}
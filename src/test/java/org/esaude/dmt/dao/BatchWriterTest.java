@@ -0,0 +1,144 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link BatchWriter }
+ */
+public class BatchWriterTest {
+	private List<String> executed;
+	private DatabaseUtil dao;
+
+	@Before
+	public void setUp() throws Exception {
+		executed = new ArrayList<String>();
+		// generates sequential keys for each row of a batch
+		dao = new DatabaseUtil(null) {
+			private int key = 0;
+
+			@Override
+			public List<List<Object>> executeBatch(String query,
+					List<List<Object>> parameters) throws SystemException {
+				List<List<Object>> keys = new ArrayList<List<Object>>();
+
+				for (int i = 0; i < parameters.size(); i++) {
+					executed.add(query);
+					keys.add(Arrays.<Object> asList(++key));
+				}
+				return keys;
+			}
+		};
+	}
+
+	@Test
+	public void testRowsAreBufferedUntilBatchSize() throws SystemException {
+		BatchWriter writer = new BatchWriter(dao, 3);
+
+		writer.add("INSERT A", Arrays.<Object> asList(1), null);
+		writer.add("INSERT B", Arrays.<Object> asList(2), null);
+
+		assertTrue(executed.isEmpty());
+		assertEquals(2, writer.size());
+
+		writer.add("INSERT A", Arrays.<Object> asList(3), null);
+
+		assertEquals(0, writer.size());
+		assertEquals(Arrays.asList("INSERT A", "INSERT A", "INSERT B"),
+				executed);
+	}
+
+	@Test
+	public void testKeysAreMappedInOrder() throws SystemException {
+		BatchWriter writer = new BatchWriter(dao, 10);
+		final List<Object> keys = new ArrayList<Object>();
+		BatchWriter.KeyListener listener = new BatchWriter.KeyListener() {
+			@Override
+			public void keyGenerated(Object key) {
+				keys.add(key);
+			}
+		};
+		writer.add("INSERT A", Arrays.<Object> asList(1), listener);
+		writer.add("INSERT A", Arrays.<Object> asList(2), null);
+		writer.add("INSERT A", Arrays.<Object> asList(3), listener);
+		writer.flush();
+
+		assertEquals(Arrays.<Object> asList(1, 3), keys);
+	}
+
+	@Test
+	public void testRowsAreGroupedInMultiRowInserts() throws Exception {
+		final List<List<Object>> groups = new ArrayList<List<Object>>();
+		// generates a key per row of a group, each row has one parameter
+		DatabaseUtil multiRowDao = new DatabaseUtil(null) {
+			private int key = 0;
+
+			@Override
+			public List<List<Object>> executeBatch(String query,
+					List<List<Object>> parameters) throws SystemException {
+				List<List<Object>> keys = new ArrayList<List<Object>>();
+
+				for (List<Object> group : parameters) {
+					executed.add(query);
+					groups.add(group);
+					for (int i = 0; i < group.size(); i++) {
+						keys.add(Arrays.<Object> asList(++key));
+					}
+				}
+				return keys;
+			}
+		};
+		BatchWriter writer = new BatchWriter(multiRowDao, 10, Dialect.MYSQL, 2);
+		final List<Object> keys = new ArrayList<Object>();
+		BatchWriter.KeyListener listener = new BatchWriter.KeyListener() {
+			@Override
+			public void keyGenerated(Object key) {
+				keys.add(key);
+			}
+		};
+		for (int i = 1; i <= 5; i++) {
+			writer.add("INSERT INTO a (b) VALUES (?)",
+					Arrays.<Object> asList(i), listener);
+		}
+		writer.flush();
+
+		assertEquals(Arrays.asList("INSERT INTO a (b) VALUES (?), (?)",
+				"INSERT INTO a (b) VALUES (?), (?)",
+				"INSERT INTO a (b) VALUES (?)"), executed);
+		assertEquals(Arrays.<Object> asList(1, 2), groups.get(0));
+		assertEquals(Arrays.<Object> asList(5), groups.get(2));
+		assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5), keys);
+	}
+
+	@Test
+	public void testAccessInsertsOneRowPerStatement() throws SystemException {
+		BatchWriter writer = new BatchWriter(dao, 10, Dialect.ACCESS, 2);
+
+		writer.add("INSERT INTO a (b) VALUES (?)", Arrays.<Object> asList(1),
+				null);
+		writer.add("INSERT INTO a (b) VALUES (?)", Arrays.<Object> asList(2),
+				null);
+		writer.flush();
+
+		assertEquals(Arrays.asList("INSERT INTO a (b) VALUES (?)",
+				"INSERT INTO a (b) VALUES (?)"), executed);
+	}
+
+	@Test
+	public void testClearDiscardsRows() throws SystemException {
+		BatchWriter writer = new BatchWriter(dao, 10);
+
+		writer.add("INSERT A", Arrays.<Object> asList(1), null);
+		writer.clear();
+		writer.flush();
+
+		assertTrue(executed.isEmpty());
+	}
+}
@@ -0,0 +1,156 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ConnectionPool }
+ */
+public class ConnectionPoolTest {
+	private List<String> calls;
+	private int opened;
+	private boolean valid;
+	private ConnectionPool.ConnectionFactory factory;
+
+	@Before
+	public void setUp() throws Exception {
+		calls = new ArrayList<String>();
+		opened = 0;
+		valid = true;
+		// records the calls to the physical connections
+		factory = new ConnectionPool.ConnectionFactory() {
+			@Override
+			public Connection open() throws SQLException {
+				final int id = ++opened;
+				return (Connection) Proxy.newProxyInstance(
+						Connection.class.getClassLoader(),
+						new Class<?>[] { Connection.class },
+						new InvocationHandler() {
+							@Override
+							public Object invoke(Object proxy, Method method,
+									Object[] args) throws Throwable {
+								calls.add(method.getName() + id);
+								if (method.getName().equals("isValid")) {
+									return valid;
+								}
+								if (method.getName().equals("getAutoCommit")
+										|| method.getName().equals("isClosed")) {
+									return false;
+								}
+								return null;
+							}
+						});
+			}
+		};
+	}
+
+	@Test
+	public void testMinimumIsOpenedWithThePool() throws SystemException {
+		ConnectionPool pool = new ConnectionPool(factory, 2, 4, 0, 0, 0);
+
+		assertEquals(2, opened);
+		assertEquals(2, pool.getIdleCount());
+	}
+
+	@Test
+	public void testClosedConnectionIsReused() throws Exception {
+		ConnectionPool pool = new ConnectionPool(factory, 0, 2, 0, 60000, 0);
+		Connection first = pool.borrow();
+		first.close();
+		Connection second = pool.borrow();
+
+		assertEquals(1, opened);
+		assertTrue(first.isClosed());
+		assertFalse(second.isClosed());
+		// the work not committed is rolled back when given back
+		assertTrue(calls.contains("rollback1"));
+		assertFalse(calls.contains("close1"));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testClosedConnectionCanNotBeUsed() throws Exception {
+		ConnectionPool pool = new ConnectionPool(factory, 0, 1, 0, 0, 0);
+		Connection connection = pool.borrow();
+		connection.close();
+
+		connection.commit();
+	}
+
+	@Test
+	public void testInvalidIdleConnectionIsReplaced() throws Exception {
+		ConnectionPool pool = new ConnectionPool(factory, 1, 1, 0, 0, 0);
+		valid = false;
+
+		pool.borrow();
+
+		assertEquals(2, opened);
+		assertTrue(calls.contains("close1"));
+		assertEquals(1, pool.getSize());
+	}
+
+	@Test(expected = SystemException.class)
+	public void testBorrowTimesOutWhenFull() throws SystemException {
+		ConnectionPool pool = new ConnectionPool(factory, 0, 1, 50, 0, 0);
+		pool.borrow();
+
+		pool.borrow();
+	}
+
+	@Test
+	public void testBorrowerWaitsForConnectionGivenBack() throws Exception {
+		final ConnectionPool pool = new ConnectionPool(factory, 0, 1, 5000,
+				60000, 0);
+		final Connection first = pool.borrow();
+		Thread holder = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+					first.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		holder.start();
+
+		assertNotNull(pool.borrow());
+		holder.join();
+		assertEquals(1, opened);
+	}
+
+	@Test
+	public void testConnectionHeldTooLongIsReported() throws Exception {
+		ConnectionPool pool = new ConnectionPool(factory, 0, 2, 0, 0, 1);
+		pool.borrow();
+		Thread.sleep(20);
+
+		pool.borrow();
+
+		assertEquals(1, pool.getLeakCount());
+		assertEquals(2, pool.getBorrowedCount());
+	}
+
+	@Test
+	public void testBorrowedConnectionIsClosedAfterThePool() throws Exception {
+		ConnectionPool pool = new ConnectionPool(factory, 0, 1, 0, 0, 0);
+		Connection connection = pool.borrow();
+		pool.close();
+
+		connection.close();
+
+		assertTrue(calls.contains("close1"));
+		assertEquals(0, pool.getSize());
+	}
+}
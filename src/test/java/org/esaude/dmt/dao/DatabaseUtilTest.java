@@ -0,0 +1,94 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the save points of {@link DatabaseUtil }
+ */
+public class DatabaseUtilTest {
+	private List<String> calls;
+	private DatabaseUtil dao;
+
+	@Before
+	public void setUp() throws Exception {
+		calls = new ArrayList<String>();
+		// records the calls to the connection
+		Connection connection = (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						String call = method.getName()
+								+ (args != null ? "(" + args.length + ")" : "");
+						calls.add(call);
+						if (method.getName().equals("setSavepoint")) {
+							return Proxy.newProxyInstance(
+									Savepoint.class.getClassLoader(),
+									new Class<?>[] { Savepoint.class },
+									new InvocationHandler() {
+										@Override
+										public Object invoke(Object proxy,
+												Method method, Object[] args) {
+											return method.getName().equals(
+													"equals") ? proxy == args[0]
+													: null;
+										}
+									});
+						}
+						return null;
+					}
+				});
+		dao = new DatabaseUtil(connection);
+	}
+
+	@Test
+	public void testReleasedSavePointIsNotTracked() {
+		Savepoint savePoint = dao.setSavePoint();
+
+		assertEquals(1, dao.getOpenSavePointCount());
+		dao.releaseSavePoint(savePoint);
+
+		assertEquals(0, dao.getOpenSavePointCount());
+		assertTrue(calls.contains("releaseSavepoint(1)"));
+	}
+
+	@Test
+	public void testRollbackToSavePointDiscardsTheLaterOnes() {
+		Savepoint first = dao.setSavePoint();
+		dao.setSavePoint();
+		dao.setSavePoint();
+
+		dao.rollback(first);
+
+		assertEquals(1, dao.getOpenSavePointCount());
+		assertTrue(calls.contains("rollback(1)"));
+		assertFalse(calls.contains("rollback"));
+	}
+
+	@Test
+	public void testSavePointsEndWithTheTransaction() {
+		Savepoint savePoint = dao.setSavePoint();
+		dao.commit();
+
+		assertEquals(0, dao.getOpenSavePointCount());
+		// a save point of a committed transaction is not released
+		dao.releaseSavePoint(savePoint);
+		assertFalse(calls.contains("releaseSavepoint(1)"));
+
+		dao.setSavePoint();
+		dao.rollback();
+		assertEquals(0, dao.getOpenSavePointCount());
+	}
+}
@@ -0,0 +1,113 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import java.sql.Types;
+
+import org.apache.ibatis.jdbc.SQL;
+import org.esaude.dmt.config.schema.DatasourceType;
+import org.esaude.dmt.util.SqlCodec;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Dialect }
+ */
+public class DialectTest {
+
+	@Test
+	public void testDialectOfDriver() {
+		assertSame(Dialect.ACCESS,
+				Dialect.forDriver("sun.jdbc.odbc.JdbcOdbcDriver"));
+		assertSame(Dialect.MYSQL, Dialect.forDriver("com.mysql.jdbc.Driver"));
+		assertSame(Dialect.H2, Dialect.forDriver("org.h2.Driver"));
+		assertSame(Dialect.POSTGRESQL,
+				Dialect.forDriver("org.postgresql.Driver"));
+		assertSame(SqlCodec.ACCESS, Dialect.ACCESS.getCodec());
+		assertSame(SqlCodec.STANDARD, Dialect.H2.getCodec());
+	}
+
+	@Test
+	public void testCaseOfTexts() {
+		assertTrue(Dialect.ACCESS.isCaseInsensitive());
+		assertTrue(Dialect.MYSQL.isCaseInsensitive());
+		assertFalse(Dialect.H2.isCaseInsensitive());
+		assertFalse(Dialect.POSTGRESQL.isCaseInsensitive());
+	}
+
+	@Test
+	public void testConfiguredDialectOverridesDriver() {
+		DatasourceType ds = new DatasourceType();
+		ds.setDriveName("sun.jdbc.odbc.JdbcOdbcDriver");
+		ds.setDialect("postgresql");
+
+		assertSame(Dialect.POSTGRESQL, Dialect.forDatasource(ds));
+
+		ds.setDialect("");
+
+		assertSame(Dialect.ACCESS, Dialect.forDatasource(ds));
+	}
+
+	@Test
+	public void testLimit() {
+		assertEquals("SELECT TOP 3 a FROM t",
+				Dialect.ACCESS.limit("SELECT a FROM t", 3));
+		assertEquals("SELECT DISTINCT TOP 1 a FROM t",
+				Dialect.ACCESS.limit("SELECT DISTINCT a FROM t", 1));
+		assertEquals("SELECT a FROM t\nLIMIT 3",
+				Dialect.MYSQL.limit("SELECT a FROM t", 3));
+		assertEquals("SELECT a FROM t", Dialect.H2.limit("SELECT a FROM t", 0));
+	}
+
+	@Test
+	public void testPage() {
+		assertNull(Dialect.ACCESS.page("SELECT a FROM t", 10, 0));
+		assertEquals("SELECT a FROM t\nLIMIT 10, 18446744073709551615",
+				Dialect.MYSQL.page("SELECT a FROM t", 10, 0));
+		assertEquals("SELECT a FROM t\nLIMIT 10, 5",
+				Dialect.MYSQL.page("SELECT a FROM t", 10, 5));
+		assertEquals("SELECT a FROM t\nOFFSET 10",
+				Dialect.POSTGRESQL.page("SELECT a FROM t", 10, 0));
+		assertEquals("SELECT a FROM t\nLIMIT 5\nOFFSET 10",
+				Dialect.H2.page("SELECT a FROM t", 10, 5));
+	}
+
+	@Test
+	public void testColumnTypes() {
+		assertEquals("VARCHAR(50)", Dialect.H2.columnType(Types.VARCHAR, 50, 0));
+		assertEquals("CLOB", Dialect.H2.columnType(Types.LONGVARCHAR, 0, 0));
+		assertEquals("DATETIME", Dialect.MYSQL.columnType(Types.TIMESTAMP, 0, 0));
+		assertEquals("DECIMAL(19, 4)",
+				Dialect.POSTGRESQL.columnType(Types.DECIMAL, 19, 4));
+		assertEquals("DOUBLE PRECISION",
+				Dialect.POSTGRESQL.columnType(Types.DOUBLE, 15, 0));
+		assertEquals("BIT", Dialect.ACCESS.columnType(Types.BIT, 1, 0));
+	}
+
+	@Test
+	public void testCreateIndex() {
+		assertEquals("CREATE INDEX IX_t_paciente_nid ON t_paciente (nid)",
+				Dialect.H2.createIndex("t_paciente", "nid"));
+
+		String index = Dialect.H2.createIndex(
+				"a_table_with_a_very_long_name_for_an_index",
+				"a_column_with_a_long_name");
+
+		assertTrue(index.split(" ")[2].length() <= 60);
+	}
+
+	@Test
+	public void testInsertRows() {
+		String insert = new SQL() {
+			{
+				INSERT_INTO("t");
+				VALUES("a", "?");
+				VALUES("b", "1");
+			}
+		}.toString();
+
+		assertEquals(insert + ", (?, 1), (?, 1)",
+				Dialect.MYSQL.insertRows(insert, 3));
+		assertNull(Dialect.ACCESS.insertRows(insert, 3));
+		assertEquals(insert, Dialect.ACCESS.insertRows(insert, 1));
+	}
+}
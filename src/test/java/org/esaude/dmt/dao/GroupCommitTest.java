@@ -0,0 +1,71 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link GroupCommit }
+ */
+public class GroupCommitTest {
+	private int commits;
+	private DatabaseUtil dao;
+
+	@Before
+	public void setUp() throws Exception {
+		commits = 0;
+		// counts the commits
+		dao = new DatabaseUtil(null) {
+			@Override
+			public void commit() {
+				commits++;
+			}
+		};
+	}
+
+	@Test
+	public void testGroupIsCommittedBySize() {
+		GroupCommit groupCommit = new GroupCommit(dao, 3, 0);
+
+		assertFalse(groupCommit.add());
+		assertFalse(groupCommit.add());
+		assertEquals(0, commits);
+		assertEquals(2, groupCommit.getPending());
+
+		assertTrue(groupCommit.add());
+		assertEquals(1, commits);
+		assertEquals(0, groupCommit.getPending());
+	}
+
+	@Test
+	public void testWithoutSizeNorIntervalEachTreeIsCommitted() {
+		GroupCommit groupCommit = new GroupCommit(dao, 0, 0);
+
+		assertTrue(groupCommit.add());
+		assertTrue(groupCommit.add());
+		assertEquals(2, commits);
+	}
+
+	@Test
+	public void testGroupIsCommittedByInterval() throws Exception {
+		GroupCommit groupCommit = new GroupCommit(dao, 0, 50);
+
+		assertFalse(groupCommit.add());
+		Thread.sleep(60);
+		assertTrue(groupCommit.add());
+		assertEquals(1, commits);
+	}
+
+	@Test
+	public void testEmptyGroupIsNotCommitted() {
+		GroupCommit groupCommit = new GroupCommit(dao, 3, 0);
+
+		groupCommit.commit();
+		assertEquals(0, commits);
+
+		groupCommit.add();
+		groupCommit.commit();
+		assertEquals(1, commits);
+	}
+}
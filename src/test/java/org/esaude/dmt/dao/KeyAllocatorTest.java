@@ -0,0 +1,105 @@
+package org.esaude.dmt.dao;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link KeyAllocator }
+ */
+public class KeyAllocatorTest {
+	private Long nextKey;// the sentinel row, null if not exists
+	private Long maxKey;// the greatest existing key
+	private int reservations;
+	private DatabaseUtil dao;
+
+	@Before
+	public void setUp() throws Exception {
+		nextKey = null;
+		maxKey = null;
+		reservations = 0;
+		// keeps a single sentinel row in memory
+		dao = new DatabaseUtil(null) {
+			@Override
+			public List<List<Object>> executeQuery(String query,
+					List<Object> parameters) throws SystemException {
+				List<List<Object>> rows = new ArrayList<List<Object>>();
+
+				if (query.contains(KeyAllocator.ALLOCATION_TABLE)) {
+					if (nextKey != null) {
+						rows.add(Arrays.<Object> asList(nextKey));
+					}
+				} else {
+					rows.add(Arrays.<Object> asList(maxKey));
+				}
+				return rows;
+			}
+
+			@Override
+			public int executePreparedStatement(String query,
+					List<Object> parameters) throws SQLException,
+					SystemException {
+				if (query.startsWith("INSERT")) {
+					nextKey = (Long) parameters.get(1);
+					reservations++;
+				} else if (query.startsWith("UPDATE")) {
+					nextKey = (Long) parameters.get(0);
+					reservations++;
+				}
+				return 1;
+			}
+
+			@Override
+			public void commit() {
+			}
+
+			@Override
+			public void rollback() {
+			}
+		};
+	}
+
+	@Test
+	public void testKeysStartAfterGreatestExistingKey() throws SystemException {
+		maxKey = 41L;
+		KeyAllocator allocator = new KeyAllocator(dao, 10);
+
+		assertEquals(Integer.valueOf(42), allocator.next("patient", "id"));
+		assertEquals(Integer.valueOf(43), allocator.next("patient", "id"));
+		assertEquals(Long.valueOf(52), nextKey);
+	}
+
+	@Test
+	public void testNewBlockIsReservedWhenExhausted() throws SystemException {
+		KeyAllocator allocator = new KeyAllocator(dao, 2);
+
+		assertEquals(Integer.valueOf(1), allocator.next("patient", "id"));
+		assertEquals(Integer.valueOf(2), allocator.next("patient", "id"));
+		assertEquals(1, reservations);
+		assertEquals(Integer.valueOf(3), allocator.next("patient", "id"));
+		assertEquals(2, reservations);
+		assertEquals(Long.valueOf(5), nextKey);
+	}
+
+	@Test
+	public void testKeysBeyondIntegerRangeFail() throws SystemException {
+		maxKey = (long) Integer.MAX_VALUE - 1;
+		KeyAllocator allocator = new KeyAllocator(dao, 10);
+
+		assertEquals(Integer.valueOf(Integer.MAX_VALUE),
+				allocator.next("patient", "id"));
+		try {
+			allocator.next("patient", "id");
+			fail("The key should exceed the greatest integer");
+		} catch (SystemException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Date;
+
+import org.esaude.dmt.helper.ProcessStatuses;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CheckpointJournal }
+ */
+public class CheckpointJournalTest {
+	private File file;
+	private CheckpointJournal journal;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("process", ".journal");
+		file.delete();
+		journal = new CheckpointJournal(file, 10);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journal.close();
+		file.delete();
+	}
+
+	@Test
+	public void testMissingJournalHasNoPosition() throws IOException {
+		assertNull(journal.replay());
+	}
+
+	@Test
+	public void testCheckpointsAfterStatusAreRunning() throws IOException {
+		journal.status(0, null, new Date(), ProcessStatuses.RESET);
+		journal.checkpoint(5, null);
+		journal.checkpoint(10, null);
+
+		CheckpointJournal.Position position = journal.replay();
+
+		assertTrue(position.isRunning());
+		assertEquals(10, position.getStop());
+		assertNull(position.getStatus());
+	}
+
+	@Test
+	public void testFurthestCheckpointIsKept() throws IOException {
+		journal.checkpoint(10, null);
+		journal.checkpoint(7, null);
+
+		assertEquals(10, journal.replay().getStop());
+	}
+
+	@Test
+	public void testLastStatusWins() throws IOException {
+		journal.checkpoint(10, null);
+		journal.status(12, null, new Date(), ProcessStatuses.PAUSED);
+
+		CheckpointJournal.Position position = journal.replay();
+
+		assertFalse(position.isRunning());
+		assertEquals(12, position.getStop());
+		assertEquals(ProcessStatuses.PAUSED, position.getStatus());
+	}
+
+	@Test
+	public void testKeyOfFurthestCheckpointIsKept() throws IOException {
+		journal.checkpoint(10, "1200");
+		journal.checkpoint(7, "900");
+
+		assertEquals("1200", journal.replay().getKey());
+		journal.status(10, "1200", new Date(), ProcessStatuses.PAUSED);
+		assertEquals("1200", journal.replay().getKey());
+		journal.status(0, null, new Date(), ProcessStatuses.COMPLETED);
+		assertNull(journal.replay().getKey());
+	}
+
+	@Test
+	public void testKeysAreReadWithTheirType() throws IOException {
+		journal.checkpoint(3, 42L);
+		assertEquals(Long.valueOf(42), journal.replay().getKey());
+		// a VARCHAR key made of digits is still text
+		journal.checkpoint(4, "0042");
+		assertEquals("0042", journal.replay().getKey());
+	}
+
+	@Test
+	public void testCutRecordIsIgnored() throws IOException {
+		journal.checkpoint(3, null);
+		journal.close();
+		FileWriter writer = new FileWriter(file, true);
+		writer.write("S\t9");
+		writer.close();
+
+		assertEquals(3, journal.replay().getStop());
+		assertEquals(1, journal.getRecordCount());
+	}
+
+	@Test
+	public void testTruncateEmptiesJournal() throws IOException {
+		journal.checkpoint(3, null);
+		journal.truncate();
+
+		assertNull(journal.replay());
+		assertEquals(0, journal.getRecordCount());
+		journal.checkpoint(4, null);
+		assertEquals(4, journal.replay().getStop());
+	}
+}
@@ -0,0 +1,92 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DeadLetterJournal }
+ */
+public class DeadLetterJournalTest {
+	private File file;
+	private DeadLetterJournal journal;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("dead_letters", ".txt");
+		file.delete();
+		journal = new DeadLetterJournal(file);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+
+	@Test
+	public void testMissingJournalIsEmpty() throws SystemException {
+		assertTrue(journal.read().isEmpty());
+	}
+
+	@Test
+	public void testAppendedTreesAreReadInOrder() throws SystemException {
+		journal.append(new DeadLetter(3, "10", 1, "INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(7, "15", 2,
+				"SELECT b\nFROM c\tWHERE d = ?", "failed\nagain"));
+
+		List<DeadLetter> deadLetters = journal.read();
+
+		assertEquals(2, deadLetters.size());
+		assertEquals(3, deadLetters.get(0).getIndex());
+		assertEquals("10", deadLetters.get(0).getCurr());
+		assertEquals(2, deadLetters.get(1).getTupleId());
+		// a dead letter is kept in a single line
+		assertEquals("SELECT b FROM c WHERE d = ?", deadLetters.get(1)
+				.getQuery());
+		assertEquals("failed again", deadLetters.get(1).getError());
+	}
+
+	@Test
+	public void testCurrsAreReadAsTheyWereSelected() throws SystemException {
+		Timestamp date = Timestamp.valueOf("2015-02-23 13:32:05.123");
+		journal.append(new DeadLetter(1, "00123", 1, "INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(2, 123L, 1, "INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(3, new BigDecimal("1.50"), 1,
+				"INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(4, date, 1, "INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(5, "a\tb\\n", 1, "INSERT INTO a",
+				"failed"));
+
+		List<DeadLetter> deadLetters = journal.read();
+
+		assertEquals("00123", deadLetters.get(0).getCurr());
+		assertEquals(Long.valueOf(123), deadLetters.get(1).getCurr());
+		assertEquals(new BigDecimal("1.50"), deadLetters.get(2).getCurr());
+		assertEquals(date, deadLetters.get(3).getCurr());
+		assertEquals("a\tb\\n", deadLetters.get(4).getCurr());
+	}
+
+	@Test
+	public void testRewriteReplacesTheTrees() throws SystemException {
+		journal.append(new DeadLetter(3, "10", 1, "INSERT INTO a", "failed"));
+		journal.append(new DeadLetter(7, "15", 2, "INSERT INTO b", "failed"));
+
+		journal.rewrite(Arrays.asList(new DeadLetter(7, "15", 2,
+				"INSERT INTO b", "failed")));
+
+		assertEquals(1, journal.read().size());
+		assertEquals("15", journal.read().get(0).getCurr());
+
+		journal.rewrite(Arrays.<DeadLetter> asList());
+		assertTrue(journal.read().isEmpty());
+	}
+}
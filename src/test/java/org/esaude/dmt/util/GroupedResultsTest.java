@@ -0,0 +1,103 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link GroupedResults }
+ */
+public class GroupedResultsTest {
+	private GroupedResults groupedResults;
+
+	@Before
+	public void setUp() throws Exception {
+		groupedResults = new GroupedResults();
+	}
+
+	@Test
+	public void testRowsAreGroupedByKey() {
+		groupedResults.prepare(1, Arrays.<Object> asList(10, 20));
+		groupedResults.add(1, 10, Arrays.<Object> asList("A"));
+		groupedResults.add(1, 10, Arrays.<Object> asList("B"));
+		groupedResults.add(1, 20, Arrays.<Object> asList("C"));
+
+		List<List<Object>> rows = groupedResults.get(1, 10);
+
+		assertEquals(2, rows.size());
+		assertEquals("A", rows.get(0).get(0));
+		assertEquals("B", rows.get(1).get(0));
+		assertEquals(1, groupedResults.get(1, 20).size());
+	}
+
+	@Test
+	public void testPreparedKeyWithoutRowsIsEmpty() {
+		groupedResults.prepare(1, Arrays.<Object> asList(10));
+
+		assertNotNull(groupedResults.get(1, 10));
+		assertTrue(groupedResults.get(1, 10).isEmpty());
+	}
+
+	@Test
+	public void testKeyNotPreparedIsNull() {
+		groupedResults.prepare(1, Arrays.<Object> asList(10));
+		groupedResults.add(1, 30, Arrays.<Object> asList("A"));
+
+		assertNull(groupedResults.get(1, 30));
+		assertNull(groupedResults.get(2, 10));
+	}
+
+	@Test
+	public void testKeysOfDifferentNumericTypesMatch() {
+		groupedResults.prepare(1, Arrays.<Object> asList(10));
+		groupedResults.add(1, Long.valueOf(10), Arrays.<Object> asList("A"));
+
+		assertEquals(1, groupedResults.get(1, Integer.valueOf(10)).size());
+	}
+
+	@Test
+	public void testKeysAreComparedAsNumbers() {
+		groupedResults.prepare(1, Arrays.<Object> asList(1, "2", 0));
+		groupedResults.add(1, Double.valueOf(1.0), Arrays.<Object> asList("A"));
+		groupedResults.add(1, new BigDecimal("1.00"), Arrays.<Object> asList("B"));
+		groupedResults.add(1, "1", Arrays.<Object> asList("C"));
+		groupedResults.add(1, Long.valueOf(2), Arrays.<Object> asList("D"));
+		groupedResults.add(1, new BigDecimal("0.00"), Arrays.<Object> asList("E"));
+
+		assertEquals(3, groupedResults.get(1, Integer.valueOf(1)).size());
+		assertEquals(1, groupedResults.get(1, new BigDecimal("2.0")).size());
+		assertEquals(1, groupedResults.get(1, Boolean.FALSE).size());
+		assertNull(groupedResults.get(1, Double.valueOf(1.5)));
+	}
+
+	@Test
+	public void testTextsAreComparedWithCase() {
+		groupedResults.prepare(1, Arrays.<Object> asList("abc"));
+		groupedResults.add(1, "ABC", Arrays.<Object> asList("A"));
+
+		assertTrue(groupedResults.get(1, "abc").isEmpty());
+		assertNull(groupedResults.get(1, "ABC"));
+	}
+
+	@Test
+	public void testTextsAreComparedIgnoringCase() {
+		groupedResults = new GroupedResults(true);
+		groupedResults.prepare(1, Arrays.<Object> asList("abc"));
+		groupedResults.add(1, "ABC", Arrays.<Object> asList("A"));
+
+		assertEquals(1, groupedResults.get(1, "Abc").size());
+	}
+
+	@Test
+	public void testClearDiscardsGroup() {
+		groupedResults.prepare(1, Arrays.<Object> asList(10));
+		groupedResults.clear(1);
+
+		assertNull(groupedResults.get(1, 10));
+	}
+}
@@ -0,0 +1,37 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LruCache }
+ */
+public class LruCacheTest {
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() {
+		final List<String> evicted = new ArrayList<String>();
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(2) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onEviction(String key, Integer value) {
+				evicted.add(key);
+			}
+		};
+		cache.put("A", 1);
+		cache.put("B", 2);
+		cache.get("A");// B becomes the least recently used
+		cache.put("C", 3);
+
+		assertEquals(2, cache.size());
+		assertTrue(cache.containsKey("A"));
+		assertFalse(cache.containsKey("B"));
+		assertEquals(1, evicted.size());
+		assertEquals("B", evicted.get(0));
+	}
+}
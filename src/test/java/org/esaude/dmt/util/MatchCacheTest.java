@@ -0,0 +1,65 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MatchCache }
+ */
+public class MatchCacheTest {
+	private MatchCache matchCache;
+
+	@Before
+	public void setUp() throws Exception {
+		matchCache = new MatchCache(2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<List<Object>> rows(Object value) {
+		return Arrays.<List<Object>> asList(Arrays.asList(value));
+	}
+
+	@Test
+	public void testResultsAreKeyedByMatchAndValues() {
+		matchCache.put(1, Arrays.<Object> asList(10), rows("A"));
+
+		assertEquals("A", matchCache.get(1, Arrays.<Object> asList(10)).get(0)
+				.get(0));
+		assertNull(matchCache.get(1, Arrays.<Object> asList(11)));
+		assertNull(matchCache.get(2, Arrays.<Object> asList(10)));
+		assertEquals(1, matchCache.getHits());
+		assertEquals(2, matchCache.getMisses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		matchCache.put(1, Arrays.<Object> asList(10), rows("A"));
+		matchCache.put(1, Arrays.<Object> asList(11), rows("B"));
+		matchCache.get(1, Arrays.<Object> asList(10));
+		matchCache.put(1, Arrays.<Object> asList(12), rows("C"));
+
+		assertEquals(2, matchCache.size());
+		assertNotNull(matchCache.get(1, Arrays.<Object> asList(10)));
+		assertNull(matchCache.get(1, Arrays.<Object> asList(11)));
+	}
+
+	@Test
+	public void testMatchCanBeDisabled() {
+		assertTrue(matchCache.isEnabled(1));
+		matchCache.setEnabled(1, false);
+		assertFalse(matchCache.isEnabled(1));
+		assertTrue(matchCache.isEnabled(2));
+		matchCache.setEnabled(1, true);
+		assertTrue(matchCache.isEnabled(1));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedResultsAreImmutable() {
+		matchCache.put(1, Arrays.<Object> asList(10), rows("A")).clear();
+	}
+}
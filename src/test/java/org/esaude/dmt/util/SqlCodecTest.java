@@ -0,0 +1,82 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import org.esaude.dmt.helper.MatchConstants;
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SqlCodec }
+ */
+public class SqlCodecTest {
+
+	@Test
+	public void testNumbersAreRecognized() {
+		assertTrue(SqlCodec.isNumeric("12"));
+		assertTrue(SqlCodec.isNumeric("-12.5"));
+		assertTrue(SqlCodec.isNumeric("+0.25"));
+		assertFalse(SqlCodec.isNumeric(""));
+		assertFalse(SqlCodec.isNumeric("-"));
+		assertFalse(SqlCodec.isNumeric("12."));
+		assertFalse(SqlCodec.isNumeric(".5"));
+		assertFalse(SqlCodec.isNumeric("12,5"));
+		assertFalse(SqlCodec.isNumeric("12 cm"));
+	}
+
+	@Test
+	public void testLiterals() throws SystemException {
+		assertEquals("12", SqlCodec.STANDARD.toLiteral("12"));
+		assertEquals("12", SqlCodec.STANDARD.toLiteral(12));
+		assertEquals("1000", SqlCodec.STANDARD.toLiteral(new BigDecimal(
+				"1E+3")));
+		assertEquals("NULL", SqlCodec.STANDARD.toLiteral(MatchConstants.NULL));
+		assertEquals("'A'", SqlCodec.STANDARD.toLiteral("A"));
+		assertEquals("'O''Neil'", SqlCodec.STANDARD.toLiteral("O'Neil"));
+		assertEquals("1", SqlCodec.STANDARD.toLiteral(Boolean.TRUE));
+	}
+
+	@Test
+	public void testDatesFollowTheDatabase() throws SystemException {
+		Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(2014, Calendar.DECEMBER, 2, 5, 9, 4);
+		Timestamp date = new Timestamp(c.getTimeInMillis());
+
+		assertEquals("#2014-12-02 05:09:04#", SqlCodec.ACCESS.toLiteral(date));
+		assertEquals("'2014-12-02 05:09:04'",
+				SqlCodec.STANDARD.toLiteral(date));
+	}
+
+	@Test
+	public void testParameters() throws SystemException {
+		assertEquals(new BigDecimal("12.5"),
+				SqlCodec.STANDARD.toParameter("12.5"));
+		assertNull(SqlCodec.STANDARD.toParameter("null"));
+		assertEquals("A", SqlCodec.STANDARD.toParameter("A"));
+		assertEquals(5L, SqlCodec.STANDARD.toParameter(5L));
+	}
+
+	@Test(expected = SystemException.class)
+	public void testNullCanNotBeWritten() throws SystemException {
+		SqlCodec.STANDARD.toLiteral(null);
+	}
+
+	@Test
+	public void testDatatypesAreEnforcedAsTheHeadOfTheirLine()
+			throws SystemException {
+		assertEquals(12.5, SqlCodec.STANDARD.enforce("FLOAT", "12,5"));
+		assertEquals(new BigDecimal("12.5"),
+				SqlCodec.STANDARD.enforce("DECIMAL", "12,5"));
+		assertEquals(new BigDecimal("0.1"),
+				SqlCodec.STANDARD.enforce("NUMERIC", "0.1"));
+		assertEquals(new BigDecimal("0.1"),
+				SqlCodec.STANDARD.enforce("DECIMAL", "0.1"));
+		assertEquals("12,5", SqlCodec.STANDARD.enforce("VARCHAR", "12,5"));
+		assertEquals("A", SqlCodec.STANDARD.enforce("UNKNOWN", "A"));
+	}
+}
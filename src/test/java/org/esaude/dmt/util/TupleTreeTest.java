@@ -0,0 +1,32 @@
+package org.esaude.dmt.util;
+
+import static org.junit.Assert.*;
+
+import org.esaude.dmt.helper.SystemException;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TupleTree }
+ */
+public class TupleTreeTest {
+
+	@Test
+	public void testCopyHasOwnValues() throws SystemException {
+		TupleTree tree = new TupleBuilder()
+				.createTuple(1, "personal", "PERSON", "personal data", null)
+				.createTuple(2, "address", "ADDRESS", "address data", 1)
+				.process();
+		tree.setCurr(10);
+		tree.getTree(2).setTop(20);
+
+		TupleTree copy = tree.copy();
+
+		assertNotSame(tree, copy);
+		assertSame(tree.getHead(), copy.getHead());
+		assertEquals(1, copy.getSubTrees().size());
+		assertSame(copy, copy.getTree(2).getParent());
+		assertSame(tree.getTree(2).getHead(), copy.getTree(2).getHead());
+		assertNull(copy.getCurr());
+		assertNull(copy.getTree(2).getTop());
+	}
+}
@@ -0,0 +1,92 @@
+package org.esaude.dmt.util.plan;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.esaude.dmt.helper.SystemException;
+import org.esaude.dmt.util.MatchUtil;
+import org.esaude.dmt.util.TupleBuilder;
+import org.esaude.dmt.util.TupleTree;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link QueryPlan }
+ */
+public class QueryPlanTest {
+	private TupleTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		tree = new TupleBuilder()
+				.createTuple(1, "personal", "PERSON", "personal data", null)
+				.createTuple(2, "address", "ADDRESS", "address data", 1)
+				.process();
+	}
+
+	@Test
+	public void testBindResolvesValuesOfTheTree() throws SystemException {
+		QueryPlan plan = new QueryPlan("SELECT a FROM b WHERE c = ? AND d = ?",
+				Arrays.<Object> asList(PlanValue.curr(1), PlanValue.top(2)));
+
+		tree.setCurr("10");
+		tree.getTree(2).setTop(20);
+
+		List<Object> values = plan.bind(tree.getTree(2), new MatchUtil());
+
+		assertEquals(2, values.size());
+		assertEquals(10, ((Number) values.get(0)).intValue());
+		assertEquals(20, values.get(1));
+
+		// the same plan binds the next values
+		tree.setCurr("11");
+		assertEquals(11, ((Number) plan.bind(tree, new MatchUtil()).get(0))
+				.intValue());
+	}
+
+	@Test
+	public void testConstantsAreBoundAsIs() throws SystemException {
+		QueryPlan plan = new QueryPlan("SELECT a FROM b WHERE c = ?",
+				Arrays.<Object> asList("X"));
+
+		assertEquals(Arrays.<Object> asList("X"),
+				plan.bind(tree, new MatchUtil()));
+	}
+
+	@Test
+	public void testParametersAreImmutable() {
+		List<Object> parameters = new ArrayList<Object>();
+		parameters.add(PlanValue.curr(1));
+
+		QueryPlan plan = new QueryPlan("SELECT a FROM b WHERE c = ?",
+				parameters);
+		parameters.clear();
+
+		assertEquals(1, plan.getParameters().size());
+		try {
+			plan.getParameters().clear();
+			fail("The parameters of a plan must not change");
+		} catch (UnsupportedOperationException ex) {
+		}
+	}
+
+	@Test
+	public void testQueryWithoutValuesOfTheTreeIsInvariant() {
+		assertTrue(new QueryPlan("SELECT a FROM b WHERE c = ?",
+				Arrays.<Object> asList("X")).isInvariant());
+		assertTrue(new QueryPlan("SELECT a FROM b",
+				new ArrayList<Object>()).isInvariant());
+		assertFalse(new QueryPlan("SELECT a FROM b WHERE c = ? AND d = ?",
+				Arrays.<Object> asList("X", PlanValue.curr(1))).isInvariant());
+	}
+
+	@Test(expected = SystemException.class)
+	public void testValueOfMissingTupleFails() throws SystemException {
+		new QueryPlan("SELECT a FROM b WHERE c = ?",
+				Arrays.<Object> asList(PlanValue.curr(3))).bind(tree,
+				new MatchUtil());
+	}
+}